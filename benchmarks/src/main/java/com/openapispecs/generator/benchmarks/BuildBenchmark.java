@@ -0,0 +1,56 @@
+package com.openapispecs.generator.benchmarks;
+
+import com.openapispecs.generator.plugin.parser.OpenApiBuilder;
+import com.openapispecs.generator.plugin.scanner.AnnotationScanner;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Building the OpenAPI model from already scanned controllers, without the fragment cache.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BuildBenchmark extends CorpusState {
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    private URLClassLoader classLoader;
+    private Set<Class<?>> controllers;
+    private Set<Class<?>> controllerAdvices;
+
+    @Override
+    protected void corpusReady() throws IOException {
+        classLoader = corpus.newClassLoader();
+        AnnotationScanner scanner = new AnnotationScanner(corpus.getBasePackage(), classLoader,
+                AnnotationScanner.Backend.BYTECODE);
+        controllers = scanner.findRestControllers();
+        controllerAdvices = scanner.findControllerAdvice();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @Benchmark
+    public OpenAPI build() {
+        OpenApiBuilder builder = new OpenApiBuilder();
+        builder.setParallelism(parallelism);
+        return builder.build("Benchmark", "1.0", null, controllers, controllerAdvices);
+    }
+}
@@ -0,0 +1,140 @@
+package com.openapispecs.generator.benchmarks;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+// A generated and compiled corpus. Compiled classes are kept under the given directory and reused by later runs and
+// forks with the same shape; delete the directory to regenerate.
+public class Corpus {
+    private static final int CONTROLLERS_PER_BATCH = 500;
+    private static final int CLASSES_PER_DEPENDENCY = 200;
+
+    private final Path classesDirectory;
+
+    private Corpus(Path classesDirectory) {
+        this.classesDirectory = classesDirectory;
+    }
+
+    public static synchronized Corpus prepare(CorpusSpec spec, Path workDirectory) throws IOException {
+        Path corpusDirectory = workDirectory.resolve(spec.key()).toAbsolutePath();
+        Path classesDirectory = corpusDirectory.resolve("classes");
+        Path completeMarker = corpusDirectory.resolve(".complete");
+        if (!Files.exists(completeMarker)) {
+            deleteRecursively(corpusDirectory);
+            generateAndCompile(spec, corpusDirectory.resolve("src"), classesDirectory);
+            Files.createFile(completeMarker);
+        }
+        return new Corpus(classesDirectory);
+    }
+
+    public String getBasePackage() {
+        return CorpusGenerator.BASE_PACKAGE;
+    }
+
+    // A fresh loader, so every class is loaded and introspected again
+    public URLClassLoader newClassLoader() {
+        return newClassLoader(List.of());
+    }
+
+    // The corpus followed by the given jars
+    public URLClassLoader newClassLoader(List<Path> jars) {
+        try {
+            List<URL> urls = new ArrayList<>();
+            urls.add(classesDirectory.toUri().toURL());
+            for (Path jar : jars) {
+                urls.add(jar.toUri().toURL());
+            }
+            return new URLClassLoader(urls.toArray(new URL[0]), Corpus.class.getClassLoader());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Stand-ins for a project's dependencies: jars holding up to CLASSES_PER_DEPENDENCY of the corpus's class files
+    // under a package of their own, outside the base package. Kept next to the classes like them.
+    public synchronized List<Path> dependencyJars(int count) throws IOException {
+        Path directory = classesDirectory.resolveSibling("dependencies-" + count);
+        Path completeMarker = directory.resolve(".complete");
+        List<Path> jars = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            jars.add(directory.resolve("dependency-" + i + ".jar"));
+        }
+        if (Files.exists(completeMarker)) {
+            return jars;
+        }
+        deleteRecursively(directory);
+        Files.createDirectories(directory);
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(classesDirectory)) {
+            classFiles = files.filter(Files::isRegularFile).sorted().limit(CLASSES_PER_DEPENDENCY).toList();
+        }
+        for (int i = 0; i < count; i++) {
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jars.get(i)))) {
+                for (Path classFile : classFiles) {
+                    out.putNextEntry(new JarEntry("dependency" + i + "/"
+                            + classesDirectory.relativize(classFile).toString().replace(File.separatorChar, '/')));
+                    Files.copy(classFile, out);
+                    out.closeEntry();
+                }
+            }
+        }
+        Files.createFile(completeMarker);
+        return jars;
+    }
+
+    private static void generateAndCompile(CorpusSpec spec, Path sourceRoot, Path classesDirectory)
+            throws IOException {
+        Files.createDirectories(classesDirectory);
+        CorpusGenerator generator = new CorpusGenerator(spec, sourceRoot);
+        compile(generator.writeShared(), classesDirectory);
+        for (int first = 0; first < spec.controllers(); first += CONTROLLERS_PER_BATCH) {
+            List<Path> batch = new ArrayList<>();
+            for (int c = first; c < Math.min(first + CONTROLLERS_PER_BATCH, spec.controllers()); c++) {
+                batch.addAll(generator.writeController(c));
+            }
+            compile(batch, classesDirectory);
+        }
+    }
+
+    private static void compile(List<Path> sources, Path classesDirectory) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Generating a corpus needs a JDK, not a JRE");
+        }
+        String classpath = System.getProperty("java.class.path") + File.pathSeparator + classesDirectory;
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            List<String> options = List.of("-d", classesDirectory.toString(), "-classpath", classpath, "-proc:none",
+                    "-nowarn");
+            Boolean success = compiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjectsFromPaths(sources)).call();
+            if (!success) {
+                throw new IllegalStateException("Compiling the generated corpus failed");
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
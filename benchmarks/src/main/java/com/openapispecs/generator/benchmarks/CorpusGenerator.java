@@ -0,0 +1,243 @@
+package com.openapispecs.generator.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes the Java sources of a synthetic corpus. Sources are grouped per controller, so they can be compiled in
+// batches that each only need the shared error classes on the classpath.
+public class CorpusGenerator {
+    public static final String BASE_PACKAGE = "bench.corpus";
+
+    private static final String[] ERROR_STATUSES = { "BAD_REQUEST", "NOT_FOUND", "CONFLICT", "UNPROCESSABLE_ENTITY",
+            "SERVICE_UNAVAILABLE" };
+
+    private final CorpusSpec spec;
+    private final Path sourceRoot;
+
+    public CorpusGenerator(CorpusSpec spec, Path sourceRoot) {
+        this.spec = spec;
+        this.sourceRoot = sourceRoot;
+    }
+
+    // The error body, exceptions and advices every controller can refer to
+    public List<Path> writeShared() throws IOException {
+        List<Path> files = new ArrayList<>();
+        files.add(write("err", "ErrorBody", """
+                package bench.corpus.err;
+
+                public class ErrorBody {
+                    private String code;
+                    private String message;
+                }
+                """));
+        for (int a = 0; a < spec.advices(); a++) {
+            files.add(write("err", "Error" + a + "Exception", """
+                    package bench.corpus.err;
+
+                    public class Error%1$dException extends RuntimeException {
+                    }
+                    """.formatted(a)));
+            files.add(write("err", "Advice" + a, """
+                    package bench.corpus.err;
+
+                    import org.springframework.http.HttpStatus;
+                    import org.springframework.web.bind.annotation.ExceptionHandler;
+                    import org.springframework.web.bind.annotation.ResponseStatus;
+                    import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+                    @RestControllerAdvice
+                    public class Advice%1$d {
+                        @ExceptionHandler(Error%1$dException.class)
+                        @ResponseStatus(HttpStatus.%2$s)
+                        public ErrorBody handle(Error%1$dException e) {
+                            return null;
+                        }
+                    }
+                    """.formatted(a, ERROR_STATUSES[a % ERROR_STATUSES.length])));
+        }
+        if (spec.generics()) {
+            // Self-referencing type variables, used raw by every chain and returned by a controller of their own
+            files.add(write("dto", "Range", """
+                    package bench.corpus.dto;
+
+                    public class Range<T extends Comparable<T>> {
+                        private T min;
+                        private T max;
+                    }
+                    """));
+            files.add(write("web", "BoundsController", """
+                    package bench.corpus.web;
+
+                    import org.springframework.web.bind.annotation.GetMapping;
+                    import org.springframework.web.bind.annotation.RequestMapping;
+                    import org.springframework.web.bind.annotation.RestController;
+
+                    @RestController
+                    @RequestMapping("/api/bounds")
+                    public class BoundsController {
+                        @GetMapping("/comparable")
+                        public <T extends Comparable<T>> T comparable() {
+                            return null;
+                        }
+
+                        @GetMapping("/enum")
+                        public <E extends Enum<E>> E enumValue() {
+                            return null;
+                        }
+                    }
+                    """));
+        }
+        return files;
+    }
+
+    // The controller with the given index and its DTO chain
+    public List<Path> writeController(int c) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int level = 0; level < spec.dtoDepth(); level++) {
+            files.add(write("dto", dtoName(c, level), dtoSource(c, level)));
+        }
+        files.add(write("web", "Controller" + c, controllerSource(c)));
+        return files;
+    }
+
+    private String dtoSource(int c, int level) {
+        StringBuilder fields = new StringBuilder("""
+                    @NotNull
+                    private Long id;
+                    @NotBlank
+                    @Size(min = 1, max = 64)
+                    private String name;
+                    @Min(0)
+                    @Max(1000)
+                    private int count;
+                    private LocalDate created;
+                    private BigDecimal amount;
+                """);
+        if (spec.generics() && level == 0) {
+            fields.append("    @SuppressWarnings(\"rawtypes\")\n");
+            fields.append("    private Range range;\n");
+        }
+        if (level + 1 < spec.dtoDepth()) {
+            String child = dtoName(c, level + 1);
+            fields.append("    private ").append(child).append(" child;\n");
+            if (spec.generics()) {
+                fields.append("    @Size(max = 10)\n");
+                fields.append("    private List<").append(child).append("> children;\n");
+                fields.append("    private Map<String, ").append(child).append("> childrenByName;\n");
+            }
+        } else if (spec.cycles() && spec.dtoDepth() > 1) {
+            fields.append("    private ").append(dtoName(c, 0)).append(" root;\n");
+        }
+        return """
+                package bench.corpus.dto;
+
+                import jakarta.validation.constraints.Max;
+                import jakarta.validation.constraints.Min;
+                import jakarta.validation.constraints.NotBlank;
+                import jakarta.validation.constraints.NotNull;
+                import jakarta.validation.constraints.Size;
+
+                import java.math.BigDecimal;
+                import java.time.LocalDate;
+                import java.util.List;
+                import java.util.Map;
+
+                public class %s {
+                %s}
+                """.formatted(dtoName(c, level), fields);
+    }
+
+    private String controllerSource(int c) {
+        String dto = dtoName(c, 0);
+        StringBuilder methods = new StringBuilder();
+        for (int m = 0; m < spec.methodsPerController(); m++) {
+            String method = switch (m % 5) {
+                case 0 -> """
+                            @GetMapping("/m%2$d/{id}")
+                            public ResponseEntity<%1$s> get%2$d(@PathVariable("id") Long id,
+                                    @RequestParam(value = "q", required = false) String q) {
+                                return null;
+                            }
+                        """;
+                case 1 -> """
+                            @PostMapping("/m%2$d")
+                            public %1$s create%2$d(@RequestBody %1$s body) {
+                                return null;
+                            }
+                        """;
+                case 2 -> spec.generics() ? """
+                            @PutMapping("/m%2$d/{id}")
+                            public Mono<ResponseEntity<%1$s>> update%2$d(@PathVariable("id") Long id,
+                                    @RequestBody %1$s body) {
+                                return null;
+                            }
+                        """ : """
+                            @PutMapping("/m%2$d/{id}")
+                            public %1$s update%2$d(@PathVariable("id") Long id, @RequestBody %1$s body) {
+                                return null;
+                            }
+                        """;
+                case 3 -> """
+                            @DeleteMapping("/m%2$d/{id}")
+                            public void delete%2$d(@PathVariable("id") Long id,
+                                    @RequestHeader(value = "X-Request-Id", required = false) String requestId) {
+                            }
+                        """;
+                default -> spec.generics() ? """
+                            @GetMapping("/m%2$d")
+                            public Flux<%1$s> list%2$d(@RequestParam(value = "page") @Min(0) int page,
+                                    @RequestParam(value = "tags", required = false) List<String> tags) {
+                                return null;
+                            }
+                        """ : """
+                            @GetMapping("/m%2$d")
+                            public %1$s[] list%2$d(@RequestParam(value = "page") @Min(0) int page) {
+                                return null;
+                            }
+                        """;
+            };
+            methods.append(method.formatted(dto, m));
+        }
+        return """
+                package bench.corpus.web;
+
+                import bench.corpus.dto.%1$s;
+                import jakarta.validation.constraints.Min;
+                import org.springframework.http.ResponseEntity;
+                import org.springframework.web.bind.annotation.DeleteMapping;
+                import org.springframework.web.bind.annotation.GetMapping;
+                import org.springframework.web.bind.annotation.PathVariable;
+                import org.springframework.web.bind.annotation.PostMapping;
+                import org.springframework.web.bind.annotation.PutMapping;
+                import org.springframework.web.bind.annotation.RequestBody;
+                import org.springframework.web.bind.annotation.RequestHeader;
+                import org.springframework.web.bind.annotation.RequestMapping;
+                import org.springframework.web.bind.annotation.RequestParam;
+                import org.springframework.web.bind.annotation.RestController;
+                import reactor.core.publisher.Flux;
+                import reactor.core.publisher.Mono;
+
+                import java.util.List;
+
+                @RestController
+                @RequestMapping("/api/c%2$d")
+                public class Controller%2$d {
+                %3$s}
+                """.formatted(dto, c, methods);
+    }
+
+    private static String dtoName(int c, int level) {
+        return "Dto" + c + "L" + level;
+    }
+
+    private Path write(String subPackage, String className, String source) throws IOException {
+        Path file = sourceRoot.resolve(BASE_PACKAGE.replace('.', '/')).resolve(subPackage).resolve(className + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,21 @@
+package com.openapispecs.generator.benchmarks;
+
+// Shape of a synthetic Spring application. Every controller gets its own chain of dtoDepth DTO classes; generics adds
+// List/Map fields, reactive or wrapped return types and self-referencing type variables (T extends Comparable<T>)
+// through one extra controller, cycles links the last DTO of each chain back to the first, and
+// advices is the number of @RestControllerAdvice classes, each handling its own exception.
+public record CorpusSpec(int controllers, int methodsPerController, int dtoDepth, boolean generics, boolean cycles,
+        int advices) {
+
+    public CorpusSpec {
+        if (controllers < 1 || methodsPerController < 1 || dtoDepth < 1 || advices < 0) {
+            throw new IllegalArgumentException("Invalid corpus: " + this);
+        }
+    }
+
+    // Directory name for the compiled corpus, so each shape is generated once and shared by all forks
+    public String key() {
+        return "c" + controllers + "-m" + methodsPerController + "-d" + dtoDepth + (generics ? "-g" : "")
+                + (cycles ? "-cy" : "") + "-a" + advices;
+    }
+}
@@ -0,0 +1,46 @@
+package com.openapispecs.generator.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Corpus shape shared by all benchmarks. Override any parameter with -p, e.g. -p controllers=1000 -p dtoDepth=5.
+// The compiled corpus is stored under the directory given by -Dcorpus.dir (default target/corpus).
+@State(Scope.Benchmark)
+public class CorpusState {
+    @Param({ "10", "1000", "10000" })
+    public int controllers;
+
+    @Param("5")
+    public int methodsPerController;
+
+    @Param("3")
+    public int dtoDepth;
+
+    @Param("true")
+    public boolean generics;
+
+    @Param("true")
+    public boolean cycles;
+
+    @Param("3")
+    public int advices;
+
+    protected Corpus corpus;
+
+    // JMH does not order trial setups of a class and its superclass, so subclasses hook in here instead
+    @Setup(Level.Trial)
+    public void prepareCorpus() throws IOException {
+        CorpusSpec spec = new CorpusSpec(controllers, methodsPerController, dtoDepth, generics, cycles, advices);
+        corpus = Corpus.prepare(spec, Path.of(System.getProperty("corpus.dir", "target/corpus")));
+        corpusReady();
+    }
+
+    protected void corpusReady() throws IOException {
+    }
+}
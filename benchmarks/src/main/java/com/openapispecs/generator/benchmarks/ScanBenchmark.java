@@ -0,0 +1,63 @@
+package com.openapispecs.generator.benchmarks;
+
+import com.openapispecs.generator.plugin.scanner.AnnotationScanner;
+import com.openapispecs.generator.plugin.scanner.SharedScanIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Finding controllers and advices with a fresh class loader and scan index, as every plugin execution does.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScanBenchmark extends CorpusState {
+    @Param({ "REFLECTIONS", "BYTECODE" })
+    public AnnotationScanner.Backend backend;
+
+    // Jars after the corpus on the classpath, none of which contain the base package
+    @Param({ "0", "600" })
+    public int dependencyJars;
+
+    private List<Path> jars;
+    private URLClassLoader classLoader;
+
+    @Override
+    protected void corpusReady() throws IOException {
+        jars = corpus.dependencyJars(dependencyJars);
+    }
+
+    @Setup(Level.Invocation)
+    public void openClassLoader() {
+        classLoader = corpus.newClassLoader(jars);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) throws IOException {
+        AnnotationScanner scanner = new AnnotationScanner(corpus.getBasePackage(), classLoader, backend,
+                new SharedScanIndex());
+        blackhole.consume(scanner.findRestControllers());
+        blackhole.consume(scanner.findControllerAdvice());
+    }
+}
@@ -0,0 +1,56 @@
+package com.openapispecs.generator.benchmarks;
+
+import com.openapispecs.generator.plugin.output.OutputFormat;
+import com.openapispecs.generator.plugin.parser.ControllerTags;
+import com.openapispecs.generator.plugin.parser.OpenApiBuilder;
+import com.openapispecs.generator.plugin.scanner.AnnotationScanner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+
+// Serializing a finished model, without the cost of the file system, through Jackson's bean serializers or the
+// precompiled ones.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializeBenchmark extends CorpusState {
+    @Param({ "YAML", "JSON", "CBOR" })
+    public OutputFormat format;
+
+    @Param({ "BEAN", "PRECOMPILED" })
+    public OutputFormat.Serializers serializers;
+
+    private OpenAPI openAPI;
+    private ObjectMapper mapper;
+
+    @Override
+    protected void corpusReady() throws IOException {
+        try (URLClassLoader classLoader = corpus.newClassLoader()) {
+            AnnotationScanner scanner = new AnnotationScanner(corpus.getBasePackage(), classLoader,
+                    AnnotationScanner.Backend.BYTECODE);
+            openAPI = new OpenApiBuilder().build("Benchmark", "1.0", null, scanner.findRestControllers(),
+                    scanner.findControllerAdvice());
+        }
+        ControllerTags.apply(openAPI);
+        mapper = format.createMapper(serializers);
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), openAPI);
+    }
+}
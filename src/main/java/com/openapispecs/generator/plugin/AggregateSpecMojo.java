@@ -0,0 +1,173 @@
+package com.openapispecs.generator.plugin;
+
+import com.openapispecs.generator.plugin.aggregate.SpecAggregator;
+import com.openapispecs.generator.plugin.output.OutputFormat;
+import com.openapispecs.generator.plugin.output.SpecWriter;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Info;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+// Merges the specs the generate goal wrote in each module of the reactor into one. Run it after the modules are
+// built, e.g. "mvn verify openapi-generator:aggregate".
+@Mojo(name = "aggregate", aggregator = true, defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class AggregateSpecMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${session}", readonly = true, required = true)
+    private MavenSession session;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true, required = true)
+    private PluginDescriptor pluginDescriptor;
+
+    // Name of the spec generated in each module
+    @Parameter(property = "openapi.outputFileName", defaultValue = "openapi.yaml")
+    private String outputFileName;
+
+    @Parameter(property = "openapi.aggregateFileName", defaultValue = "openapi-aggregate.yaml")
+    private String aggregateFileName;
+
+    @Parameter(property = "openapi.api.title", defaultValue = "${project.name}")
+    private String apiTitle;
+
+    @Parameter(property = "openapi.api.version", defaultValue = "${project.version}")
+    private String apiVersion;
+
+    @Parameter(property = "openapi.api.description", defaultValue = "${project.description}")
+    private String apiDescription;
+
+    @Parameter(property = "openapi.outputFormats", defaultValue = "YAML")
+    private List<OutputFormat> outputFormats;
+
+    // Fail instead of warning when modules define the same operation or schema differently
+    @Parameter(property = "openapi.failOnConflict", defaultValue = "false")
+    private boolean failOnConflict;
+
+    @Parameter(property = "openapi.skip", defaultValue = "false")
+    private boolean skip;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("OpenAPI specification aggregation is skipped.");
+            return;
+        }
+
+        SpecAggregator.Result result;
+        List<SpecAggregator.ModuleSpec> moduleSpecs;
+        try {
+            // Read the module specs in parallel; they are merged one after another, in reactor order
+            moduleSpecs = session.getProjects().parallelStream()
+                    .map(this::readSpec)
+                    .filter(Objects::nonNull)
+                    .toList();
+            if (moduleSpecs.isEmpty()) {
+                getLog().warn("No module specification named " + outputFileName + " found; run the generate goal first.");
+                return;
+            }
+
+            result = new SpecAggregator().aggregate(
+                    new Info().title(apiTitle).version(apiVersion).description(apiDescription), moduleSpecs);
+            List<SpecWriter.WrittenFile> writtenFiles = new SpecWriter(Path.of(project.getBuild().getDirectory()),
+                    aggregateFileName, outputFormats).write(result.openAPI());
+            for (SpecWriter.WrittenFile writtenFile : writtenFiles) {
+                getLog().info(writtenFile.changed()
+                        ? "Aggregated OpenAPI specification written to: " + writtenFile.path()
+                        : "Aggregated OpenAPI specification unchanged: " + writtenFile.path());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            getLog().error("Error aggregating OpenAPI specifications", e);
+            throw new MojoExecutionException("Error aggregating OpenAPI specifications", e);
+        }
+
+        OpenAPI aggregate = result.openAPI();
+        getLog().info("Aggregated " + moduleSpecs.size() + " module specification(s): "
+                + aggregate.getPaths().size() + " path(s), " + aggregate.getComponents().getSchemas().size()
+                + " schema(s), " + result.duplicateSchemas() + " identical schema definition(s) merged.");
+        result.conflicts().forEach(getLog()::warn);
+        if (failOnConflict && !result.conflicts().isEmpty()) {
+            throw new MojoFailureException(result.conflicts().size()
+                    + " conflicting definition(s) between module specifications");
+        }
+    }
+
+    // The spec of a module as its generate execution configured it, in any format it was written in, configured ones
+    // first, and sharded or not. Null when the module has none.
+    private SpecAggregator.ModuleSpec readSpec(MavenProject module) {
+        String moduleFileName = Objects.requireNonNullElse(configuration(module, "outputFileName"), outputFileName);
+        String configuredFormats = configuration(module, "outputFormats");
+        Set<OutputFormat> formats = new LinkedHashSet<>();
+        if (configuredFormats != null) {
+            for (String format : configuredFormats.split(",")) {
+                formats.add(OutputFormat.valueOf(format.trim()));
+            }
+        } else {
+            formats.addAll(outputFormats);
+        }
+        formats.addAll(List.of(OutputFormat.values()));
+
+        Path directory = Path.of(module.getBuild().getDirectory());
+        try {
+            for (OutputFormat format : formats) {
+                OpenAPI openAPI = new SpecWriter(directory, moduleFileName, List.of(format)).read();
+                if (openAPI != null) {
+                    return new SpecAggregator.ModuleSpec(module.getArtifactId(), openAPI);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the OpenAPI specification of " + module.getArtifactId(), e);
+        }
+        // The generate goal leaves a fingerprint next to every spec it wrote
+        if (Files.isRegularFile(directory.resolve("openapi-generator").resolve(moduleFileName + ".fingerprint"))) {
+            getLog().warn("The generate goal ran in " + module.getArtifactId() + " but no OpenAPI specification named "
+                    + moduleFileName + " could be read from " + directory + "; it is left out of the aggregate.");
+        } else {
+            getLog().debug("No OpenAPI specification in " + module.getArtifactId());
+        }
+        return null;
+    }
+
+    // A parameter of this plugin as configured in the module, for the plugin or any of its executions; null when it
+    // is not set there. A list given as elements is returned comma-separated.
+    private String configuration(MavenProject module, String parameter) {
+        for (Plugin plugin : module.getBuildPlugins()) {
+            if (!plugin.getKey().equals(pluginDescriptor.getPluginLookupKey())) {
+                continue;
+            }
+            List<Object> configurations = new ArrayList<>();
+            configurations.add(plugin.getConfiguration());
+            plugin.getExecutions().forEach(execution -> configurations.add(execution.getConfiguration()));
+            for (Object configuration : configurations) {
+                Xpp3Dom value = configuration instanceof Xpp3Dom dom ? dom.getChild(parameter) : null;
+                if (value != null && value.getChildCount() > 0) {
+                    return String.join(",", Arrays.stream(value.getChildren()).map(Xpp3Dom::getValue).toList());
+                }
+                if (value != null && value.getValue() != null && !value.getValue().isBlank()) {
+                    return value.getValue().trim();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -1,29 +1,50 @@
 package com.openapispecs.generator.plugin;
 
+import com.openapispecs.generator.plugin.cache.ClassLoaderCache;
+import com.openapispecs.generator.plugin.cache.FragmentCache;
+import com.openapispecs.generator.plugin.cache.InputFingerprint;
+import com.openapispecs.generator.plugin.diff.ChangeSet;
+import com.openapispecs.generator.plugin.diff.SpecSummary;
+import com.openapispecs.generator.plugin.fork.ForkRequest;
+import com.openapispecs.generator.plugin.fork.ForkedJvm;
+import com.openapispecs.generator.plugin.metrics.GenerationMetrics;
+import com.openapispecs.generator.plugin.output.OutputFormat;
+import com.openapispecs.generator.plugin.output.ServingArtifact;
+import com.openapispecs.generator.plugin.output.SpecWriter;
+import com.openapispecs.generator.plugin.parser.ControllerTags;
 import com.openapispecs.generator.plugin.parser.OpenApiBuilder;
-import com.openapispecs.generator.plugin.parser.mixin.MediaTypeMixin;
-import com.openapispecs.generator.plugin.parser.mixin.SchemaMixin;
+import com.openapispecs.generator.plugin.processor.OpenApiProcessor;
 import com.openapispecs.generator.plugin.scanner.AnnotationScanner;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import com.openapispecs.generator.plugin.scanner.ClassFiles;
+import com.openapispecs.generator.plugin.scanner.PersistentScanCache;
+import com.openapispecs.generator.plugin.scanner.SharedScanIndex;
 import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Info;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
-import io.swagger.v3.oas.models.tags.Tag;
+import org.springframework.beans.CachedIntrospectionResults;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ReflectionUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -33,6 +54,12 @@ public class GenerateSpecMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project}", readonly = true, required = true)
     private MavenProject project;
 
+    @Parameter(defaultValue = "${plugin}", readonly = true, required = true)
+    private PluginDescriptor plugin;
+
+    @Parameter(defaultValue = "${session}", readonly = true, required = true)
+    private MavenSession session;
+
     @Parameter(property = "openapi.basePackage", required = true)
     private String basePackage;
 
@@ -51,89 +78,561 @@ public class GenerateSpecMojo extends AbstractMojo {
     @Parameter(property = "openapi.skip", defaultValue = "false")
     private boolean skip;
 
+    @Parameter(property = "openapi.scanner", defaultValue = "REFLECTIONS")
+    private AnnotationScanner.Backend scanner;
+
+    @Parameter(property = "openapi.force", defaultValue = "false")
+    private boolean force;
+
+    @Parameter(property = "openapi.incremental", defaultValue = "true")
+    private boolean incremental;
+
+    // Threads used to build controllers; 0 uses one per available processor
+    @Parameter(property = "openapi.parallelism", defaultValue = "1")
+    private int parallelism;
+
+    // Writes path items while controllers are still being built instead of holding the whole model in memory
+    @Parameter(property = "openapi.streaming", defaultValue = "false")
+    private boolean streaming;
+
+    // Splits the spec into a root document, a file of paths per tag and a file per schema; implies streaming=false
+    @Parameter(property = "openapi.shardByTag", defaultValue = "false")
+    private boolean shardByTag;
+
+    // Writes the operations and schemas changed since the previous generation to target/openapi-changes.json
+    @Parameter(property = "openapi.changeSet", defaultValue = "false")
+    private boolean changeSet;
+
+    // Also writes the spec, ready to be served, to META-INF/openapi of the output directory with an accessor class;
+    // implies streaming=false
+    @Parameter(property = "openapi.servingArtifact", defaultValue = "false")
+    private boolean servingArtifact;
+
+    // Fully qualified name of the accessor class; by default OpenApiDocument in the base package
+    @Parameter(property = "openapi.servingClassName")
+    private String servingClassName;
+
+    // Takes the spec the annotation processor wrote during compilation, when there is one, instead of scanning and
+    // loading classes; see OpenApiProcessor
+    @Parameter(property = "openapi.useProcessorOutput", defaultValue = "false")
+    private boolean useProcessorOutput;
+
+    // Any of YAML, JSON, YAML_GZ, JSON_GZ, CBOR and SMILE
+    @Parameter(property = "openapi.outputFormats", defaultValue = "YAML")
+    private List<OutputFormat> outputFormats;
+
+    // BEAN or PRECOMPILED: how the model is serialized, see OutputFormat.Serializers. PRECOMPILED is faster and
+    // writes keys in the order of the OpenAPI specification.
+    @Parameter(property = "openapi.serializers", defaultValue = "BEAN")
+    private OutputFormat.Serializers serializers;
+
+    // Writes phase timings and counts to target/openapi-metrics.json and summarises them in the log
+    @Parameter(property = "openapi.metrics", defaultValue = "true")
+    private boolean metrics;
+
+    // Keeps the scan results of release jars from the local repository between builds
+    @Parameter(property = "openapi.scanCache", defaultValue = "true")
+    private boolean scanCache;
+
+    @Parameter(property = "openapi.scanCacheDirectory",
+            defaultValue = "${user.home}/.m2/openapi-generator/scan-cache")
+    private File scanCacheDirectory;
+
+    // Scan cache entries not used for this many days are deleted
+    @Parameter(property = "openapi.scanCacheMaxAgeDays", defaultValue = "30")
+    private int scanCacheMaxAgeDays;
+
+    // Keeps the class loader of the dependency jars for later executions in the same JVM, e.g. a Maven daemon, while
+    // the jars are unchanged. Classes of directories on the classpath are always loaded afresh.
+    @Parameter(property = "openapi.reuseClassLoader", defaultValue = "false")
+    private boolean reuseClassLoader;
+
+    // Scans and builds in a forked JVM, keeping the project classes, Spring and the model out of the Maven JVM. The
+    // fork leaves the model in a file, which is read back and written like any other; streaming and reuseClassLoader
+    // do not apply.
+    @Parameter(property = "openapi.fork", defaultValue = "false")
+    private boolean fork;
+
+    // Options of the forked JVM, such as heap size and garbage collector
+    @Parameter(property = "openapi.forkJvmArgs")
+    private List<String> forkJvmArgs;
+
+    // Where the forked JVM keeps the class data sharing archive of the plugin's classes, created by the first fork;
+    // unset, no archive is used
+    @Parameter(property = "openapi.forkArchiveDirectory",
+            defaultValue = "${user.home}/.m2/openapi-generator/cds")
+    private File forkArchiveDirectory;
+
     public void execute() throws MojoExecutionException {
         if (skip) {
             getLog().info("OpenAPI specification generation is skipped.");
             return;
         }
 
+        GenerationMetrics generationMetrics = new GenerationMetrics();
         try {
             // 1. Get the project's classpath elements
-            List<String> classpathElements = project.getCompileClasspathElements();
-            classpathElements.add(project.getBuild().getOutputDirectory());
-
-            List<URL> projectClasspathList = new ArrayList<>();
-            for (String element : classpathElements) {
-                try {
-                    projectClasspathList.add(new File(element).toURI().toURL());
-                } catch (MalformedURLException e) {
-                    throw new MojoExecutionException(element + " is an invalid classpath element", e);
+            generationMetrics.phase("classpath");
+            List<String> classpathElements = classpathElements();
+
+            // 1.1 Skip generation when no input changed since the spec was last written
+            generationMetrics.phase("fingerprint");
+            SpecWriter specWriter = specWriter();
+            ServingArtifact servingArtifact = servingArtifact();
+            Path fingerprintFile = Path.of(project.getBuild().getDirectory(), "openapi-generator",
+                    outputFileName + ".fingerprint");
+            String fingerprint = computeFingerprint(classpathElements, servingArtifact);
+            if (!force && specWriter.getFiles().stream().allMatch(Files::isRegularFile)
+                    && (servingArtifact == null || servingArtifact.getFiles().stream().allMatch(Files::isRegularFile))
+                    && InputFingerprint.matches(fingerprintFile, fingerprint)) {
+                getLog().info("OpenAPI specification is up to date: " + specWriter.getFiles());
+                generationMetrics.setUpToDate(true);
+                if (changeSet) {
+                    // Nothing changed since the last generation, and the change set must not say otherwise
+                    new ChangeSet(true, false, List.of(), List.of()).write(changeSetFile());
                 }
+                return;
             }
 
-            // 2. Create a classloader with the project's full classpath
-            URLClassLoader classLoader = new URLClassLoader(
-                    projectClasspathList.toArray(new URL[0]),
-                    this.getClass().getClassLoader());
+            // 1.2 Write the annotation processor's spec in every configured format, if asked to and it is there
+            if (useProcessorOutput) {
+                Path processorSpec = processorSpec();
+                if (Files.isRegularFile(processorSpec)) {
+                    getLog().info("Using the spec written by the annotation processor: " + processorSpec);
+                    writeSpecFile(processorSpec,
+                            outputFileName.endsWith(".json") ? OutputFormat.JSON : OutputFormat.YAML,
+                            specWriter, servingArtifact, generationMetrics);
+                    InputFingerprint.store(fingerprintFile, fingerprint);
+                    return;
+                }
+                getLog().info("No spec from the annotation processor at " + processorSpec
+                        + "; generating it from the classpath.");
+            }
 
-            // 3. Scan for controllers and controller advice beans
-            AnnotationScanner scanner = new AnnotationScanner(basePackage, classLoader);
-            Set<Class<?>> controllers = scanner.findRestControllers();
-            Set<Class<?>> controllerAdvices = scanner.findControllerAdvice();
+            // 1.3 Generate in a forked JVM, if asked to
+            if (fork) {
+                if (generateInFork(classpathElements, specWriter, servingArtifact, generationMetrics)) {
+                    InputFingerprint.store(fingerprintFile, fingerprint);
+                }
+                return;
+            }
 
-            if (controllers.isEmpty()) {
-                getLog().warn("No @RestController or @Controller classes found in package: " + basePackage);
+            // 2. Create a classloader with the project's full classpath
+            generationMetrics.phase("classloader");
+            ClassLoaderCache.Lease dependencyLease = null;
+            ClassLoader parent = this.getClass().getClassLoader();
+            if (reuseClassLoader) {
+                // Jar classes come from the cached parent; the loader below still lists every element so that
+                // scanners see the whole classpath
+                dependencyLease = ClassLoaderCache.acquire(classpathElements.stream().map(Path::of)
+                        .filter(Files::isRegularFile).toList(), parent);
+                parent = dependencyLease.loader();
+                generationMetrics.count("classLoaderReused", dependencyLease.isReused() ? 1 : 0);
+                if (dependencyLease.isReused()) {
+                    getLog().info("Reused the class loader of the dependency jars from an earlier execution.");
+                }
+            }
+            URLClassLoader classLoader = new URLClassLoader(toUrls(classpathElements), parent);
+            Generation generation;
+            try {
+                // 3-5. Scan, build and write
+                generation = generate(classLoader, specWriter, servingArtifact, null, generationMetrics);
+            } finally {
+                releaseClasses(classLoader);
+                if (dependencyLease != null) {
+                    dependencyLease.close();
+                }
+            }
+            if (generation == null) {
                 return;
             }
-            getLog().info("Found " + controllers.size() + " controller(s).");
+            InputFingerprint.store(fingerprintFile, fingerprint);
+
+        } catch (Exception e) {
+            getLog().error("Error generating OpenAPI specification", e);
+            throw new MojoExecutionException("Error generating OpenAPI specification", e);
+        } finally {
+            if (metrics) {
+                reportMetrics(generationMetrics.report());
+            }
+        }
+    }
+
+    // The compile classpath, ending with the project's output directory
+    List<String> classpathElements() throws DependencyResolutionRequiredException {
+        List<String> classpathElements = project.getCompileClasspathElements();
+        classpathElements.add(project.getBuild().getOutputDirectory());
+        return classpathElements;
+    }
+
+    static URL[] toUrls(List<String> classpathElements) throws MojoExecutionException {
+        List<URL> urls = new ArrayList<>();
+        for (String element : classpathElements) {
+            try {
+                urls.add(new File(element).toURI().toURL());
+            } catch (MalformedURLException e) {
+                throw new MojoExecutionException(element + " is an invalid classpath element", e);
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+    // Closes the loader and drops what Spring cached about its classes in static caches of the plugin's class loader,
+    // which would otherwise keep every inspected class, and with it the loader, reachable for the life of the JVM
+    static void releaseClasses(URLClassLoader classLoader) throws IOException {
+        CachedIntrospectionResults.clearClassLoader(classLoader);
+        AnnotationUtils.clearCache();
+        ReflectionUtils.clearCache();
+        ResolvableType.clearCache();
+        classLoader.close();
+    }
+
+    SpecWriter specWriter() {
+        return new SpecWriter(Path.of(project.getBuild().getDirectory()), outputFileName, outputFormats, shardByTag,
+                serializers);
+    }
+
+    // Null unless enabled
+    ServingArtifact servingArtifact() {
+        if (!servingArtifact) {
+            return null;
+        }
+        return new ServingArtifact(Path.of(project.getBuild().getOutputDirectory()), outputFileName,
+                servingClassName != null && !servingClassName.isBlank()
+                        ? servingClassName.trim()
+                        : basePackage + ".OpenApiDocument", serializers);
+    }
+
+    // Whether fragments stay in memory for later generations of the same execution
+    boolean keepsFragmentsInMemory() {
+        return false;
+    }
+
+    // Scans the class loader for controllers, builds the model and writes every configured format. Returns null when
+    // there are no controllers.
+    Generation generate(URLClassLoader classLoader, SpecWriter specWriter, ServingArtifact servingArtifact,
+            FragmentCache previousCache, GenerationMetrics generationMetrics) throws IOException {
+        // 3. Scan for controllers and controller advice beans
+        generationMetrics.phase("scan");
+        AnnotationScanner annotationScanner = new AnnotationScanner(basePackage, classLoader, scanner,
+                sharedScanIndex());
+        if (scanner == AnnotationScanner.Backend.BYTECODE) {
+            return generateFromClassFiles(classLoader, annotationScanner, specWriter, servingArtifact,
+                    generationMetrics);
+        }
+        Set<Class<?>> controllers = annotationScanner.findRestControllers();
+        Set<Class<?>> controllerAdvices = annotationScanner.findControllerAdvice();
+
+        if (controllers.isEmpty()) {
+            getLog().warn("No @RestController or @Controller classes found in package: " + basePackage);
+            return null;
+        }
+        getLog().info("Found " + controllers.size() + " controller(s).");
+        if (annotationScanner.getReusedJars() > 0) {
+            getLog().info("Reused the scan index of " + annotationScanner.getReusedJars()
+                    + " jar(s) from earlier modules or the scan cache.");
+        }
+        generationMetrics.count("controllers", controllers.size());
+        generationMetrics.count("controllerAdvices", controllerAdvices.size());
+        generationMetrics.count("scanIndexJarsReused", annotationScanner.getReusedJars());
 
-            // 4. Build OpenAPI model
-            OpenApiBuilder builder = new OpenApiBuilder();
+        // 4. Build OpenAPI model, reusing the cached fragments of unchanged controllers
+        OpenApiBuilder builder = new OpenApiBuilder();
+        builder.setParallelism(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        if (metrics) {
+            builder.setMetrics(generationMetrics);
+        }
+        FragmentCache fragmentCache = null;
+        if (incremental) {
+            fragmentCache = previousCache != null
+                    ? previousCache.reload(controllerAdvices, classLoader)
+                    : new FragmentCache(Path.of(project.getBuild().getDirectory(), "openapi-generator", "fragments"),
+                            pluginFingerprint(), controllerAdvices, classLoader, keepsFragmentsInMemory());
+            builder.setFragmentCache(fragmentCache);
+        }
+        List<SpecWriter.WrittenFile> writtenFiles;
+        SpecSummary summary = changeSet ? new SpecSummary() : null;
+        List<SpecWriter.WrittenFile> servedFiles = List.of();
+        if (streaming && !shardByTag && servingArtifact == null) {
+            // 4.1 Write each path item as soon as its controllers are built, tagged by controller name
+            generationMetrics.phase("build+write");
+            writtenFiles = specWriter.write(
+                    new Info().title(apiTitle).version(apiVersion).description(apiDescription),
+                    builder, controllers, controllerAdvices, summary);
+        } else {
+            generationMetrics.phase("build");
             OpenAPI openAPI = builder.build(apiTitle, apiVersion, apiDescription, controllers, controllerAdvices);
 
             // 4.1 Add tags based on controller names from operationIds
-            if (openAPI.getPaths() != null) {
-                openAPI.getPaths().forEach((path, pathItem) -> {
-                    pathItem.readOperations().forEach(operation -> {
-                        String operationId = operation.getOperationId();
-                        if (operationId != null && operationId.contains(".")) {
-                            String controllerName = operationId.substring(0, operationId.indexOf("."));
-
-                            // Add top-level tag if not present
-                            if (openAPI.getTags() == null
-                                    || openAPI.getTags().stream().noneMatch(t -> t.getName().equals(controllerName))) {
-                                openAPI.addTagsItem(new Tag().name(controllerName));
-                            }
-
-                            // Add tag to the operation
-                            if (operation.getTags() == null || !operation.getTags().contains(controllerName)) {
-                                operation.addTagsItem(controllerName);
-                            }
-                        }
-                    });
-                });
+            generationMetrics.phase("tags");
+            ControllerTags.apply(openAPI);
 
-                // Sort tags for consistent output
-                if (openAPI.getTags() != null) {
-                    openAPI.getTags().sort(Comparator.comparing(Tag::getName));
-                }
+            // 5. Write every configured format to the target directory
+            generationMetrics.phase("write");
+            writtenFiles = specWriter.write(openAPI);
+            if (servingArtifact != null) {
+                servedFiles = servingArtifact.write(openAPI);
             }
+            if (summary != null) {
+                summary = SpecSummary.of(openAPI);
+            }
+        }
+        generationMetrics.phase("finish");
+        if (summary != null) {
+            writeChangeSet(summary, generationMetrics);
+        }
+        if (fragmentCache != null) {
+            fragmentCache.retainOnly(controllers);
+            generationMetrics.count("fragmentsReused", fragmentCache.getHits());
+            generationMetrics.count("fragmentsRebuilt", fragmentCache.getMisses());
+            getLog().info("Reused " + fragmentCache.getHits() + " cached controller fragment(s), regenerated "
+                    + fragmentCache.getMisses() + ".");
+        }
+        OpenApiBuilder.SchemaCacheStats schemaCacheStats = builder.getSchemaCacheStats();
+        getLog().info("Schema resolution cache: " + schemaCacheStats.hits() + " hit(s), "
+                + schemaCacheStats.misses() + " miss(es), " + schemaCacheStats.interned()
+                + " shared with an identical schema.");
+        generationMetrics.count("schemaCacheMisses", schemaCacheStats.misses());
+        generationMetrics.count("schemaCacheHits", schemaCacheStats.hits());
+        generationMetrics.count("schemasInterned", schemaCacheStats.interned());
+        reportWrittenFiles(specWriter, servingArtifact, writtenFiles, servedFiles, generationMetrics);
+        return new Generation(controllers, fragmentCache);
+    }
 
-            // 5. Write to YAML file in the target directory
-            File outputFile = new File(project.getBuild().getDirectory(), outputFileName);
+    // The BYTECODE scanner's build: the spec comes from the class files of the controllers and the types they use,
+    // and no project class is loaded. Fragments and streaming need loaded classes, so neither applies.
+    private Generation generateFromClassFiles(URLClassLoader classLoader, AnnotationScanner annotationScanner,
+            SpecWriter specWriter, ServingArtifact servingArtifact, GenerationMetrics generationMetrics)
+            throws IOException {
+        ClassFiles classFiles = new ClassFiles(classLoader);
+        Set<String> controllers = annotationScanner.findControllerNames(classFiles);
+        Set<String> controllerAdvices = annotationScanner.findControllerAdviceNames(classFiles);
+        if (controllers.isEmpty()) {
+            getLog().warn("No @RestController or @Controller classes found in package: " + basePackage);
+            return null;
+        }
+        getLog().info("Found " + controllers.size() + " controller(s).");
+        if (annotationScanner.getReusedJars() > 0) {
+            getLog().info("Reused the scan index of " + annotationScanner.getReusedJars()
+                    + " jar(s) from earlier modules or the scan cache.");
+        }
+        generationMetrics.count("controllers", controllers.size());
+        generationMetrics.count("controllerAdvices", controllerAdvices.size());
+        generationMetrics.count("scanIndexJarsReused", annotationScanner.getReusedJars());
 
-            ObjectMapper yamlMapper = new ObjectMapper(
-                    new YAMLFactory().disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER));
-            yamlMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-            yamlMapper.addMixIn(io.swagger.v3.oas.models.media.Schema.class, SchemaMixin.class);
-            yamlMapper.addMixIn(io.swagger.v3.oas.models.media.MediaType.class, MediaTypeMixin.class);
-            yamlMapper.writeValue(outputFile, openAPI);
+        generationMetrics.phase("build");
+        OpenApiBuilder builder = new OpenApiBuilder();
+        if (metrics) {
+            builder.setMetrics(generationMetrics);
+        }
+        OpenAPI openAPI = builder.build(apiTitle, apiVersion, apiDescription, classFiles, controllers,
+                controllerAdvices);
+        generationMetrics.count("classFilesRead", classFiles.size());
 
-            getLog().info("OpenAPI specification generated successfully at: " + outputFile.getAbsolutePath());
+        generationMetrics.phase("tags");
+        ControllerTags.apply(openAPI);
 
-        } catch (Exception e) {
-            getLog().error("Error generating OpenAPI specification", e);
-            throw new MojoExecutionException("Error generating OpenAPI specification", e);
+        generationMetrics.phase("write");
+        List<SpecWriter.WrittenFile> writtenFiles = specWriter.write(openAPI);
+        List<SpecWriter.WrittenFile> servedFiles = servingArtifact != null
+                ? servingArtifact.write(openAPI)
+                : List.of();
+        generationMetrics.phase("finish");
+        if (changeSet) {
+            writeChangeSet(SpecSummary.of(openAPI), generationMetrics);
+        }
+        reportWrittenFiles(specWriter, servingArtifact, writtenFiles, servedFiles, generationMetrics);
+        return new Generation(Set.of(), null);
+    }
+
+    // Runs scan and build in a forked JVM and writes the model it leaves behind. Returns false when there are no
+    // controllers.
+    private boolean generateInFork(List<String> classpathElements, SpecWriter specWriter,
+            ServingArtifact servingArtifact, GenerationMetrics generationMetrics) throws IOException {
+        generationMetrics.phase("fork");
+        Path workDirectory = Path.of(project.getBuild().getDirectory(), "openapi-generator").toAbsolutePath();
+        Path requestFile = workDirectory.resolve(outputFileName + ".fork-request.json");
+        Path modelFile = workDirectory.resolve(outputFileName + ".fork-model.json");
+        new ForkRequest(basePackage, classpathElements, scanner, parallelism, apiTitle, apiVersion, apiDescription,
+                incremental ? workDirectory.resolve("fragments").toString() : null,
+                incremental ? pluginFingerprint() : null,
+                scanCache ? scanCacheDirectory.getAbsolutePath() : null, scanCacheMaxAgeDays,
+                session.getRepositorySession().getLocalRepository().getBasedir().getAbsolutePath(),
+                modelFile.toString()).write(requestFile);
+
+        ForkedJvm forkedJvm = new ForkedJvm(forkClasspath(), forkJvmArgs != null ? forkJvmArgs : List.of(),
+                forkArchiveDirectory != null ? forkArchiveDirectory.toPath() : null);
+        boolean archived = forkedJvm.getArchive() != null && Files.isRegularFile(forkedJvm.getArchive());
+        forkedJvm.run(requestFile, line -> getLog().info("[fork] " + line));
+        if (forkedJvm.getArchive() != null && !archived && Files.isRegularFile(forkedJvm.getArchive())) {
+            getLog().info("Created the class data sharing archive of the forked JVM: " + forkedJvm.getArchive());
+        }
+        if (!Files.isRegularFile(modelFile)) {
+            getLog().warn("No @RestController or @Controller classes found in package: " + basePackage);
+            return false;
+        }
+        writeSpecFile(modelFile, OutputFormat.JSON, specWriter, servingArtifact, generationMetrics);
+        return true;
+    }
+
+    // The plugin and its runtime dependencies; Maven's own classes are not needed outside the goal
+    private List<Path> forkClasspath() {
+        Set<Path> classpath = new LinkedHashSet<>();
+        classpath.add(plugin.getPluginArtifact().getFile().toPath().toAbsolutePath());
+        plugin.getArtifacts().forEach(artifact -> classpath.add(artifact.getFile().toPath().toAbsolutePath()));
+        return new ArrayList<>(classpath);
+    }
+
+    // The spec is read back into the model and written as the goal would have written it
+    private void writeSpecFile(Path specFile, OutputFormat format, SpecWriter specWriter,
+            ServingArtifact servingArtifact, GenerationMetrics generationMetrics) throws IOException {
+        generationMetrics.phase("read");
+        OpenAPI openAPI = format.createMapper().readValue(specFile.toFile(), OpenAPI.class);
+
+        generationMetrics.phase("write");
+        List<SpecWriter.WrittenFile> writtenFiles = specWriter.write(openAPI);
+        List<SpecWriter.WrittenFile> servedFiles = servingArtifact != null
+                ? servingArtifact.write(openAPI)
+                : List.of();
+        generationMetrics.phase("finish");
+        if (changeSet) {
+            writeChangeSet(SpecSummary.of(openAPI), generationMetrics);
+        }
+        reportWrittenFiles(specWriter, servingArtifact, writtenFiles, servedFiles, generationMetrics);
+    }
+
+    // Where OpenApiProcessor writes the spec, under the same file name
+    private Path processorSpec() {
+        return Path.of(project.getBuild().getOutputDirectory(), OpenApiProcessor.RESOURCE_DIRECTORY, outputFileName);
+    }
+
+    private void reportWrittenFiles(SpecWriter specWriter, ServingArtifact servingArtifact,
+            List<SpecWriter.WrittenFile> writtenFiles, List<SpecWriter.WrittenFile> servedFiles,
+            GenerationMetrics generationMetrics) {
+        int shards = 0;
+        int changedShards = 0;
+        for (SpecWriter.WrittenFile writtenFile : writtenFiles) {
+            if (specWriter.getShardDirectory() != null
+                    && writtenFile.path().toAbsolutePath().startsWith(specWriter.getShardDirectory())) {
+                shards++;
+                changedShards += writtenFile.changed() ? 1 : 0;
+                continue;
+            }
+            getLog().info(writtenFile.changed()
+                    ? "OpenAPI specification generated successfully at: " + writtenFile.path()
+                    : "OpenAPI specification unchanged: " + writtenFile.path());
+        }
+        if (!servedFiles.isEmpty()) {
+            long changedServedFiles = servedFiles.stream().filter(SpecWriter.WrittenFile::changed).count();
+            getLog().info("Wrote " + changedServedFiles + " of " + servedFiles.size()
+                    + " serving artifact file(s), accessor class " + servingArtifact.getClassFile()
+                    + " included; the others are unchanged.");
+            generationMetrics.count("servingFilesChanged", changedServedFiles);
+        }
+        if (shards > 0) {
+            getLog().info("Wrote " + changedShards + " of " + shards + " shard file(s) in "
+                    + specWriter.getShardDirectory() + "; the others are unchanged.");
+            generationMetrics.count("shards", shards);
+            generationMetrics.count("shardsChanged", changedShards);
+        }
+    }
+
+    // Compares the spec just written with the summary of the previous generation, which it then replaces
+    private void writeChangeSet(SpecSummary summary, GenerationMetrics generationMetrics) throws IOException {
+        Path summaryFile = Path.of(project.getBuild().getDirectory(), "openapi-generator",
+                outputFileName + ".summary.json");
+        ChangeSet changes = ChangeSet.compute(SpecSummary.read(summaryFile), summary);
+        Path changeSetFile = changeSetFile();
+        changes.write(changeSetFile);
+        summary.write(summaryFile);
+        generationMetrics.count("operationsChanged", changes.operations().size());
+        generationMetrics.count("schemasChanged", changes.schemas().size());
+        if (!changes.previousSpec()) {
+            getLog().info("Change set written to " + changeSetFile + " (no previous generation to compare with).");
+        } else if (changes.isEmpty()) {
+            getLog().info("No operation or schema changed; change set written to " + changeSetFile);
+        } else {
+            getLog().info(changes.operations().size() + " operation(s) and " + changes.schemas().size()
+                    + " schema(s) changed" + (changes.breaking() ? ", some in a breaking way" : "")
+                    + "; change set written to " + changeSetFile);
+        }
+    }
+
+    // openapi.yaml -> openapi-changes.json, next to the spec
+    private Path changeSetFile() {
+        int extensionStart = outputFileName.lastIndexOf('.');
+        String baseName = extensionStart > 0 ? outputFileName.substring(0, extensionStart) : outputFileName;
+        return Path.of(project.getBuild().getDirectory(), baseName + "-changes.json");
+    }
+
+    // The fragment cache, if any, is reloaded by the next call of the watch goal
+    record Generation(Set<Class<?>> controllers, FragmentCache fragmentCache) {
+    }
+
+    // One index per Maven session and cache directory, so jars common to several modules of a reactor build are
+    // scanned once
+    private SharedScanIndex sharedScanIndex() {
+        PersistentScanCache persistentCache = scanCache
+                ? new PersistentScanCache(scanCacheDirectory.toPath(),
+                        session.getRepositorySession().getLocalRepository().getBasedir().toPath(),
+                        Duration.ofDays(scanCacheMaxAgeDays))
+                : null;
+        Object shared = session.getRepositorySession().getData().computeIfAbsent(
+                SharedScanIndex.class.getName() + (scanCache ? ":" + scanCacheDirectory : ""),
+                () -> {
+                    if (persistentCache != null) {
+                        persistentCache.evictUnused();
+                    }
+                    return new SharedScanIndex(persistentCache);
+                });
+        // Another version of the plugin in the same build registered a class this one cannot use
+        return shared instanceof SharedScanIndex sharedIndex ? sharedIndex : new SharedScanIndex(persistentCache);
+    }
+
+    private void reportMetrics(GenerationMetrics.Report report) {
+        Path metricsFile = Path.of(project.getBuild().getDirectory(), "openapi-metrics.json");
+        try {
+            GenerationMetrics.write(report, metricsFile);
+        } catch (IOException e) {
+            getLog().warn("Cannot write generation metrics to " + metricsFile, e);
+        }
+        GenerationMetrics.summarize(report).forEach(getLog()::info);
+    }
+
+    private String computeFingerprint(List<String> classpathElements, ServingArtifact servingArtifact)
+            throws IOException {
+        InputFingerprint fingerprint = new InputFingerprint()
+                .add("plugin", pluginFingerprint())
+                .add("basePackage", basePackage)
+                .add("outputFileName", outputFileName)
+                .add("apiTitle", apiTitle)
+                .add("apiVersion", apiVersion)
+                .add("apiDescription", apiDescription)
+                .add("scanner", scanner)
+                .add("outputFormats", outputFormats)
+                .add("streaming", streaming)
+                .add("shardByTag", shardByTag)
+                .add("serializers", serializers)
+                .add("changeSet", changeSet)
+                .add("servingArtifact", servingArtifact != null ? servingArtifact.getClassFile() : null)
+                .add("useProcessorOutput", useProcessorOutput);
+        if (useProcessorOutput) {
+            // Outside the base package, so not covered by the classpath below
+            fingerprint.addFile(processorSpec());
+        }
+        // The accessor class may be written to the base package, and must not make the next build stale
+        Set<Path> generatedFiles = servingArtifact != null
+                ? Set.of(servingArtifact.getClassFile().toAbsolutePath().normalize())
+                : Set.of();
+        return fingerprint.addClasspath(classpathElements, basePackage, generatedFiles).toHex();
+    }
+
+    // Changes whenever the plugin itself does, including rebuilt snapshots of the same version.
+    private String pluginFingerprint() throws IOException {
+        InputFingerprint fingerprint = new InputFingerprint().add("plugin", plugin.getId());
+        if (plugin.getPluginArtifact() != null && plugin.getPluginArtifact().getFile() != null) {
+            fingerprint.addFile(plugin.getPluginArtifact().getFile().toPath());
         }
+        return fingerprint.toHex();
     }
 }
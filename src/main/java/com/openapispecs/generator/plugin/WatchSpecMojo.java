@@ -0,0 +1,136 @@
+package com.openapispecs.generator.plugin;
+
+import com.openapispecs.generator.plugin.cache.FragmentCache;
+import com.openapispecs.generator.plugin.metrics.GenerationMetrics;
+import com.openapispecs.generator.plugin.output.ServingArtifact;
+import com.openapispecs.generator.plugin.output.SpecWriter;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Regenerates the spec whenever class files in the output directory change, until the build is stopped. Run it next
+// to an IDE or "mvn compile" that recompiles the classes, e.g. "mvn compile openapi-generator:watch".
+//
+// Dependencies stay loaded, and their scan index cached, for the whole session; only the output directory is loaded
+// again for every batch of changes. Fragments of controllers whose classes did not change are reused from memory.
+@Mojo(name = "watch", requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, threadSafe = true)
+public class WatchSpecMojo extends GenerateSpecMojo {
+
+    // Quiet time after the last change before regenerating, so that one compilation triggers a single run
+    @Parameter(property = "openapi.watch.debounceMillis", defaultValue = "200")
+    private long debounceMillis;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        try {
+            List<String> classpathElements = classpathElements();
+            Path outputDirectory = Path.of(classpathElements.get(classpathElements.size() - 1));
+            URL[] urls = toUrls(classpathElements);
+            // The compile classpath lists the output directory too; it must not end up in the long-lived loader
+            SpecWriter specWriter = specWriter();
+            ServingArtifact servingArtifact = servingArtifact();
+            // Writing the accessor class must not trigger the next run
+            Path generatedClass = servingArtifact != null ? servingArtifact.getClassFile().toAbsolutePath() : null;
+
+            try (URLClassLoader dependencyLoader = new URLClassLoader(
+                    toUrls(classpathElements.stream().filter(element -> !Path.of(element).equals(outputDirectory))
+                            .toList()),
+                    this.getClass().getClassLoader());
+                    WatchService watchService = FileSystems.getDefault().newWatchService()) {
+                Files.createDirectories(outputDirectory);
+                registerAll(outputDirectory, watchService);
+                URLClassLoader classLoader = null;
+                FragmentCache fragmentCache = null;
+                do {
+                    // Classes of the dependency loader are found there first, so only the output directory is reloaded
+                    URLClassLoader previousLoader = classLoader;
+                    classLoader = new URLClassLoader(urls, dependencyLoader);
+                    GenerationMetrics generationMetrics = new GenerationMetrics();
+                    try {
+                        Generation generation = generate(classLoader, specWriter, servingArtifact, fragmentCache,
+                                generationMetrics);
+                        if (generation != null && generation.fragmentCache() != null) {
+                            fragmentCache = generation.fragmentCache();
+                        }
+                        getLog().info(String.format("Generated in %.0f ms.",
+                                generationMetrics.report().totalWallMillis()));
+                    } catch (Exception | LinkageError e) {
+                        // Typically classes caught halfway through a compilation; the next change retries
+                        getLog().warn("Cannot generate the OpenAPI specification: " + e, e);
+                    }
+                    if (previousLoader != null) {
+                        releaseClasses(previousLoader);
+                    }
+                    getLog().info("Watching " + outputDirectory + " for changes; stop with Ctrl+C.");
+                } while (awaitChanges(watchService, generatedClass));
+                releaseClasses(classLoader);
+            }
+        } catch (DependencyResolutionRequiredException | IOException e) {
+            getLog().error("Error watching for class changes", e);
+            throw new MojoExecutionException("Error watching for class changes", e);
+        }
+    }
+
+    @Override
+    boolean keepsFragmentsInMemory() {
+        return true;
+    }
+
+    // Blocks until class files were added, changed or removed and no further change followed for debounceMillis.
+    // Returns false when interrupted.
+    private boolean awaitChanges(WatchService watchService, Path generatedClass) throws IOException {
+        boolean changed = false;
+        try {
+            WatchKey key = watchService.take();
+            while (key != null) {
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = true;
+                        continue;
+                    }
+                    Path path = directory.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        // Classes of a new package may have been written before the directory was registered
+                        registerAll(path, watchService);
+                        changed = true;
+                    } else if (path.getFileName().toString().endsWith(".class")
+                            && !path.toAbsolutePath().equals(generatedClass)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                key = watchService.poll(changed ? debounceMillis : Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void registerAll(Path root, WatchService watchService) throws IOException {
+        try (Stream<Path> directories = Files.walk(root)) {
+            for (Path directory : directories.filter(Files::isDirectory).toList()) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+}
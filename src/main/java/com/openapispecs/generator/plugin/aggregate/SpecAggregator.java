@@ -0,0 +1,175 @@
+package com.openapispecs.generator.plugin.aggregate;
+
+import com.openapispecs.generator.plugin.output.OutputFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Merges the specs of several modules into one. Modules are taken in the given order and the first definition of an
+// operation wins. Identical schemas defined by several modules are kept once. A schema that differs from the one of
+// an earlier module is renamed to <module>.<Name>, and the refs of its own module follow it, so every operation keeps
+// the schemas it was generated with; such renames are reported as conflicts, as are differing operations.
+// Merging is sequential: what a module contributes depends on every module before it.
+public class SpecAggregator {
+    private static final String SCHEMA_REF_PREFIX = "#/components/schemas/";
+
+    private final ObjectMapper mapper = OutputFormat.JSON.createMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public record ModuleSpec(String module, OpenAPI openAPI) {
+    }
+
+    public record Result(OpenAPI openAPI, int duplicateSchemas, List<String> conflicts) {
+    }
+
+    @SuppressWarnings("rawtypes")
+    public Result aggregate(Info info, List<ModuleSpec> moduleSpecs) {
+        Paths paths = new Paths();
+        Map<String, Schema> schemas = new TreeMap<>();
+        Map<String, Tag> tags = new TreeMap<>();
+        // Module that contributed each operation ("GET /path") and schema, for conflict messages
+        Map<String, String> owners = new HashMap<>();
+        List<String> conflicts = new ArrayList<>();
+        int duplicateSchemas = 0;
+
+        for (ModuleSpec moduleSpec : moduleSpecs) {
+            Map<String, String> renames = conflictingSchemas(moduleSpec, schemas);
+            renames.forEach((name, newName) -> conflicts.add("Schema " + name + " differs between "
+                    + owners.get("schema " + name) + " and " + moduleSpec.module() + "; the definition of "
+                    + moduleSpec.module() + " is kept as " + newName));
+            OpenAPI openAPI = renames.isEmpty() ? moduleSpec.openAPI() : rename(moduleSpec.openAPI(), renames);
+            if (openAPI.getPaths() != null) {
+                openAPI.getPaths().forEach((path, modulePathItem) -> {
+                    PathItem pathItem = paths.computeIfAbsent(path, k -> new PathItem());
+                    modulePathItem.readOperationsMap().forEach((httpMethod, operation) -> {
+                        String key = httpMethod + " " + path;
+                        Operation existing = pathItem.readOperationsMap().get(httpMethod);
+                        if (existing == null) {
+                            pathItem.operation(httpMethod, operation);
+                            owners.put(key, moduleSpec.module());
+                        } else if (!existing.equals(operation)) {
+                            conflicts.add("Operation " + key + " differs between " + owners.get(key) + " and "
+                                    + moduleSpec.module());
+                        }
+                    });
+                });
+            }
+            if (openAPI.getTags() != null) {
+                openAPI.getTags().forEach(tag -> tags.putIfAbsent(tag.getName(), tag));
+            }
+            if (openAPI.getComponents() != null && openAPI.getComponents().getSchemas() != null) {
+                for (Map.Entry<String, Schema> entry : openAPI.getComponents().getSchemas().entrySet()) {
+                    String key = "schema " + entry.getKey();
+                    Schema existing = schemas.get(entry.getKey());
+                    if (existing == null) {
+                        schemas.put(entry.getKey(), entry.getValue());
+                        owners.put(key, moduleSpec.module());
+                    } else {
+                        // Differing ones were renamed above
+                        duplicateSchemas++;
+                    }
+                }
+            }
+        }
+
+        OpenAPI aggregate = new OpenAPI()
+                .info(info)
+                .paths(paths)
+                .components(new Components().schemas(schemas));
+        if (!tags.isEmpty()) {
+            aggregate.setTags(new ArrayList<>(tags.values()));
+        }
+        return new Result(aggregate, duplicateSchemas, conflicts);
+    }
+
+    // New names of the module's schemas that differ from those of earlier modules. Renaming one changes the schemas
+    // referring to it, which may then differ as well, so this repeats until no more schemas need a new name.
+    @SuppressWarnings("rawtypes")
+    private Map<String, String> conflictingSchemas(ModuleSpec moduleSpec, Map<String, Schema> schemas) {
+        Map<String, String> renames = new LinkedHashMap<>();
+        Components components = moduleSpec.openAPI().getComponents();
+        if (components == null || components.getSchemas() == null) {
+            return renames;
+        }
+        ObjectNode moduleSchemas = mapper.valueToTree(components.getSchemas());
+        boolean renamed = true;
+        while (renamed) {
+            renamed = false;
+            ObjectNode current = rewriteRefs(moduleSchemas.deepCopy(), renames);
+            for (Iterator<Map.Entry<String, JsonNode>> fields = current.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Schema existing = schemas.get(field.getKey());
+                if (existing != null && !renames.containsKey(field.getKey())
+                        && !existing.equals(toSchema(field.getValue()))) {
+                    String newName = moduleSpec.module() + "." + field.getKey();
+                    for (int suffix = 2; schemas.containsKey(newName) || moduleSchemas.has(newName)
+                            || renames.containsValue(newName); suffix++) {
+                        newName = moduleSpec.module() + "." + field.getKey() + "-" + suffix;
+                    }
+                    renames.put(field.getKey(), newName);
+                    renamed = true;
+                }
+            }
+        }
+        return renames;
+    }
+
+    private OpenAPI rename(OpenAPI openAPI, Map<String, String> renames) {
+        ObjectNode tree = rewriteRefs(mapper.valueToTree(openAPI), renames);
+        if (tree.path("components").get("schemas") instanceof ObjectNode schemas) {
+            ObjectNode renamedSchemas = JsonNodeFactory.instance.objectNode();
+            schemas.fields().forEachRemaining(field ->
+                    renamedSchemas.set(renames.getOrDefault(field.getKey(), field.getKey()), field.getValue()));
+            ((ObjectNode) tree.get("components")).set("schemas", renamedSchemas);
+        }
+        try {
+            return mapper.treeToValue(tree, OpenAPI.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot rename schemas of a module specification", e);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Schema toSchema(JsonNode node) {
+        try {
+            return mapper.treeToValue(node, Schema.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read a schema of a module specification", e);
+        }
+    }
+
+    private static <T extends JsonNode> T rewriteRefs(T node, Map<String, String> renames) {
+        if (node instanceof ObjectNode object) {
+            JsonNode ref = object.get("$ref");
+            String name = ref != null && ref.isTextual() && ref.asText().startsWith(SCHEMA_REF_PREFIX)
+                    ? ref.asText().substring(SCHEMA_REF_PREFIX.length())
+                    : null;
+            if (renames.containsKey(name)) {
+                object.put("$ref", SCHEMA_REF_PREFIX + renames.get(name));
+            }
+        }
+        for (JsonNode child : node) {
+            rewriteRefs(child, renames);
+        }
+        return node;
+    }
+}
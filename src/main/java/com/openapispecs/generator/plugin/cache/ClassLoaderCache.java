@@ -0,0 +1,111 @@
+package com.openapispecs.generator.plugin.cache;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Class loaders over dependency jars, kept between executions of the goal in one JVM, e.g. a Maven daemon. A loader
+// is shared while its jars have the same paths, sizes and modification times and it has the same parent. Directories
+// are never part of a cached loader: their classes change between builds, and a loader cannot forget a loaded class.
+//
+// At most MAX_LOADERS are kept; the least recently used one is closed once no execution holds a lease on it, so
+// metaspace and open jar files stay bounded however many builds the JVM runs.
+public final class ClassLoaderCache {
+    private static final int MAX_LOADERS = 4;
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<>(8, 0.75f, true);
+
+    private ClassLoaderCache() {
+    }
+
+    public static Lease acquire(List<Path> jars, ClassLoader parent) throws IOException {
+        String key = key(jars, parent);
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(key);
+            boolean reused = entry != null;
+            if (entry == null) {
+                URL[] urls = new URL[jars.size()];
+                for (int i = 0; i < urls.length; i++) {
+                    urls[i] = jars.get(i).toUri().toURL();
+                }
+                entry = new Entry(new URLClassLoader(urls, parent));
+                ENTRIES.put(key, entry);
+                evict();
+            }
+            entry.leases++;
+            return new Lease(entry, reused);
+        }
+    }
+
+    private static void evict() throws IOException {
+        for (Iterator<Entry> entries = ENTRIES.values().iterator();
+                ENTRIES.size() > MAX_LOADERS && entries.hasNext(); ) {
+            Entry entry = entries.next();
+            entries.remove();
+            entry.evicted = true;
+            if (entry.leases == 0) {
+                entry.loader.close();
+            }
+        }
+    }
+
+    private static String key(List<Path> jars, ClassLoader parent) throws IOException {
+        StringBuilder key = new StringBuilder().append(System.identityHashCode(parent));
+        for (Path jar : jars) {
+            key.append('|').append(jar.toAbsolutePath());
+            if (Files.isRegularFile(jar)) {
+                key.append(':').append(Files.size(jar)).append('@').append(Files.getLastModifiedTime(jar).toMillis());
+            }
+        }
+        return key.toString();
+    }
+
+    private static final class Entry {
+        private final URLClassLoader loader;
+        private int leases;
+        private boolean evicted;
+
+        private Entry(URLClassLoader loader) {
+            this.loader = loader;
+        }
+    }
+
+    // Use of a cached loader by one execution. Closing the lease never closes a loader that is still cached.
+    public static final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private final boolean reused;
+        private boolean closed;
+
+        private Lease(Entry entry, boolean reused) {
+            this.entry = entry;
+            this.reused = reused;
+        }
+
+        public URLClassLoader loader() {
+            return entry.loader;
+        }
+
+        // Whether an earlier execution created the loader
+        public boolean isReused() {
+            return reused;
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (ENTRIES) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (--entry.leases == 0 && entry.evicted) {
+                    entry.loader.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.openapispecs.generator.plugin.cache;
+
+import com.openapispecs.generator.plugin.parser.ControllerFragment;
+import com.openapispecs.generator.plugin.parser.mixin.MediaTypeMixin;
+import com.openapispecs.generator.plugin.parser.mixin.SchemaMixin;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Disk cache of per-controller fragments. A fragment is reused while the bytecode of every class it was derived from
+// (the controller, the DTOs behind its schemas, exception handlers and exceptions) hashes to the same value, and the
+// set of controller advices and the plugin itself are unchanged. Created to keep them in memory, as for the watch goal,
+// entries read or written are also kept as bytes, since fragments are modified once loaded, so a cache reloaded for a
+// new class loader does not read them again. Otherwise every entry is read from disk and none is held on to, so
+// memory does not grow with the size of the API.
+public class FragmentCache {
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path directory;
+    private final String salt;
+    private final String context;
+    private final ClassLoader classLoader;
+    private final ObjectMapper mapper;
+    private final Map<String, String> classHashes = new ConcurrentHashMap<>();
+    // Null unless kept in memory
+    private final Map<Path, byte[]> entries;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public FragmentCache(Path directory, String salt, Set<Class<?>> controllerAdvices, ClassLoader classLoader) {
+        this(directory, salt, controllerAdvices, classLoader, false);
+    }
+
+    public FragmentCache(Path directory, String salt, Set<Class<?>> controllerAdvices, ClassLoader classLoader,
+            boolean keepInMemory) {
+        this(directory, salt, controllerAdvices, classLoader, keepInMemory ? new ConcurrentHashMap<>() : null);
+    }
+
+    private FragmentCache(Path directory, String salt, Set<Class<?>> controllerAdvices, ClassLoader classLoader,
+            Map<Path, byte[]> entries) {
+        this.directory = directory;
+        this.salt = salt;
+        this.entries = entries;
+        this.classLoader = classLoader;
+        this.context = salt + ";" + controllerAdvices.stream().map(Class::getName).sorted().toList();
+        this.mapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .addMixIn(Schema.class, SchemaMixin.class)
+                .addMixIn(MediaType.class, MediaTypeMixin.class);
+    }
+
+    // The same cache for classes loaded by another class loader, e.g. after they were recompiled. Hashes are taken
+    // afresh and the statistics start over.
+    public FragmentCache reload(Set<Class<?>> controllerAdvices, ClassLoader classLoader) {
+        return new FragmentCache(directory, salt, controllerAdvices, classLoader, entries);
+    }
+
+    // Returns null when there is no entry for the controller or any class it depends on has changed.
+    public ControllerFragment load(Class<?> controller) {
+        Path file = fileFor(controller);
+        Entry entry = null;
+        try {
+            byte[] bytes = entries != null ? entries.get(file) : null;
+            if (bytes == null && Files.isRegularFile(file)) {
+                bytes = Files.readAllBytes(file);
+                if (entries != null) {
+                    entries.put(file, bytes);
+                }
+            }
+            if (bytes != null) {
+                entry = mapper.readValue(bytes, Entry.class);
+            }
+        } catch (IOException e) {
+            // An unreadable entry is treated as a miss and overwritten below.
+        }
+        if (entry != null && isCurrent(entry)) {
+            hits.incrementAndGet();
+            return new ControllerFragment(entry.paths(), entry.schemas(), entry.schemaTypes(),
+                    entry.dependencies().keySet());
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void store(Class<?> controller, ControllerFragment fragment) {
+        Map<String, String> dependencies = new LinkedHashMap<>();
+        for (String className : fragment.dependencies()) {
+            dependencies.put(className, hashOf(className));
+        }
+        Entry entry = new Entry(FORMAT_VERSION, context, dependencies, fragment.paths(), fragment.schemas(),
+                fragment.schemaTypes());
+        Path file = fileFor(controller);
+        try {
+            byte[] bytes = mapper.writeValueAsBytes(entry);
+            if (entries != null) {
+                entries.put(file, bytes);
+            }
+            Files.createDirectories(directory);
+            Files.write(file, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write fragment cache entry for " + controller.getName(), e);
+        }
+    }
+
+    // Drops the entries of controllers that no longer exist.
+    public void retainOnly(Set<Class<?>> controllers) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Set<Path> current = new LinkedHashSet<>();
+        controllers.forEach(controller -> current.add(fileFor(controller)));
+        if (entries != null) {
+            entries.keySet().retainAll(current);
+        }
+        List<Path> stale;
+        try (Stream<Path> files = Files.list(directory)) {
+            stale = files.filter(file -> !current.contains(file)).toList();
+        }
+        for (Path file : stale) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private boolean isCurrent(Entry entry) {
+        if (entry.version() != FORMAT_VERSION || !context.equals(entry.context())) {
+            return false;
+        }
+        for (Map.Entry<String, String> dependency : entry.dependencies().entrySet()) {
+            if (!dependency.getValue().equals(hashOf(dependency.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String hashOf(String className) {
+        return classHashes.computeIfAbsent(className, name -> {
+            try (InputStream in = classLoader.getResourceAsStream(name.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    return "missing";
+                }
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(in.readAllBytes()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read bytecode of " + name, e);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        });
+    }
+
+    private Path fileFor(Class<?> controller) {
+        return directory.resolve(controller.getName() + ".json");
+    }
+
+    @SuppressWarnings("rawtypes")
+    private record Entry(int version, String context, Map<String, String> dependencies, Paths paths,
+            Map<String, Schema> schemas, Map<String, String> schemaTypes) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.openapispecs.generator.plugin.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// SHA-256 over everything the generated spec depends on. Directories on the classpath contribute the contents of
+// their class files under the base package; jars contribute their path, size and modification time.
+public class InputFingerprint {
+    private final MessageDigest digest;
+
+    public InputFingerprint() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public InputFingerprint add(String name, Object value) {
+        update(name + "=" + value);
+        return this;
+    }
+
+    // Generated files, absolute and normalized, are left out, e.g. classes the plugin itself writes to the output
+    // directory
+    public InputFingerprint addClasspath(List<String> classpathElements, String basePackage,
+            Set<Path> generatedFiles) throws IOException {
+        String packagePath = basePackage.replace('.', File.separatorChar);
+        for (String element : classpathElements) {
+            Path path = Path.of(element);
+            update("classpath=" + path.toAbsolutePath());
+            if (Files.isDirectory(path)) {
+                addClassFiles(path, path.resolve(packagePath), generatedFiles);
+            } else {
+                addFile(path);
+            }
+        }
+        return this;
+    }
+
+    public InputFingerprint addFile(Path file) throws IOException {
+        if (Files.isRegularFile(file)) {
+            update(file.toAbsolutePath() + ":" + Files.size(file) + "@" + Files.getLastModifiedTime(file).toMillis());
+        }
+        return this;
+    }
+
+    public String toHex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static boolean matches(Path fingerprintFile, String fingerprint) throws IOException {
+        return Files.isRegularFile(fingerprintFile)
+                && Files.readString(fingerprintFile, StandardCharsets.UTF_8).trim().equals(fingerprint);
+    }
+
+    public static void store(Path fingerprintFile, String fingerprint) throws IOException {
+        Files.createDirectories(fingerprintFile.getParent());
+        Files.writeString(fingerprintFile, fingerprint, StandardCharsets.UTF_8);
+    }
+
+    private void addClassFiles(Path root, Path packageDir, Set<Path> generatedFiles) throws IOException {
+        if (!Files.isDirectory(packageDir)) {
+            return;
+        }
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(packageDir)) {
+            classFiles = files.filter(file -> file.toString().endsWith(".class")
+                    && !generatedFiles.contains(file.toAbsolutePath().normalize())).sorted().toList();
+        }
+        for (Path classFile : classFiles) {
+            update(root.relativize(classFile).toString());
+            digest.update(Files.readAllBytes(classFile));
+        }
+    }
+
+    private void update(String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
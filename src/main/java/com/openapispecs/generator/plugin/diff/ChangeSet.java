@@ -0,0 +1,222 @@
+package com.openapispecs.generator.plugin.diff;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Operations and component schemas added, removed or modified since the previous generation, from the summaries of
+// both: items whose hashes are equal are skipped, so only changed items are looked at in detail.
+//
+// A change is breaking when a client generated from the previous spec may fail against the new one: an operation or
+// schema removed; a parameter removed, added as required, made required or given another schema; a request body made
+// required, or a request media type or schema changed; a response, response media type or response schema removed or
+// changed; a schema's type changed, a property removed or changed, a required property added or an enum value removed.
+// Changes of referenced schemas are reported on the schema, which lists the operations that reach it.
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record ChangeSet(boolean previousSpec, boolean breaking, List<Change> operations, List<Change> schemas) {
+
+    public enum Type {
+        ADDED, REMOVED, MODIFIED
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public record Change(String name, Type type, boolean breaking, List<String> details,
+            List<String> affectedOperations) {
+    }
+
+    // Everything counts as added when there is no previous summary
+    public static ChangeSet compute(SpecSummary previous, SpecSummary current) {
+        SpecSummary baseline = previous != null ? previous : new SpecSummary();
+        List<Change> operations = new ArrayList<>();
+        current.getOperations().forEach((name, operation) -> {
+            SpecSummary.OperationSummary old = baseline.getOperations().get(name);
+            if (old == null) {
+                operations.add(new Change(name, Type.ADDED, false, List.of(), List.of()));
+            } else if (!old.hash().equals(operation.hash())) {
+                List<String> breaking = new ArrayList<>();
+                List<String> details = new ArrayList<>();
+                compareOperations(old, operation, breaking, details);
+                operations.add(modified(name, breaking, details, List.of()));
+            }
+        });
+        baseline.getOperations().keySet().stream().filter(name -> !current.getOperations().containsKey(name))
+                .forEach(name -> operations.add(new Change(name, Type.REMOVED, true, List.of(), List.of())));
+
+        List<Change> schemas = new ArrayList<>();
+        Map<String, List<String>> referrers = referrers(current);
+        current.getSchemas().forEach((name, schema) -> {
+            SpecSummary.SchemaSummary old = baseline.getSchemas().get(name);
+            if (old == null) {
+                schemas.add(new Change(name, Type.ADDED, false, List.of(), List.of()));
+            } else if (!old.hash().equals(schema.hash())) {
+                List<String> breaking = new ArrayList<>();
+                List<String> details = new ArrayList<>();
+                compareSchemas(old, schema, breaking, details);
+                schemas.add(modified(name, breaking, details, affectedOperations(name, referrers)));
+            }
+        });
+        baseline.getSchemas().keySet().stream().filter(name -> !current.getSchemas().containsKey(name))
+                .forEach(name -> schemas.add(new Change(name, Type.REMOVED, true, List.of(), List.of())));
+
+        boolean breaking = operations.stream().anyMatch(Change::breaking)
+                || schemas.stream().anyMatch(Change::breaking);
+        return new ChangeSet(previous != null, breaking, operations, schemas);
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return operations.isEmpty() && schemas.isEmpty();
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+
+    private static Change modified(String name, List<String> breaking, List<String> details,
+            List<String> affectedOperations) {
+        List<String> all = new ArrayList<>(breaking);
+        all.addAll(details);
+        return new Change(name, Type.MODIFIED, !breaking.isEmpty(), all, affectedOperations);
+    }
+
+    private static void compareOperations(SpecSummary.OperationSummary old, SpecSummary.OperationSummary current,
+            List<String> breaking, List<String> details) {
+        old.parameters().forEach((name, parameter) -> {
+            SpecSummary.ParameterSummary now = current.parameters().get(name);
+            if (now == null) {
+                breaking.add("parameter " + name + " removed");
+            } else {
+                if (!parameter.required() && now.required()) {
+                    breaking.add("parameter " + name + " became required");
+                } else if (parameter.required() && !now.required()) {
+                    details.add("parameter " + name + " became optional");
+                }
+                if (!Objects.equals(parameter.schemaHash(), now.schemaHash())) {
+                    breaking.add("parameter " + name + " schema changed");
+                }
+            }
+        });
+        current.parameters().forEach((name, parameter) -> {
+            if (!old.parameters().containsKey(name)) {
+                (parameter.required() ? breaking : details).add("parameter " + name + " added"
+                        + (parameter.required() ? " as required" : ""));
+            }
+        });
+
+        SpecSummary.BodySummary oldBody = old.requestBody();
+        SpecSummary.BodySummary body = current.requestBody();
+        if (oldBody == null && body != null) {
+            (body.required() ? breaking : details).add("request body added"
+                    + (body.required() ? " as required" : ""));
+        } else if (oldBody != null && body == null) {
+            details.add("request body removed");
+        } else if (oldBody != null) {
+            if (!oldBody.required() && body.required()) {
+                breaking.add("request body became required");
+            }
+            compareContent("request body", oldBody.content(), body.content(), breaking, details);
+        }
+
+        old.responses().forEach((code, content) -> {
+            Map<String, String> now = current.responses().get(code);
+            if (now == null) {
+                breaking.add("response " + code + " removed");
+            } else {
+                compareContent("response " + code, content, now, breaking, details);
+            }
+        });
+        current.responses().keySet().stream().filter(code -> !old.responses().containsKey(code))
+                .forEach(code -> details.add("response " + code + " added"));
+        if (breaking.isEmpty() && details.isEmpty()) {
+            details.add("documentation changed");
+        }
+    }
+
+    // Media types removed or with another schema break clients either way; added ones do not
+    private static void compareContent(String what, Map<String, String> old, Map<String, String> current,
+            List<String> breaking, List<String> details) {
+        old.forEach((mediaType, schemaHash) -> {
+            if (!current.containsKey(mediaType)) {
+                breaking.add(what + " media type " + mediaType + " removed");
+            } else if (!Objects.equals(schemaHash, current.get(mediaType))) {
+                breaking.add(what + " schema changed for " + mediaType);
+            }
+        });
+        current.keySet().stream().filter(mediaType -> !old.containsKey(mediaType))
+                .forEach(mediaType -> details.add(what + " media type " + mediaType + " added"));
+    }
+
+    private static void compareSchemas(SpecSummary.SchemaSummary old, SpecSummary.SchemaSummary current,
+            List<String> breaking, List<String> details) {
+        if (!Objects.equals(old.type(), current.type())) {
+            breaking.add("type changed from " + old.type() + " to " + current.type());
+        }
+        old.properties().forEach((name, hash) -> {
+            String now = current.properties().get(name);
+            if (now == null) {
+                breaking.add("property " + name + " removed");
+            } else if (!hash.equals(now)) {
+                breaking.add("property " + name + " changed");
+            }
+        });
+        current.properties().keySet().stream().filter(name -> !old.properties().containsKey(name))
+                .forEach(name -> (current.required().contains(name) ? breaking : details).add("property " + name
+                        + " added" + (current.required().contains(name) ? " as required" : "")));
+        current.required().stream()
+                .filter(name -> !old.required().contains(name) && old.properties().containsKey(name))
+                .forEach(name -> breaking.add("property " + name + " became required"));
+        old.required().stream().filter(name -> !current.required().contains(name)
+                        && current.properties().containsKey(name))
+                .forEach(name -> details.add("property " + name + " became optional"));
+        old.enumValues().stream().filter(value -> !current.enumValues().contains(value))
+                .forEach(value -> breaking.add("enum value " + value + " removed"));
+        current.enumValues().stream().filter(value -> !old.enumValues().contains(value))
+                .forEach(value -> details.add("enum value " + value + " added"));
+        if (breaking.isEmpty() && details.isEmpty()) {
+            details.add("documentation changed");
+        }
+    }
+
+    // Schema -> the operations and schemas that refer to it directly
+    private static Map<String, List<String>> referrers(SpecSummary summary) {
+        Map<String, List<String>> referrers = new HashMap<>();
+        summary.getOperations().forEach((name, operation) -> operation.schemas().forEach(schema ->
+                referrers.computeIfAbsent(schema, k -> new ArrayList<>()).add(name)));
+        summary.getSchemas().forEach((name, schema) -> schema.schemas().forEach(referenced ->
+                referrers.computeIfAbsent(referenced, k -> new ArrayList<>()).add(name)));
+        return referrers;
+    }
+
+    // Operations that reach the schema through any chain of refs
+    private static List<String> affectedOperations(String schema, Map<String, List<String>> referrers) {
+        Set<String> visited = new TreeSet<>();
+        Set<String> operations = new TreeSet<>();
+        Deque<String> pending = new ArrayDeque<>(List.of(schema));
+        while (!pending.isEmpty()) {
+            for (String referrer : referrers.getOrDefault(pending.pop(), List.of())) {
+                // Operation keys start with the HTTP method and a space; schema names contain no spaces
+                if (referrer.contains(" ")) {
+                    operations.add(referrer);
+                } else if (visited.add(referrer)) {
+                    pending.push(referrer);
+                }
+            }
+        }
+        return List.copyOf(operations);
+    }
+}
@@ -0,0 +1,176 @@
+package com.openapispecs.generator.plugin.diff;
+
+import com.openapispecs.generator.plugin.parser.mixin.MediaTypeMixin;
+import com.openapispecs.generator.plugin.parser.mixin.SchemaMixin;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Content hashes of every operation and component schema of a generated spec, with just enough of their structure
+// to tell breaking from non-breaking changes. Kept between builds, so the next build can compute a ChangeSet without
+// the previous spec. Operations are keyed "GET /path".
+public class SpecSummary {
+    private static final int FORMAT_VERSION = 1;
+    private static final String SCHEMA_REF_PREFIX = "#/components/schemas/";
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .addMixIn(Schema.class, SchemaMixin.class)
+            .addMixIn(MediaType.class, MediaTypeMixin.class);
+
+    private final Map<String, OperationSummary> operations = new TreeMap<>();
+    private final Map<String, SchemaSummary> schemas = new TreeMap<>();
+
+    public static SpecSummary of(OpenAPI openAPI) {
+        SpecSummary summary = new SpecSummary();
+        if (openAPI.getPaths() != null) {
+            openAPI.getPaths().forEach(summary::addPath);
+        }
+        if (openAPI.getComponents() != null && openAPI.getComponents().getSchemas() != null) {
+            openAPI.getComponents().getSchemas().forEach(summary::addSchema);
+        }
+        return summary;
+    }
+
+    public void addPath(String path, PathItem pathItem) {
+        pathItem.readOperationsMap().forEach((httpMethod, operation) -> {
+            JsonNode node = MAPPER.valueToTree(operation);
+            Map<String, ParameterSummary> parameters = new TreeMap<>();
+            for (JsonNode parameter : node.path("parameters")) {
+                parameters.put(parameter.path("in").asText() + ":" + parameter.path("name").asText(),
+                        new ParameterSummary(parameter.path("required").asBoolean(),
+                                hash(parameter.path("schema"))));
+            }
+            JsonNode requestBody = node.get("requestBody");
+            Map<String, Map<String, String>> responses = new TreeMap<>();
+            node.path("responses").fields().forEachRemaining(response ->
+                    responses.put(response.getKey(), contentHashes(response.getValue())));
+            operations.put(httpMethod + " " + path, new OperationSummary(node.path("operationId").asText(null),
+                    hash(node), parameters,
+                    requestBody == null ? null
+                            : new BodySummary(requestBody.path("required").asBoolean(), contentHashes(requestBody)),
+                    responses, schemaRefs(node)));
+        });
+    }
+
+    @SuppressWarnings("rawtypes")
+    public void addSchema(String name, Schema schema) {
+        JsonNode node = MAPPER.valueToTree(schema);
+        Map<String, String> properties = new TreeMap<>();
+        node.path("properties").fields().forEachRemaining(property ->
+                properties.put(property.getKey(), hash(property.getValue())));
+        Set<String> required = new TreeSet<>();
+        node.path("required").forEach(property -> required.add(property.asText()));
+        List<String> enumValues = new ArrayList<>();
+        node.path("enum").forEach(value -> enumValues.add(value.asText()));
+        schemas.put(name, new SchemaSummary(hash(node), node.path("type").asText(null), properties, required,
+                enumValues, schemaRefs(node)));
+    }
+
+    public Map<String, OperationSummary> getOperations() {
+        return operations;
+    }
+
+    public Map<String, SchemaSummary> getSchemas() {
+        return schemas;
+    }
+
+    // Null when there is no summary, or one of another format
+    public static SpecSummary read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            Stored stored = MAPPER.readValue(file.toFile(), Stored.class);
+            if (stored.version() != FORMAT_VERSION) {
+                return null;
+            }
+            SpecSummary summary = new SpecSummary();
+            summary.operations.putAll(stored.operations());
+            summary.schemas.putAll(stored.schemas());
+            return summary;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), new Stored(FORMAT_VERSION, operations, schemas));
+    }
+
+    // Media type -> hash of its schema
+    private static Map<String, String> contentHashes(JsonNode node) {
+        Map<String, String> content = new TreeMap<>();
+        node.path("content").fields().forEachRemaining(mediaType ->
+                content.put(mediaType.getKey(), hash(mediaType.getValue().path("schema"))));
+        return content;
+    }
+
+    // Component schemas the node refers to directly
+    private static Set<String> schemaRefs(JsonNode node) {
+        Set<String> refs = new TreeSet<>();
+        List<JsonNode> pending = new ArrayList<>(List.of(node));
+        while (!pending.isEmpty()) {
+            JsonNode current = pending.remove(pending.size() - 1);
+            JsonNode ref = current.get("$ref");
+            if (ref != null && ref.isTextual() && ref.asText().startsWith(SCHEMA_REF_PREFIX)) {
+                refs.add(ref.asText().substring(SCHEMA_REF_PREFIX.length()));
+            }
+            current.forEach(pending::add);
+        }
+        return refs;
+    }
+
+    // Truncated SHA-256 of the canonical JSON; field order is fixed by the model classes
+    private static String hash(JsonNode node) {
+        if (node.isMissingNode()) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(MAPPER.writeValueAsBytes(node));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + node, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record OperationSummary(String operationId, String hash, Map<String, ParameterSummary> parameters,
+            BodySummary requestBody, Map<String, Map<String, String>> responses, Set<String> schemas) {
+    }
+
+    public record ParameterSummary(boolean required, String schemaHash) {
+    }
+
+    // Media type -> schema hash
+    public record BodySummary(boolean required, Map<String, String> content) {
+    }
+
+    public record SchemaSummary(String hash, String type, Map<String, String> properties, Set<String> required,
+            List<String> enumValues, Set<String> schemas) {
+    }
+
+    private record Stored(int version, Map<String, OperationSummary> operations, Map<String, SchemaSummary> schemas) {
+    }
+}
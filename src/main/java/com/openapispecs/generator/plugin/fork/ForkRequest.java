@@ -0,0 +1,27 @@
+package com.openapispecs.generator.plugin.fork;
+
+import com.openapispecs.generator.plugin.scanner.AnnotationScanner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// What the forked JVM generates and where it leaves the model, handed over as a JSON file. Paths are absolute; the
+// caches are left out when null.
+public record ForkRequest(String basePackage, List<String> classpathElements, AnnotationScanner.Backend scanner,
+        int parallelism, String apiTitle, String apiVersion, String apiDescription, String fragmentDirectory,
+        String fragmentSalt, String scanCacheDirectory, int scanCacheMaxAgeDays, String localRepository,
+        String modelFile) {
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+
+    public static ForkRequest read(Path file) throws IOException {
+        return new ObjectMapper().readValue(file.toFile(), ForkRequest.class);
+    }
+}
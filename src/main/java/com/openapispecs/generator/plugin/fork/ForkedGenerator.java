@@ -0,0 +1,112 @@
+package com.openapispecs.generator.plugin.fork;
+
+import com.openapispecs.generator.plugin.cache.FragmentCache;
+import com.openapispecs.generator.plugin.output.OutputFormat;
+import com.openapispecs.generator.plugin.parser.ControllerTags;
+import com.openapispecs.generator.plugin.parser.OpenApiBuilder;
+import com.openapispecs.generator.plugin.scanner.AnnotationScanner;
+import com.openapispecs.generator.plugin.scanner.ClassFiles;
+import com.openapispecs.generator.plugin.scanner.PersistentScanCache;
+import com.openapispecs.generator.plugin.scanner.SharedScanIndex;
+import io.swagger.v3.oas.models.OpenAPI;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Entry point of the forked JVM: scans the project classes, builds the model and writes it as JSON to the model file
+// of the request, for the goal to read back and write in every configured format. No model file is written when
+// there are no controllers. Progress goes to standard output, which the goal relays to its log.
+public final class ForkedGenerator {
+
+    private ForkedGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ForkRequest request = ForkRequest.read(Path.of(args[0]));
+        Path modelFile = Path.of(request.modelFile());
+        Files.deleteIfExists(modelFile);
+
+        // The plugin's classes come from the application class path, as they come from the plugin realm in Maven
+        try (URLClassLoader classLoader = new URLClassLoader(toUrls(request.classpathElements()),
+                ForkedGenerator.class.getClassLoader())) {
+            PersistentScanCache persistentCache = request.scanCacheDirectory() != null
+                    ? new PersistentScanCache(Path.of(request.scanCacheDirectory()),
+                            Path.of(request.localRepository()), Duration.ofDays(request.scanCacheMaxAgeDays()))
+                    : null;
+            if (persistentCache != null) {
+                persistentCache.evictUnused();
+            }
+            AnnotationScanner annotationScanner = new AnnotationScanner(request.basePackage(), classLoader,
+                    request.scanner(), new SharedScanIndex(persistentCache));
+            if (request.scanner() == AnnotationScanner.Backend.BYTECODE) {
+                // Built from class files, without loading any project class
+                ClassFiles classFiles = new ClassFiles(classLoader);
+                Set<String> controllers = annotationScanner.findControllerNames(classFiles);
+                if (controllers.isEmpty()) {
+                    return;
+                }
+                System.out.println("Found " + controllers.size() + " controller(s).");
+                OpenAPI openAPI = new OpenApiBuilder().build(request.apiTitle(), request.apiVersion(),
+                        request.apiDescription(), classFiles, controllers,
+                        annotationScanner.findControllerAdviceNames(classFiles));
+                ControllerTags.apply(openAPI);
+                writeModel(openAPI, modelFile);
+                return;
+            }
+            Set<Class<?>> controllers = annotationScanner.findRestControllers();
+            Set<Class<?>> controllerAdvices = annotationScanner.findControllerAdvice();
+            if (controllers.isEmpty()) {
+                return;
+            }
+            System.out.println("Found " + controllers.size() + " controller(s).");
+
+            OpenApiBuilder builder = new OpenApiBuilder();
+            builder.setParallelism(request.parallelism() > 0
+                    ? request.parallelism()
+                    : Runtime.getRuntime().availableProcessors());
+            FragmentCache fragmentCache = null;
+            if (request.fragmentDirectory() != null) {
+                fragmentCache = new FragmentCache(Path.of(request.fragmentDirectory()), request.fragmentSalt(),
+                        controllerAdvices, classLoader);
+                builder.setFragmentCache(fragmentCache);
+            }
+            OpenAPI openAPI = builder.build(request.apiTitle(), request.apiVersion(), request.apiDescription(),
+                    controllers, controllerAdvices);
+            ControllerTags.apply(openAPI);
+            if (fragmentCache != null) {
+                fragmentCache.retainOnly(controllers);
+                System.out.println("Reused " + fragmentCache.getHits() + " cached controller fragment(s), "
+                        + "regenerated " + fragmentCache.getMisses() + ".");
+            }
+            OpenApiBuilder.SchemaCacheStats schemaCacheStats = builder.getSchemaCacheStats();
+            System.out.println("Schema resolution cache: " + schemaCacheStats.hits() + " hit(s), "
+                    + schemaCacheStats.misses() + " miss(es), " + schemaCacheStats.interned()
+                    + " shared with an identical schema.");
+
+            writeModel(openAPI, modelFile);
+        }
+    }
+
+    private static void writeModel(OpenAPI openAPI, Path modelFile) throws IOException {
+        Path tempFile = modelFile.resolveSibling("." + modelFile.getFileName() + ".tmp");
+        Files.createDirectories(modelFile.toAbsolutePath().getParent());
+        OutputFormat.JSON.createMapper().writeValue(tempFile.toFile(), openAPI);
+        Files.move(tempFile, modelFile);
+    }
+
+    private static URL[] toUrls(List<String> classpathElements) throws MalformedURLException {
+        List<URL> urls = new ArrayList<>();
+        for (String element : classpathElements) {
+            urls.add(Path.of(element).toUri().toURL());
+        }
+        return urls.toArray(new URL[0]);
+    }
+}
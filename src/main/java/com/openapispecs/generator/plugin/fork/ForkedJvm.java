@@ -0,0 +1,82 @@
+package com.openapispecs.generator.plugin.fork;
+
+import com.openapispecs.generator.plugin.cache.InputFingerprint;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Runs ForkedGenerator in a JVM of its own, started from the Java installation running Maven, with the plugin and
+// its dependencies as the class path and the given options, e.g. -Xmx2g -XX:+UseParallelGC.
+//
+// With an archive directory, the JVM maps a dynamic AppCDS archive of the classes it loaded from that class path, so
+// Spring, Reactor, Jackson, swagger-models and Reflections are not parsed and verified again on every fork. The
+// archive is created when the first fork exits and reused by later ones; it is named after the JVM version and the
+// class path, so a new plugin version or JDK gets its own. The JVM recreates an archive it cannot use. Project
+// classes come from a class loader of their own and are never archived.
+public class ForkedJvm {
+    private final List<Path> classpath;
+    private final List<String> jvmArgs;
+    private final Path archive;
+
+    public ForkedJvm(List<Path> classpath, List<String> jvmArgs, Path archiveDirectory) throws IOException {
+        this.classpath = classpath;
+        this.jvmArgs = jvmArgs;
+        this.archive = archiveDirectory != null ? archiveDirectory.resolve(archiveName(classpath)) : null;
+    }
+
+    // Null without an archive directory
+    public Path getArchive() {
+        return archive;
+    }
+
+    // Every line the JVM prints, to standard output or error, goes to the consumer. Fails unless it exits normally.
+    public void run(Path requestFile, Consumer<String> output) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        if (archive != null) {
+            Files.createDirectories(archive.getParent());
+            // Classes that cannot be archived, such as proxies, are reported as warnings otherwise
+            command.add("-Xlog:cds=off");
+            command.add("-XX:+AutoCreateSharedArchive");
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classpath.stream().map(Path::toString).toList()));
+        command.add(ForkedGenerator.class.getName());
+        command.add(requestFile.toAbsolutePath().toString());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            reader.lines().forEach(output);
+        }
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the forked JVM", e);
+        }
+        if (exitCode != 0) {
+            throw new IOException("The forked JVM exited with code " + exitCode);
+        }
+    }
+
+    private static String archiveName(List<Path> classpath) throws IOException {
+        InputFingerprint fingerprint = new InputFingerprint().add("java", System.getProperty("java.vm.version"));
+        for (Path element : classpath) {
+            fingerprint.add(element.toString(), Files.size(element) + ":" + Files.getLastModifiedTime(element));
+        }
+        return "openapi-generator-" + fingerprint.toHex().substring(0, 16) + ".jsa";
+    }
+}
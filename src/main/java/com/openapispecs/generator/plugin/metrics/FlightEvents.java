@@ -0,0 +1,93 @@
+package com.openapispecs.generator.plugin.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Java Flight Recorder events of a generation, to line up its scan, build and write work with GC, class loading and
+// the rest of the Maven JVM in a recording (e.g. MAVEN_OPTS="-XX:StartFlightRecording=filename=build.jfr"). They are
+// enabled by default; when nothing records, begin() and shouldCommit() cost next to nothing and no field is filled in.
+//
+// Usage follows the JDK's pattern: create, begin(), do the work, then set the fields and commit() only if
+// shouldCommit().
+public final class FlightEvents {
+    private static final String CATEGORY = "OpenAPI Generator";
+
+    private FlightEvents() {
+    }
+
+    // One element of the classpath indexed for controllers and advices. The Reflections scanner reads all of its
+    // roots in one pass, reported as a single event with the roots separated by the path separator.
+    @Name("openapi.ClasspathElementScanned")
+    @Label("Classpath Element Scanned")
+    @Category({ CATEGORY, "Scan" })
+    @StackTrace(false)
+    public static final class ClasspathElementScanned extends Event {
+        @Label("Element")
+        public String element;
+
+        @Label("Backend")
+        public String backend;
+
+        @Label("Types")
+        @Description("Types found in the base package, or entries of the Reflections store")
+        public int types;
+
+        @Label("Reused")
+        @Description("Taken from the shared index or the persistent scan cache instead of being read")
+        public boolean reused;
+    }
+
+    // The operations of one controller built, or taken from the fragment cache
+    @Name("openapi.ControllerProcessed")
+    @Label("Controller Processed")
+    @Category({ CATEGORY, "Build" })
+    @StackTrace(false)
+    public static final class ControllerProcessed extends Event {
+        @Label("Controller")
+        public String controller;
+
+        @Label("Operations")
+        public int operations;
+
+        @Label("Reused")
+        @Description("Taken from the fragment cache of the previous generation instead of being built")
+        public boolean reused;
+    }
+
+    // One schema lookup. A miss lasts until the schema and, for classes seen the first time, their properties are
+    // resolved, so the events of nested types fall within it.
+    @Name("openapi.SchemaResolved")
+    @Label("Schema Resolved")
+    @Category({ CATEGORY, "Build" })
+    @StackTrace(false)
+    public static final class SchemaResolved extends Event {
+        @Label("Type")
+        public String typeName;
+
+        @Label("Cache Hit")
+        public boolean cacheHit;
+    }
+
+    // One output file, from opening it to committing it, serialization included
+    @Name("openapi.FileWritten")
+    @Label("File Written")
+    @Category({ CATEGORY, "Write" })
+    @StackTrace(false)
+    public static final class FileWritten extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Size")
+        @DataAmount
+        public long size;
+
+        @Label("Changed")
+        @Description("Replaced the file; unchanged content leaves the existing file untouched")
+        public boolean changed;
+    }
+}
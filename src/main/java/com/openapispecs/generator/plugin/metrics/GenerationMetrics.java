@@ -0,0 +1,154 @@
+package com.openapispecs.generator.plugin.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cost of one execution of the goal, split into consecutive phases. CPU time and allocated bytes are process-wide, so
+// work on other threads (the build pool, the garbage collector, other modules of a parallel Maven build) is included.
+public class GenerationMetrics {
+    private static final int SLOWEST = 10;
+
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private final long startLoadedClasses = classLoading.getTotalLoadedClassCount();
+    private final Snapshot start = Snapshot.take();
+    private final List<PhaseTiming> phases = new ArrayList<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final Map<String, Long> controllerNanos = new ConcurrentHashMap<>();
+    private final Map<String, Long> schemaNanos = new ConcurrentHashMap<>();
+    private final LongAdder refs = new LongAdder();
+    private String currentPhase;
+    private Snapshot currentStart;
+    private boolean upToDate;
+
+    // Ends the running phase, if any, and starts the next one.
+    public void phase(String name) {
+        endPhase();
+        currentPhase = name;
+        currentStart = Snapshot.take();
+    }
+
+    public void endPhase() {
+        if (currentPhase != null) {
+            Snapshot end = Snapshot.take();
+            phases.add(new PhaseTiming(currentPhase, millis(end.wallNanos() - currentStart.wallNanos()),
+                    millis(end.cpuNanos() - currentStart.cpuNanos()),
+                    end.allocatedBytes() - currentStart.allocatedBytes()));
+            currentPhase = null;
+        }
+    }
+
+    public void setUpToDate(boolean upToDate) {
+        this.upToDate = upToDate;
+    }
+
+    public void count(String name, long value) {
+        counts.put(name, value);
+    }
+
+    public void recordController(String name, long nanos) {
+        controllerNanos.merge(name, nanos, Long::sum);
+    }
+
+    // Inclusive of the schemas nested in it that were first built along with it
+    public void recordSchema(String name, long nanos) {
+        schemaNanos.merge(name, nanos, Long::sum);
+    }
+
+    public void addRefs(long count) {
+        refs.add(count);
+    }
+
+    public Report report() {
+        endPhase();
+        Map<String, Long> allCounts = new LinkedHashMap<>(counts);
+        allCounts.put("classesLoaded", classLoading.getTotalLoadedClassCount() - startLoadedClasses);
+        allCounts.put("refsEmitted", refs.sum());
+        return new Report(upToDate, millis(System.nanoTime() - start.wallNanos()), List.copyOf(phases), allCounts,
+                slowest(controllerNanos), slowest(schemaNanos));
+    }
+
+    public static void write(Report report, Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+    }
+
+    // Human-readable lines for the build log
+    public static List<String> summarize(Report report) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Generation took %.1f ms%s", report.totalWallMillis(),
+                report.upToDate() ? " (up to date)" : ""));
+        for (PhaseTiming phase : report.phases()) {
+            lines.add(String.format("  %-12s %9.1f ms wall %9.1f ms cpu %9.1f MB allocated", phase.name(),
+                    phase.wallMillis(), phase.cpuMillis(), phase.allocatedBytes() / (1024.0 * 1024.0)));
+        }
+        StringBuilder counts = new StringBuilder("  Counts:");
+        report.counts().forEach((name, value) -> counts.append(' ').append(name).append('=').append(value));
+        lines.add(counts.toString());
+        if (!report.slowestControllers().isEmpty()) {
+            lines.add("  Slowest controllers: " + describe(report.slowestControllers()));
+        }
+        if (!report.slowestSchemas().isEmpty()) {
+            lines.add("  Slowest schemas: " + describe(report.slowestSchemas()));
+        }
+        return lines;
+    }
+
+    private static String describe(List<Timing> timings) {
+        List<String> parts = new ArrayList<>();
+        timings.stream().limit(3).forEach(timing -> parts.add(String.format("%s (%.1f ms)", timing.name(),
+                timing.millis())));
+        return String.join(", ", parts);
+    }
+
+    private static List<Timing> slowest(Map<String, Long> nanos) {
+        return nanos.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(SLOWEST)
+                .map(entry -> new Timing(entry.getKey(), millis(entry.getValue())))
+                .toList();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    public record Report(boolean upToDate, double totalWallMillis, List<PhaseTiming> phases, Map<String, Long> counts,
+            List<Timing> slowestControllers, List<Timing> slowestSchemas) {
+    }
+
+    public record PhaseTiming(String name, double wallMillis, double cpuMillis, long allocatedBytes) {
+    }
+
+    public record Timing(String name, double millis) {
+    }
+
+    // Allocated bytes and CPU time read as 0 on JVMs that do not report them
+    private record Snapshot(long wallNanos, long cpuNanos, long allocatedBytes) {
+        static Snapshot take() {
+            long cpuNanos = 0;
+            if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+                cpuNanos = Math.max(0, os.getProcessCpuTime());
+            }
+            long allocatedBytes = 0;
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                allocatedBytes = Math.max(0, threads.getTotalThreadAllocatedBytes());
+            }
+            return new Snapshot(System.nanoTime(), cpuNanos, allocatedBytes);
+        }
+    }
+}
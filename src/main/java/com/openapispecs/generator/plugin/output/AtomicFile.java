@@ -0,0 +1,70 @@
+package com.openapispecs.generator.plugin.output;
+
+import com.openapispecs.generator.plugin.metrics.FlightEvents;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+// Content is written to a temporary file next to the target and renamed over it on commit, so readers never see a
+// partly written file. When the new content equals the existing file, the target is left untouched, timestamp
+// included, and nothing watching it is triggered.
+final class AtomicFile implements Closeable {
+    private final FlightEvents.FileWritten event = new FlightEvents.FileWritten();
+    private final Path target;
+    private final Path temp;
+    private boolean committed;
+
+    AtomicFile(Path target) throws IOException {
+        event.begin();
+        this.target = target.toAbsolutePath();
+        Files.createDirectories(this.target.getParent());
+        // Not Files.createTempFile, which would give the spec owner-only permissions
+        this.temp = this.target.resolveSibling("." + this.target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    }
+
+    OutputStream openStream() throws IOException {
+        return new BufferedOutputStream(Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE));
+    }
+
+    // Returns whether the target was replaced.
+    boolean commit() throws IOException {
+        committed = true;
+        boolean changed = replaceTarget();
+        if (event.shouldCommit()) {
+            event.path = target.toString();
+            event.size = Files.size(target);
+            event.changed = changed;
+            event.commit();
+        }
+        return changed;
+    }
+
+    private boolean replaceTarget() throws IOException {
+        if (Files.isRegularFile(target) && Files.mismatch(temp, target) == -1) {
+            Files.delete(temp);
+            return false;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
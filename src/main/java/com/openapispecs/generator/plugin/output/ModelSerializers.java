@@ -0,0 +1,451 @@
+package com.openapispecs.generator.plugin.output;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.SpecVersion;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+// Serializers for the model types a generated spec consists of, written out field by field instead of through
+// Jackson's bean introspection: no property reflection, mix-ins or inclusion checks per value, only a null check per
+// field. Keys come in the order the OpenAPI 3.0 specification lists the fields of each object, followed by the
+// 3.1 fields, and extensions are written inline as their x- keys.
+//
+// Everything else (servers, security, examples, headers, links, ...) keeps Jackson's bean serializers, as do schemas
+// of OpenAPI 3.1, whose keywords these do not cover.
+//
+// StdSerializer is Serializable, but these are only ever registered with a mapper, never serialized themselves.
+@SuppressWarnings("serial")
+final class ModelSerializers {
+
+    private ModelSerializers() {
+    }
+
+    static Module module() {
+        SimpleModule module = new SimpleModule("openapi-model-serializers");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                    JsonSerializer<?> serializer) {
+                Class<?> type = description.getBeanClass();
+                if (Schema.class.isAssignableFrom(type)) {
+                    return new SchemaSerializer((JsonSerializer<Object>) serializer);
+                }
+                if (type == OpenAPI.class) {
+                    return new OpenApiSerializer();
+                }
+                if (type == Info.class) {
+                    return new InfoSerializer();
+                }
+                if (type == Tag.class) {
+                    return new TagSerializer();
+                }
+                if (type == PathItem.class) {
+                    return new PathItemSerializer();
+                }
+                if (type == Operation.class) {
+                    return new OperationSerializer();
+                }
+                if (type == Parameter.class) {
+                    return new ParameterSerializer();
+                }
+                if (type == RequestBody.class) {
+                    return new RequestBodySerializer();
+                }
+                if (type == ApiResponse.class) {
+                    return new ApiResponseSerializer();
+                }
+                if (type == MediaType.class) {
+                    return new MediaTypeSerializer();
+                }
+                if (type == Components.class) {
+                    return new ComponentsSerializer();
+                }
+                return serializer;
+            }
+        });
+        return module;
+    }
+
+    private static final class OpenApiSerializer extends StdSerializer<OpenAPI> {
+        OpenApiSerializer() {
+            super(OpenAPI.class);
+        }
+
+        @Override
+        public void serialize(OpenAPI openAPI, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            string(gen, "openapi", openAPI.getOpenapi());
+            value(gen, provider, "info", openAPI.getInfo());
+            string(gen, "jsonSchemaDialect", openAPI.getJsonSchemaDialect());
+            value(gen, provider, "servers", openAPI.getServers());
+            value(gen, provider, "paths", openAPI.getPaths());
+            value(gen, provider, "webhooks", openAPI.getWebhooks());
+            value(gen, provider, "components", openAPI.getComponents());
+            value(gen, provider, "security", openAPI.getSecurity());
+            value(gen, provider, "tags", openAPI.getTags());
+            value(gen, provider, "externalDocs", openAPI.getExternalDocs());
+            extensions(gen, provider, openAPI.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class InfoSerializer extends StdSerializer<Info> {
+        InfoSerializer() {
+            super(Info.class);
+        }
+
+        @Override
+        public void serialize(Info info, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            string(gen, "title", info.getTitle());
+            string(gen, "summary", info.getSummary());
+            string(gen, "description", info.getDescription());
+            string(gen, "termsOfService", info.getTermsOfService());
+            value(gen, provider, "contact", info.getContact());
+            value(gen, provider, "license", info.getLicense());
+            string(gen, "version", info.getVersion());
+            extensions(gen, provider, info.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class TagSerializer extends StdSerializer<Tag> {
+        TagSerializer() {
+            super(Tag.class);
+        }
+
+        @Override
+        public void serialize(Tag tag, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            string(gen, "name", tag.getName());
+            string(gen, "description", tag.getDescription());
+            value(gen, provider, "externalDocs", tag.getExternalDocs());
+            extensions(gen, provider, tag.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class PathItemSerializer extends StdSerializer<PathItem> {
+        PathItemSerializer() {
+            super(PathItem.class);
+        }
+
+        @Override
+        public void serialize(PathItem pathItem, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            string(gen, "$ref", pathItem.get$ref());
+            string(gen, "summary", pathItem.getSummary());
+            string(gen, "description", pathItem.getDescription());
+            value(gen, provider, "get", pathItem.getGet());
+            value(gen, provider, "put", pathItem.getPut());
+            value(gen, provider, "post", pathItem.getPost());
+            value(gen, provider, "delete", pathItem.getDelete());
+            value(gen, provider, "options", pathItem.getOptions());
+            value(gen, provider, "head", pathItem.getHead());
+            value(gen, provider, "patch", pathItem.getPatch());
+            value(gen, provider, "trace", pathItem.getTrace());
+            value(gen, provider, "servers", pathItem.getServers());
+            value(gen, provider, "parameters", pathItem.getParameters());
+            extensions(gen, provider, pathItem.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class OperationSerializer extends StdSerializer<Operation> {
+        OperationSerializer() {
+            super(Operation.class);
+        }
+
+        @Override
+        public void serialize(Operation operation, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            strings(gen, "tags", operation.getTags());
+            string(gen, "summary", operation.getSummary());
+            string(gen, "description", operation.getDescription());
+            value(gen, provider, "externalDocs", operation.getExternalDocs());
+            string(gen, "operationId", operation.getOperationId());
+            value(gen, provider, "parameters", operation.getParameters());
+            value(gen, provider, "requestBody", operation.getRequestBody());
+            value(gen, provider, "responses", operation.getResponses());
+            value(gen, provider, "callbacks", operation.getCallbacks());
+            bool(gen, "deprecated", operation.getDeprecated());
+            value(gen, provider, "security", operation.getSecurity());
+            value(gen, provider, "servers", operation.getServers());
+            extensions(gen, provider, operation.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class ParameterSerializer extends StdSerializer<Parameter> {
+        ParameterSerializer() {
+            super(Parameter.class);
+        }
+
+        @Override
+        public void serialize(Parameter parameter, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            string(gen, "$ref", parameter.get$ref());
+            string(gen, "name", parameter.getName());
+            string(gen, "in", parameter.getIn());
+            string(gen, "description", parameter.getDescription());
+            bool(gen, "required", parameter.getRequired());
+            bool(gen, "deprecated", parameter.getDeprecated());
+            bool(gen, "allowEmptyValue", parameter.getAllowEmptyValue());
+            value(gen, provider, "style", parameter.getStyle());
+            bool(gen, "explode", parameter.getExplode());
+            bool(gen, "allowReserved", parameter.getAllowReserved());
+            value(gen, provider, "schema", parameter.getSchema());
+            value(gen, provider, "example", parameter.getExample());
+            value(gen, provider, "examples", parameter.getExamples());
+            value(gen, provider, "content", parameter.getContent());
+            extensions(gen, provider, parameter.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class RequestBodySerializer extends StdSerializer<RequestBody> {
+        RequestBodySerializer() {
+            super(RequestBody.class);
+        }
+
+        @Override
+        public void serialize(RequestBody requestBody, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            string(gen, "$ref", requestBody.get$ref());
+            string(gen, "description", requestBody.getDescription());
+            value(gen, provider, "content", requestBody.getContent());
+            bool(gen, "required", requestBody.getRequired());
+            extensions(gen, provider, requestBody.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class ApiResponseSerializer extends StdSerializer<ApiResponse> {
+        ApiResponseSerializer() {
+            super(ApiResponse.class);
+        }
+
+        @Override
+        public void serialize(ApiResponse response, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            string(gen, "$ref", response.get$ref());
+            string(gen, "description", response.getDescription());
+            value(gen, provider, "headers", response.getHeaders());
+            value(gen, provider, "content", response.getContent());
+            value(gen, provider, "links", response.getLinks());
+            extensions(gen, provider, response.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class MediaTypeSerializer extends StdSerializer<MediaType> {
+        MediaTypeSerializer() {
+            super(MediaType.class);
+        }
+
+        @Override
+        public void serialize(MediaType mediaType, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            value(gen, provider, "schema", mediaType.getSchema());
+            value(gen, provider, "example", mediaType.getExample());
+            value(gen, provider, "examples", mediaType.getExamples());
+            value(gen, provider, "encoding", mediaType.getEncoding());
+            extensions(gen, provider, mediaType.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class ComponentsSerializer extends StdSerializer<Components> {
+        ComponentsSerializer() {
+            super(Components.class);
+        }
+
+        @Override
+        public void serialize(Components components, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            value(gen, provider, "schemas", components.getSchemas());
+            value(gen, provider, "responses", components.getResponses());
+            value(gen, provider, "parameters", components.getParameters());
+            value(gen, provider, "examples", components.getExamples());
+            value(gen, provider, "requestBodies", components.getRequestBodies());
+            value(gen, provider, "headers", components.getHeaders());
+            value(gen, provider, "securitySchemes", components.getSecuritySchemes());
+            value(gen, provider, "links", components.getLinks());
+            value(gen, provider, "callbacks", components.getCallbacks());
+            value(gen, provider, "pathItems", components.getPathItems());
+            extensions(gen, provider, components.getExtensions());
+            gen.writeEndObject();
+        }
+    }
+
+    // Nested schemas are written by this serializer directly, without looking up a serializer per node
+    @SuppressWarnings("rawtypes")
+    private static final class SchemaSerializer extends StdSerializer<Schema> {
+        private final JsonSerializer<Object> beanSerializer;
+
+        SchemaSerializer(JsonSerializer<Object> beanSerializer) {
+            super(Schema.class);
+            this.beanSerializer = beanSerializer;
+        }
+
+        // The getters of the raw Schema return raw lists and maps
+        @Override
+        @SuppressWarnings("unchecked")
+        public void serialize(Schema schema, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (schema.getSpecVersion() == SpecVersion.V31) {
+                beanSerializer.serialize(schema, gen, provider);
+                return;
+            }
+            gen.writeStartObject();
+            string(gen, "$ref", schema.get$ref());
+            string(gen, "title", schema.getTitle());
+            number(gen, "multipleOf", schema.getMultipleOf());
+            number(gen, "maximum", schema.getMaximum());
+            bool(gen, "exclusiveMaximum", schema.getExclusiveMaximum());
+            number(gen, "minimum", schema.getMinimum());
+            bool(gen, "exclusiveMinimum", schema.getExclusiveMinimum());
+            integer(gen, "maxLength", schema.getMaxLength());
+            integer(gen, "minLength", schema.getMinLength());
+            string(gen, "pattern", schema.getPattern());
+            integer(gen, "maxItems", schema.getMaxItems());
+            integer(gen, "minItems", schema.getMinItems());
+            bool(gen, "uniqueItems", schema.getUniqueItems());
+            integer(gen, "maxProperties", schema.getMaxProperties());
+            integer(gen, "minProperties", schema.getMinProperties());
+            strings(gen, "required", schema.getRequired());
+            value(gen, provider, "enum", schema.getEnum());
+            string(gen, "type", schema.getType());
+            schemas(gen, provider, "allOf", schema.getAllOf());
+            schemas(gen, provider, "oneOf", schema.getOneOf());
+            schemas(gen, provider, "anyOf", schema.getAnyOf());
+            schema(gen, provider, "not", schema.getNot());
+            schema(gen, provider, "items", schema.getItems());
+            Map<String, Schema> properties = schema.getProperties();
+            if (properties != null) {
+                gen.writeObjectFieldStart("properties");
+                for (Map.Entry<String, Schema> property : properties.entrySet()) {
+                    schema(gen, provider, property.getKey(), property.getValue());
+                }
+                gen.writeEndObject();
+            }
+            Object additionalProperties = schema.getAdditionalProperties();
+            if (additionalProperties instanceof Schema<?> additionalSchema) {
+                schema(gen, provider, "additionalProperties", additionalSchema);
+            } else {
+                value(gen, provider, "additionalProperties", additionalProperties);
+            }
+            string(gen, "description", schema.getDescription());
+            string(gen, "format", schema.getFormat());
+            value(gen, provider, "default", schema.getDefault());
+            bool(gen, "nullable", schema.getNullable());
+            value(gen, provider, "discriminator", schema.getDiscriminator());
+            bool(gen, "readOnly", schema.getReadOnly());
+            bool(gen, "writeOnly", schema.getWriteOnly());
+            value(gen, provider, "xml", schema.getXml());
+            value(gen, provider, "externalDocs", schema.getExternalDocs());
+            value(gen, provider, "example", schema.getExample());
+            bool(gen, "deprecated", schema.getDeprecated());
+            extensions(gen, provider, schema.getExtensions());
+            gen.writeEndObject();
+        }
+
+        private void schema(JsonGenerator gen, SerializerProvider provider, String name, Schema<?> schema)
+                throws IOException {
+            if (schema != null) {
+                gen.writeFieldName(name);
+                serialize(schema, gen, provider);
+            }
+        }
+
+        private void schemas(JsonGenerator gen, SerializerProvider provider, String name, List<Schema> schemas)
+                throws IOException {
+            if (schemas != null) {
+                gen.writeArrayFieldStart(name);
+                for (Schema<?> schema : schemas) {
+                    serialize(schema, gen, provider);
+                }
+                gen.writeEndArray();
+            }
+        }
+    }
+
+    private static void string(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    private static void strings(JsonGenerator gen, String name, List<String> values) throws IOException {
+        if (values != null) {
+            gen.writeArrayFieldStart(name);
+            for (String value : values) {
+                gen.writeString(value);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static void bool(JsonGenerator gen, String name, Boolean value) throws IOException {
+        if (value != null) {
+            gen.writeBooleanField(name, value);
+        }
+    }
+
+    private static void integer(JsonGenerator gen, String name, Integer value) throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, value);
+        }
+    }
+
+    private static void number(JsonGenerator gen, String name, BigDecimal value) throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, value);
+        }
+    }
+
+    // Values of any other type, through the serializer Jackson has for them
+    private static void value(JsonGenerator gen, SerializerProvider provider, String name, Object value)
+            throws IOException {
+        if (value != null) {
+            provider.defaultSerializeField(name, value, gen);
+        }
+    }
+
+    private static void extensions(JsonGenerator gen, SerializerProvider provider, Map<String, Object> extensions)
+            throws IOException {
+        if (extensions != null) {
+            for (Map.Entry<String, Object> extension : extensions.entrySet()) {
+                value(gen, provider, extension.getKey(), extension.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.openapispecs.generator.plugin.output;
+
+import com.openapispecs.generator.plugin.parser.mixin.MediaTypeMixin;
+import com.openapispecs.generator.plugin.parser.mixin.SchemaMixin;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public enum OutputFormat {
+    YAML("yaml", false),
+    JSON("json", false),
+    YAML_GZ("yaml.gz", true),
+    JSON_GZ("json.gz", true),
+    CBOR("cbor", false),
+    SMILE("smile", false);
+
+    private final String extension;
+    private final boolean gzip;
+
+    OutputFormat(String extension, boolean gzip) {
+        this.extension = extension;
+        this.gzip = gzip;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ObjectMapper createMapper() {
+        return createMapper(Serializers.BEAN);
+    }
+
+    public ObjectMapper createMapper(Serializers serializers) {
+        ObjectMapper mapper = new ObjectMapper(createFactory());
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.addMixIn(Schema.class, SchemaMixin.class);
+        mapper.addMixIn(MediaType.class, MediaTypeMixin.class);
+        if (serializers == Serializers.PRECOMPILED) {
+            mapper.registerModule(ModelSerializers.module());
+        }
+        if (this == JSON || this == JSON_GZ) {
+            mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        }
+        return mapper;
+    }
+
+    // GZIPOutputStream leaves the header timestamp at zero, so equal content always compresses to equal bytes
+    OutputStream wrap(OutputStream out) throws IOException {
+        return gzip ? new GZIPOutputStream(out, 8192) : out;
+    }
+
+    InputStream unwrap(InputStream in) throws IOException {
+        return gzip ? new GZIPInputStream(in, 8192) : in;
+    }
+
+    private JsonFactory createFactory() {
+        return switch (this) {
+            case YAML, YAML_GZ -> new YAMLFactory().disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER);
+            case JSON, JSON_GZ -> new JsonFactory();
+            case CBOR -> new CBORFactory();
+            case SMILE -> new SmileFactory();
+        };
+    }
+
+    // How the model is turned into output. BEAN goes through Jackson's bean serializers with the mix-ins, keys in
+    // the order of the model's properties. PRECOMPILED writes the core model types with the hand-written serializers
+    // of ModelSerializers, keys in the order of the specification.
+    public enum Serializers {
+        BEAN,
+        PRECOMPILED
+    }
+}
@@ -0,0 +1,266 @@
+package com.openapispecs.generator.plugin.output;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// The spec ready to be served by the application itself: compact JSON and YAML, each also gzip- and
+// deflate-compressed, as resources under META-INF/openapi of the output directory, plus an accessor class that holds
+// them in read-only direct buffers, loaded once, with a strong ETag and the length of each:
+//
+//   ByteBuffer body = OpenApiDocument.jsonGzip();       // a new view of the shared bytes, which are never copied
+//   String etag = OpenApiDocument.jsonGzipEtag();       // "\"3f1c...\"", distinct for every encoding
+//   int length = OpenApiDocument.jsonGzipLength();
+//
+// The class is generated as bytecode rather than source, as the goal runs after compilation. It only needs the JDK.
+// ETags and lengths are methods rather than constants, which javac would copy into callers that are not recompiled
+// when the spec changes.
+public class ServingArtifact {
+    static final String RESOURCE_DIRECTORY = "META-INF/openapi";
+    private static final String BYTE_BUFFER = "java/nio/ByteBuffer";
+    private static final String BYTE_BUFFER_DESCRIPTOR = "L" + BYTE_BUFFER + ";";
+
+    private final Path resourceDirectory;
+    private final String baseName;
+    private final String internalClassName;
+    private final Path classFile;
+    private final OutputFormat.Serializers serializers;
+
+    public ServingArtifact(Path outputDirectory, String outputFileName, String className) {
+        this(outputDirectory, outputFileName, className, OutputFormat.Serializers.BEAN);
+    }
+
+    public ServingArtifact(Path outputDirectory, String outputFileName, String className,
+            OutputFormat.Serializers serializers) {
+        this.serializers = serializers;
+        int extensionStart = outputFileName.lastIndexOf('.');
+        this.baseName = extensionStart > 0 ? outputFileName.substring(0, extensionStart) : outputFileName;
+        this.resourceDirectory = outputDirectory.resolve(RESOURCE_DIRECTORY);
+        this.internalClassName = className.replace('.', '/');
+        this.classFile = outputDirectory.resolve(internalClassName + ".class");
+    }
+
+    public Collection<Path> getFiles() {
+        List<Path> files = new ArrayList<>();
+        for (Encoding encoding : Encoding.values()) {
+            files.add(resourceDirectory.resolve(baseName + ".json" + encoding.suffix));
+            files.add(resourceDirectory.resolve(baseName + ".yaml" + encoding.suffix));
+        }
+        files.add(classFile);
+        return files;
+    }
+
+    public Path getClassFile() {
+        return classFile;
+    }
+
+    public List<SpecWriter.WrittenFile> write(OpenAPI openAPI) throws IOException {
+        ObjectMapper jsonMapper = OutputFormat.JSON.createMapper(serializers).disable(SerializationFeature.INDENT_OUTPUT);
+        byte[] json = jsonMapper.writeValueAsBytes(openAPI);
+        byte[] yaml = OutputFormat.YAML.createMapper(serializers).writeValueAsBytes(openAPI);
+
+        List<Representation> representations = new ArrayList<>();
+        for (Encoding encoding : Encoding.values()) {
+            representations.add(new Representation("JSON", "json", baseName + ".json", encoding,
+                    encoding.encode(json)));
+        }
+        for (Encoding encoding : Encoding.values()) {
+            representations.add(new Representation("YAML", "yaml", baseName + ".yaml", encoding,
+                    encoding.encode(yaml)));
+        }
+
+        List<SpecWriter.WrittenFile> written = new ArrayList<>();
+        for (Representation representation : representations) {
+            Path file = resourceDirectory.resolve(representation.fileName());
+            written.add(new SpecWriter.WrittenFile(file, writeFile(file, representation.bytes())));
+        }
+        written.add(new SpecWriter.WrittenFile(classFile, writeFile(classFile, accessorClass(representations))));
+        return written;
+    }
+
+    private static boolean writeFile(Path path, byte[] content) throws IOException {
+        try (AtomicFile file = new AtomicFile(path)) {
+            try (OutputStream out = file.openStream()) {
+                out.write(content);
+            }
+            return file.commit();
+        }
+    }
+
+    // A final class with, for every representation, a private static ByteBuffer field filled in the static
+    // initializer, a static method returning a duplicate of it, and static methods returning its ETag and length.
+    // Every method is straight-line code, so no stack map frames are needed.
+    private byte[] accessorClass(List<Representation> representations) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, internalClassName,
+                null, "java/lang/Object", null);
+
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PRIVATE, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        MethodVisitor initializer = writer.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        initializer.visitCode();
+        for (Representation representation : representations) {
+            String field = representation.fieldName();
+            writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, field,
+                    BYTE_BUFFER_DESCRIPTOR, null, null).visitEnd();
+
+            initializer.visitLdcInsn("/" + RESOURCE_DIRECTORY + "/" + representation.fileName());
+            initializer.visitMethodInsn(Opcodes.INVOKESTATIC, internalClassName, "load",
+                    "(Ljava/lang/String;)" + BYTE_BUFFER_DESCRIPTOR, false);
+            initializer.visitFieldInsn(Opcodes.PUTSTATIC, internalClassName, field, BYTE_BUFFER_DESCRIPTOR);
+
+            // Positions are per buffer, so callers get their own view of the shared content
+            MethodVisitor accessor = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+                    representation.methodName(), "()" + BYTE_BUFFER_DESCRIPTOR, null, null);
+            accessor.visitCode();
+            accessor.visitFieldInsn(Opcodes.GETSTATIC, internalClassName, field, BYTE_BUFFER_DESCRIPTOR);
+            accessor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BYTE_BUFFER, "duplicate", "()" + BYTE_BUFFER_DESCRIPTOR,
+                    false);
+            accessor.visitInsn(Opcodes.ARETURN);
+            accessor.visitMaxs(0, 0);
+            accessor.visitEnd();
+
+            MethodVisitor etag = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+                    representation.methodName() + "Etag", "()Ljava/lang/String;", null, null);
+            etag.visitCode();
+            etag.visitLdcInsn(representation.etag());
+            etag.visitInsn(Opcodes.ARETURN);
+            etag.visitMaxs(0, 0);
+            etag.visitEnd();
+
+            MethodVisitor length = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC,
+                    representation.methodName() + "Length", "()I", null, null);
+            length.visitCode();
+            length.visitLdcInsn(representation.bytes().length);
+            length.visitInsn(Opcodes.IRETURN);
+            length.visitMaxs(0, 0);
+            length.visitEnd();
+        }
+        initializer.visitInsn(Opcodes.RETURN);
+        initializer.visitMaxs(0, 0);
+        initializer.visitEnd();
+
+        // private static ByteBuffer load(String name) throws IOException: reads the resource into a read-only direct
+        // buffer. A missing resource fails class initialization.
+        MethodVisitor load = writer.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC, "load",
+                "(Ljava/lang/String;)" + BYTE_BUFFER_DESCRIPTOR, null, new String[]{"java/io/IOException"});
+        load.visitCode();
+        load.visitLdcInsn(Type.getObjectType(internalClassName));
+        load.visitVarInsn(Opcodes.ALOAD, 0);
+        load.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Class", "getResourceAsStream",
+                "(Ljava/lang/String;)Ljava/io/InputStream;", false);
+        load.visitVarInsn(Opcodes.ASTORE, 1);
+        load.visitVarInsn(Opcodes.ALOAD, 1);
+        load.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/InputStream", "readAllBytes", "()[B", false);
+        load.visitVarInsn(Opcodes.ASTORE, 2);
+        load.visitVarInsn(Opcodes.ALOAD, 1);
+        load.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/InputStream", "close", "()V", false);
+        load.visitVarInsn(Opcodes.ALOAD, 2);
+        load.visitInsn(Opcodes.ARRAYLENGTH);
+        load.visitMethodInsn(Opcodes.INVOKESTATIC, BYTE_BUFFER, "allocateDirect", "(I)" + BYTE_BUFFER_DESCRIPTOR,
+                false);
+        load.visitVarInsn(Opcodes.ALOAD, 2);
+        load.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BYTE_BUFFER, "put", "([B)" + BYTE_BUFFER_DESCRIPTOR, false);
+        load.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BYTE_BUFFER, "flip", "()" + BYTE_BUFFER_DESCRIPTOR, false);
+        load.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BYTE_BUFFER, "asReadOnlyBuffer", "()" + BYTE_BUFFER_DESCRIPTOR,
+                false);
+        load.visitInsn(Opcodes.ARETURN);
+        load.visitMaxs(0, 0);
+        load.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    // Content codings as named in HTTP; "deflate" is the zlib format
+    enum Encoding {
+        IDENTITY("", ""),
+        GZIP(".gz", "Gzip"),
+        DEFLATE(".deflate", "Deflate");
+
+        private final String suffix;
+        private final String methodSuffix;
+
+        Encoding(String suffix, String methodSuffix) {
+            this.suffix = suffix;
+            this.methodSuffix = methodSuffix;
+        }
+
+        // Compressed once at build time, so with the best compression; both streams are free of timestamps
+        private byte[] encode(byte[] content) throws IOException {
+            if (this == IDENTITY) {
+                return content;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            if (this == GZIP) {
+                try (OutputStream out = new GZIPOutputStream(bytes) {
+                    {
+                        def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }) {
+                    out.write(content);
+                }
+            } else {
+                Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+                try (OutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+                    out.write(content);
+                } finally {
+                    deflater.end();
+                }
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private record Representation(String format, String methodPrefix, String baseFileName, Encoding encoding,
+            byte[] bytes) {
+
+        String fileName() {
+            return baseFileName + encoding.suffix;
+        }
+
+        // JSON, JSON_GZIP, YAML_DEFLATE, ...
+        String fieldName() {
+            return encoding == Encoding.IDENTITY ? format : format + "_" + encoding.name();
+        }
+
+        // json(), jsonGzip(), yamlDeflate(), ...; the ETag and length methods add Etag and Length
+        String methodName() {
+            return methodPrefix + encoding.methodSuffix;
+        }
+
+        // Strong validator of exactly these bytes; truncated SHA-256 like the other hashes of the plugin
+        String etag() {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+                return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.openapispecs.generator.plugin.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Splits a spec into a root document, one document of path items per tag and one document per component schema,
+// linked by relative $refs. The root keeps openapi, info and tags, and refers to every path item and schema, so tools
+// that resolve external refs see the same spec as the unsharded one.
+//
+// Layout, relative to the root document, for a shard directory named "openapi" and the extension "yaml":
+//   openapi/paths/<Tag>.yaml       path items whose first operation tag is <Tag>, keyed by path
+//   openapi/schemas/<Name>.yaml    the component schema <Name>
+//
+// Names that differ only by case would share a file on case-insensitive filesystems, so all but the first in name
+// order get a numbered suffix, e.g. ITEM.yaml and Item-2.yaml.
+final class SpecShards {
+    static final String PATHS = "paths";
+    static final String SCHEMAS = "schemas";
+    private static final String SCHEMA_REF_PREFIX = "#/components/schemas/";
+    // Path items whose operations carry no tag
+    private static final String UNTAGGED = "default";
+
+    private final ObjectNode spec;
+    private final String directoryName;
+
+    SpecShards(ObjectNode spec, String directoryName) {
+        this.spec = spec;
+        this.directoryName = directoryName;
+    }
+
+    // Documents by path relative to the root document's directory; the root document itself is under ""
+    Map<String, JsonNode> documents(String extension) {
+        Map<String, JsonNode> documents = new LinkedHashMap<>();
+        ObjectNode root = spec.deepCopy();
+        documents.put("", root);
+
+        JsonNode components = root.get("components");
+        ObjectNode schemas = components instanceof ObjectNode componentsNode
+                && componentsNode.get("schemas") instanceof ObjectNode schemasNode ? schemasNode : null;
+        Set<String> schemaNames = new TreeSet<>();
+        if (schemas != null) {
+            schemas.fieldNames().forEachRemaining(schemaNames::add);
+        }
+        Map<String, String> schemaFiles = fileNames(schemaNames);
+
+        JsonNode paths = root.get("paths");
+        if (paths instanceof ObjectNode pathItems) {
+            Set<String> tags = new TreeSet<>();
+            pathItems.elements().forEachRemaining(pathItem -> tags.add(tagOf(pathItem)));
+            Map<String, String> tagFiles = fileNames(tags);
+            Map<String, ObjectNode> tagShards = new TreeMap<>();
+            ObjectNode pathRefs = JsonNodeFactory.instance.objectNode();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = pathItems.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String file = PATHS + "/" + tagFiles.get(tagOf(field.getValue())) + "." + extension;
+                tagShards.computeIfAbsent(file, k -> JsonNodeFactory.instance.objectNode())
+                        .set(field.getKey(), rewriteRefs(field.getValue(), "../" + SCHEMAS + "/", schemaFiles,
+                                extension));
+                pathRefs.putObject(field.getKey()).put("$ref",
+                        encode(directoryName + "/" + file) + "#/" + encode(escapePointer(field.getKey())));
+            }
+            root.set("paths", pathRefs);
+            tagShards.forEach((file, shard) -> documents.put(directoryName + "/" + file, shard));
+        }
+
+        if (schemas != null) {
+            ObjectNode schemaRefs = JsonNodeFactory.instance.objectNode();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = schemas.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String file = SCHEMAS + "/" + schemaFiles.get(field.getKey()) + "." + extension;
+                documents.put(directoryName + "/" + file, rewriteRefs(field.getValue(), "", schemaFiles, extension));
+                schemaRefs.putObject(field.getKey()).put("$ref", encode(directoryName + "/" + file));
+            }
+            ((ObjectNode) components).set("schemas", schemaRefs);
+        }
+        return documents;
+    }
+
+    // The inverse of documents: puts the path items and schemas the root document refers to back into it, with their
+    // schema refs local again. A root document without external refs, such as an unsharded spec, is left as it is.
+    static void assemble(ObjectNode root, DocumentReader reader) throws IOException {
+        Map<String, JsonNode> documents = new HashMap<>();
+        // Schema names by the file name of their shard
+        Map<String, String> schemaNames = new HashMap<>();
+        ObjectNode schemas = root.path("components").get("schemas") instanceof ObjectNode schemasNode
+                ? schemasNode
+                : null;
+        if (schemas != null) {
+            schemas.fields().forEachRemaining(field -> {
+                String ref = externalRef(field.getValue());
+                if (ref != null) {
+                    schemaNames.put(fileName(ref), field.getKey());
+                }
+            });
+        }
+        List<ObjectNode> referencing = new ArrayList<>();
+        if (root.get("paths") instanceof ObjectNode paths) {
+            referencing.add(paths);
+        }
+        if (schemas != null) {
+            referencing.add(schemas);
+        }
+        for (ObjectNode references : referencing) {
+            for (Iterator<Map.Entry<String, JsonNode>> fields = references.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String ref = externalRef(field.getValue());
+                if (ref != null) {
+                    field.setValue(restoreRefs(resolve(ref, documents, reader).deepCopy(), schemaNames));
+                }
+            }
+        }
+    }
+
+    // Reads a document by its path relative to the root document's directory
+    interface DocumentReader {
+        JsonNode read(String path) throws IOException;
+    }
+
+    // The target of a $ref to another document, still encoded; null for a local or missing ref
+    private static String externalRef(JsonNode node) {
+        JsonNode ref = node.get("$ref");
+        return ref != null && ref.isTextual() && !ref.asText().startsWith("#") ? ref.asText() : null;
+    }
+
+    private static JsonNode resolve(String ref, Map<String, JsonNode> documents, DocumentReader reader)
+            throws IOException {
+        int fragmentStart = ref.indexOf('#');
+        String file = decode(fragmentStart < 0 ? ref : ref.substring(0, fragmentStart));
+        JsonNode document = documents.get(file);
+        if (document == null) {
+            document = reader.read(file);
+            documents.put(file, document);
+        }
+        JsonNode node = fragmentStart < 0 ? document : document.at(decode(ref.substring(fragmentStart + 1)));
+        if (node.isMissingNode()) {
+            throw new IOException("Cannot resolve $ref " + ref);
+        }
+        return node;
+    }
+
+    private static JsonNode restoreRefs(JsonNode node, Map<String, String> schemaNames) {
+        if (node instanceof ObjectNode object) {
+            String ref = externalRef(object);
+            if (ref != null && schemaNames.containsKey(fileName(ref))) {
+                object.put("$ref", SCHEMA_REF_PREFIX + schemaNames.get(fileName(ref)));
+            }
+        }
+        for (JsonNode child : node) {
+            restoreRefs(child, schemaNames);
+        }
+        return node;
+    }
+
+    // Decoded last segment of a ref without fragment, e.g. Item.yaml for ../schemas/Item.yaml
+    private static String fileName(String ref) {
+        String file = decode(ref.indexOf('#') < 0 ? ref : ref.substring(0, ref.indexOf('#')));
+        return file.substring(file.lastIndexOf('/') + 1);
+    }
+
+    // File name, without extension, of each name; unique ignoring case. Suffixed names skip the names taken as they
+    // are, so a schema actually named Item-2 keeps its file.
+    private static Map<String, String> fileNames(Set<String> names) {
+        Map<String, String> fileNames = new TreeMap<>();
+        Set<String> taken = new HashSet<>();
+        List<String> clashing = new ArrayList<>();
+        for (String name : names) {
+            if (taken.add(name.toLowerCase(Locale.ROOT))) {
+                fileNames.put(name, name);
+            } else {
+                clashing.add(name);
+            }
+        }
+        for (String name : clashing) {
+            String fileName = name;
+            for (int suffix = 2; !taken.add(fileName.toLowerCase(Locale.ROOT)); suffix++) {
+                fileName = name + "-" + suffix;
+            }
+            fileNames.put(name, fileName);
+        }
+        return fileNames;
+    }
+
+    // Path items of several controllers go with the first tag in name order
+    private static String tagOf(JsonNode pathItem) {
+        String tag = null;
+        for (JsonNode operation : pathItem) {
+            for (JsonNode operationTag : operation.path("tags")) {
+                if (tag == null || operationTag.asText().compareTo(tag) < 0) {
+                    tag = operationTag.asText();
+                }
+            }
+        }
+        return tag != null ? tag : UNTAGGED;
+    }
+
+    // Points local schema refs at the schema documents, relative to the document the node ends up in
+    private static JsonNode rewriteRefs(JsonNode node, String schemaDirectory, Map<String, String> schemaFiles,
+            String extension) {
+        if (node instanceof ObjectNode object) {
+            JsonNode ref = object.get("$ref");
+            if (ref != null && ref.isTextual() && ref.asText().startsWith(SCHEMA_REF_PREFIX)) {
+                String name = ref.asText().substring(SCHEMA_REF_PREFIX.length());
+                object.put("$ref", encode(schemaDirectory + schemaFiles.getOrDefault(name, name) + "." + extension));
+            }
+        }
+        for (JsonNode child : node) {
+            rewriteRefs(child, schemaDirectory, schemaFiles, extension);
+        }
+        return node;
+    }
+
+    // RFC 6901: "~" and "/" in a path key
+    private static String escapePointer(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    // Percent-encodes what may not appear unescaped in a URI path or fragment, e.g. the braces of path templates
+    private static String encode(String reference) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : reference.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if (c < 0x80 && (Character.isLetterOrDigit(c) || "-._~!$&'()*+,;=:@/".indexOf(c) >= 0)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    // The inverse of encode
+    private static String decode(String reference) {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+            if (c == '%' && i + 2 < reference.length()) {
+                decoded.write(Integer.parseInt(reference, i + 1, i + 3, 16));
+                i += 2;
+            } else {
+                decoded.writeBytes(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return decoded.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,224 @@
+package com.openapispecs.generator.plugin.output;
+
+import com.openapispecs.generator.plugin.diff.SpecSummary;
+import com.openapispecs.generator.plugin.parser.OpenApiBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Info;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Writes the spec in each configured format. YAML keeps the configured file name; the other formats replace its
+// extension. Files whose content is unchanged are not rewritten.
+//
+// Sharded, the configured file holds the root document and the shards go to a directory named like it without the
+// extension (see SpecShards). Shards of every format are written concurrently. The shards written are listed in a
+// manifest in that directory, and the next generation deletes the listed ones no longer part of the spec; other files
+// in the directory are never touched, as it may well be one the build uses for something else.
+public class SpecWriter {
+    // Hidden, as temporary files are, so it is never taken for a shard
+    private static final String SHARD_MANIFEST = ".shards";
+
+    private final Map<OutputFormat, Path> files = new EnumMap<>(OutputFormat.class);
+    private final Map<OutputFormat, ObjectMapper> mappers = new EnumMap<>(OutputFormat.class);
+    private final Path shardDirectory;
+    private final OutputFormat.Serializers serializers;
+
+    public SpecWriter(Path directory, String outputFileName, Collection<OutputFormat> formats) {
+        this(directory, outputFileName, formats, false);
+    }
+
+    public SpecWriter(Path directory, String outputFileName, Collection<OutputFormat> formats, boolean sharded) {
+        this(directory, outputFileName, formats, sharded, OutputFormat.Serializers.BEAN);
+    }
+
+    public SpecWriter(Path directory, String outputFileName, Collection<OutputFormat> formats, boolean sharded,
+            OutputFormat.Serializers serializers) {
+        this.serializers = serializers;
+        int extensionStart = outputFileName.lastIndexOf('.');
+        String baseName = extensionStart > 0 ? outputFileName.substring(0, extensionStart) : outputFileName;
+        this.shardDirectory = sharded ? directory.resolve(baseName).toAbsolutePath() : null;
+        for (OutputFormat format : EnumSet.copyOf(formats)) {
+            files.put(format, directory.resolve(format == OutputFormat.YAML
+                    ? outputFileName
+                    : baseName + "." + format.getExtension()));
+            mappers.put(format, format.createMapper(serializers));
+        }
+    }
+
+    public Collection<Path> getFiles() {
+        return files.values();
+    }
+
+    // Null unless sharded
+    public Path getShardDirectory() {
+        return shardDirectory;
+    }
+
+    // Serializes the finished model once per format, all formats in parallel.
+    public List<WrittenFile> write(OpenAPI openAPI) throws IOException {
+        if (shardDirectory != null) {
+            return writeSharded(openAPI);
+        }
+        try {
+            return files.keySet().parallelStream().map(format -> {
+                try (AtomicFile file = new AtomicFile(files.get(format))) {
+                    try (OutputStream out = format.wrap(file.openStream())) {
+                        mappers.get(format).writeValue(out, openAPI);
+                    }
+                    return new WrittenFile(files.get(format), file.commit());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Streams the spec into every format at once while the builder produces it. The summary, if any, is filled in
+    // with what was written.
+    public List<WrittenFile> write(Info info, OpenApiBuilder builder, Set<Class<?>> controllers,
+            Set<Class<?>> controllerAdvices, SpecSummary summary) throws IOException {
+        List<OutputFormat> formats = new ArrayList<>(files.keySet());
+        List<AtomicFile> atomicFiles = new ArrayList<>();
+        List<JsonGenerator> generators = new ArrayList<>();
+        try {
+            for (OutputFormat format : formats) {
+                AtomicFile file = new AtomicFile(files.get(format));
+                atomicFiles.add(file);
+                generators.add(mappers.get(format).createGenerator(format.wrap(file.openStream())));
+            }
+            new StreamingSpecWriter(generators, serializers).write(info, builder, controllers, controllerAdvices, summary);
+            for (JsonGenerator generator : generators) {
+                generator.close();
+            }
+
+            List<WrittenFile> written = new ArrayList<>();
+            for (int i = 0; i < formats.size(); i++) {
+                written.add(new WrittenFile(files.get(formats.get(i)), atomicFiles.get(i).commit()));
+            }
+            return written;
+        } finally {
+            for (JsonGenerator generator : generators) {
+                generator.close();
+            }
+            for (AtomicFile file : atomicFiles) {
+                file.close();
+            }
+        }
+    }
+
+    // Reads back the spec from the file of the first format that has one, with its shards put back into it. Returns
+    // null when there is no file.
+    public OpenAPI read() throws IOException {
+        for (Map.Entry<OutputFormat, Path> file : files.entrySet()) {
+            if (!Files.isRegularFile(file.getValue())) {
+                continue;
+            }
+            ObjectMapper mapper = file.getKey().createMapper()
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+            JsonNode spec = readTree(file.getKey(), mapper, file.getValue());
+            if (spec instanceof ObjectNode root) {
+                SpecShards.assemble(root, shard -> readTree(file.getKey(), mapper,
+                        file.getValue().resolveSibling(shard)));
+            }
+            return mapper.treeToValue(spec, OpenAPI.class);
+        }
+        return null;
+    }
+
+    private static JsonNode readTree(OutputFormat format, ObjectMapper mapper, Path file) throws IOException {
+        try (InputStream in = format.unwrap(Files.newInputStream(file))) {
+            return mapper.readTree(in);
+        }
+    }
+
+    private List<WrittenFile> writeSharded(OpenAPI openAPI) throws IOException {
+        // Numbers must keep the form the unsharded spec writes them in, e.g. 120 rather than 1.2E+2
+        ObjectMapper treeMapper = mappers.values().iterator().next().copy()
+                .configure(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES, false);
+        SpecShards shards = new SpecShards(treeMapper.valueToTree(openAPI), shardDirectory.getFileName().toString());
+        List<Document> documents = new ArrayList<>();
+        files.forEach((format, rootFile) -> shards.documents(format.getExtension()).forEach((file, content) ->
+                documents.add(new Document(format, file.isEmpty() ? rootFile : rootFile.resolveSibling(file),
+                        content))));
+
+        List<WrittenFile> written;
+        try {
+            written = documents.parallelStream().map(document -> {
+                try (AtomicFile file = new AtomicFile(document.path())) {
+                    try (OutputStream out = document.format().wrap(file.openStream())) {
+                        mappers.get(document.format()).writeValue(out, document.content());
+                    }
+                    return new WrittenFile(document.path(), file.commit());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        deleteStaleShards(written);
+        return written;
+    }
+
+    // Shards of tags and schemas that no longer exist, in any format, then the manifest of the current ones
+    private void deleteStaleShards(List<WrittenFile> written) throws IOException {
+        Path directory = shardDirectory.normalize();
+        Set<String> current = new TreeSet<>();
+        for (WrittenFile file : written) {
+            Path path = file.path().toAbsolutePath().normalize();
+            if (path.startsWith(directory)) {
+                current.add(directory.relativize(path).toString().replace('\\', '/'));
+            }
+        }
+        // A shard renamed only by case is the same file on a case-insensitive filesystem
+        Set<String> currentIgnoringCase = new HashSet<>();
+        current.forEach(name -> currentIgnoringCase.add(name.toLowerCase(Locale.ROOT)));
+        Path manifest = directory.resolve(SHARD_MANIFEST);
+        if (Files.isRegularFile(manifest)) {
+            for (String listed : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                Path file = directory.resolve(listed).normalize();
+                // Only what a previous generation wrote below the shard directory
+                if (!listed.isBlank() && !currentIgnoringCase.contains(listed.toLowerCase(Locale.ROOT))
+                        && file.startsWith(directory) && !file.equals(directory)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        try (AtomicFile file = new AtomicFile(manifest)) {
+            try (OutputStream out = file.openStream()) {
+                out.write(String.join("\n", current).concat("\n").getBytes(StandardCharsets.UTF_8));
+            }
+            file.commit();
+        }
+    }
+
+    private record Document(OutputFormat format, Path path, JsonNode content) {
+    }
+
+    public record WrittenFile(Path path, boolean changed) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.openapispecs.generator.plugin.output;
+
+import com.openapispecs.generator.plugin.diff.SpecSummary;
+import com.openapispecs.generator.plugin.parser.ControllerTags;
+import com.openapispecs.generator.plugin.parser.OpenApiBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Writes the spec while it is being built. Each path item is written as soon as the last controller contributing to
+// it has been processed and then dropped, so only the component schemas are held until the end. Path items appear in
+// the order they complete rather than the order the in-memory model would list them; the content is the same.
+// Every event goes to all generators, one per output format.
+public class StreamingSpecWriter {
+    private final List<JsonGenerator> generators;
+    private final OutputFormat.Serializers serializers;
+    private SpecSummary summary;
+
+    public StreamingSpecWriter(List<JsonGenerator> generators) {
+        this(generators, OutputFormat.Serializers.BEAN);
+    }
+
+    // The generators' mappers must use the given serializers; with PRECOMPILED the tags follow the components, in
+    // the specification's order
+    public StreamingSpecWriter(List<JsonGenerator> generators, OutputFormat.Serializers serializers) {
+        this.generators = generators;
+        this.serializers = serializers;
+    }
+
+    // The summary, if any, receives every path item and component schema written
+    public void write(Info info, OpenApiBuilder builder, Set<Class<?>> controllers, Set<Class<?>> controllerAdvices,
+            SpecSummary summary) throws IOException {
+        this.summary = summary;
+        // Count the controllers mapping each path, and collect the tags, before anything is built
+        Map<String, Integer> remainingControllers = new HashMap<>();
+        Set<String> tagNames = new TreeSet<>();
+        for (Class<?> controller : controllers) {
+            Set<String> paths = builder.findPaths(controller);
+            paths.forEach(path -> remainingControllers.merge(path, 1, Integer::sum));
+            if (!paths.isEmpty()) {
+                tagNames.add(controller.getSimpleName());
+            }
+        }
+
+        for (JsonGenerator generator : generators) {
+            generator.writeStartObject();
+            generator.writeStringField("openapi", new OpenAPI().getOpenapi());
+        }
+        writeField("info", info);
+        boolean tagsLast = serializers == OutputFormat.Serializers.PRECOMPILED;
+        if (!tagsLast) {
+            writeTags(tagNames);
+        }
+
+        for (JsonGenerator generator : generators) {
+            generator.writeObjectFieldStart("paths");
+        }
+        Map<String, PathItem> pendingPaths = new HashMap<>();
+        try {
+            builder.build(controllers, controllerAdvices, (controller, fragment) ->
+                    fragment.paths().forEach((path, fragmentItem) -> {
+                        ControllerTags.apply(fragmentItem);
+                        PathItem pathItem = pendingPaths.computeIfAbsent(path, k -> new PathItem());
+                        fragmentItem.readOperationsMap().forEach(pathItem::operation);
+                        if (remainingControllers.merge(path, -1, Integer::sum) == 0) {
+                            try {
+                                writePath(path, pendingPaths.remove(path));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // Only reached if the pre-pass missed a controller of a path; write whatever is left
+        for (Map.Entry<String, PathItem> pending : new TreeMap<>(pendingPaths).entrySet()) {
+            writePath(pending.getKey(), pending.getValue());
+        }
+        for (JsonGenerator generator : generators) {
+            generator.writeEndObject();
+        }
+
+        Components components = new Components().schemas(builder.getComponentSchemas());
+        if (summary != null) {
+            components.getSchemas().forEach(summary::addSchema);
+        }
+        writeField("components", components);
+        if (tagsLast) {
+            writeTags(tagNames);
+        }
+        for (JsonGenerator generator : generators) {
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeTags(Set<String> tagNames) throws IOException {
+        if (!tagNames.isEmpty()) {
+            List<Tag> tags = new ArrayList<>();
+            tagNames.forEach(name -> tags.add(new Tag().name(name)));
+            writeField("tags", tags);
+        }
+    }
+
+    private void writePath(String path, PathItem pathItem) throws IOException {
+        if (summary != null) {
+            summary.addPath(path, pathItem);
+        }
+        writeField(path, pathItem);
+    }
+
+    private void writeField(String name, Object value) throws IOException {
+        for (JsonGenerator generator : generators) {
+            generator.writeObjectField(name, value);
+        }
+    }
+}
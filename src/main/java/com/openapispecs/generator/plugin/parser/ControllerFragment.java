@@ -0,0 +1,14 @@
+package com.openapispecs.generator.plugin.parser;
+
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.util.Map;
+import java.util.Set;
+
+// Everything one controller contributes to the spec: its operations, the component schemas they reach (keyed by
+// schema name, with the class each one was built from), and the names of the classes the fragment was derived from.
+@SuppressWarnings("rawtypes")
+public record ControllerFragment(Paths paths, Map<String, Schema> schemas, Map<String, String> schemaTypes,
+        Set<String> dependencies) {
+}
@@ -0,0 +1,54 @@
+package com.openapispecs.generator.plugin.parser;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.tags.Tag;
+
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Tags operations with the name of their controller, taken from the "Controller.method" operationId.
+public final class ControllerTags {
+
+    private ControllerTags() {
+    }
+
+    public static void apply(OpenAPI openAPI) {
+        if (openAPI.getPaths() == null) {
+            return;
+        }
+        openAPI.getPaths().forEach((path, pathItem) -> {
+            for (String controllerName : apply(pathItem)) {
+                // Add top-level tag if not present
+                if (openAPI.getTags() == null
+                        || openAPI.getTags().stream().noneMatch(t -> t.getName().equals(controllerName))) {
+                    openAPI.addTagsItem(new Tag().name(controllerName));
+                }
+            }
+        });
+
+        // Sort tags for consistent output
+        if (openAPI.getTags() != null) {
+            openAPI.getTags().sort(Comparator.comparing(Tag::getName));
+        }
+    }
+
+    // Tags the operations of one path item and returns the controller names used.
+    public static Set<String> apply(PathItem pathItem) {
+        Set<String> controllerNames = new LinkedHashSet<>();
+        pathItem.readOperations().forEach(operation -> {
+            String operationId = operation.getOperationId();
+            if (operationId != null && operationId.contains(".")) {
+                String controllerName = operationId.substring(0, operationId.indexOf("."));
+                controllerNames.add(controllerName);
+
+                // Add tag to the operation
+                if (operation.getTags() == null || !operation.getTags().contains(controllerName)) {
+                    operation.addTagsItem(controllerName);
+                }
+            }
+        });
+        return controllerNames;
+    }
+}
@@ -0,0 +1,165 @@
+package com.openapispecs.generator.plugin.parser;
+
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Resolves the generic types the builder meets into canonical ones, with every type variable bound through the
+// superclasses, interfaces and enclosing parameterized types that reached it: T of a handler inherited from
+// BaseController<T>, or of a field of Page<T> reached through Page<Tutorial>.
+//
+// A canonical type is a Class, a Resolved parameterized type whose arguments are canonical, or a ResolvedArray of one.
+// Type variables that nothing binds and wildcards become their bound; a variable in its own bound becomes the erasure
+// of that bound, so <T extends Comparable<T>> T is Comparable<Comparable>. Canonical types are equal when they
+// denote the same type, so they key the builder's caches, and every parameterization of a class gets its own schema.
+final class GenericTypes {
+    // Canonical type -> its fields and their types, resolved once per raw class and type arguments
+    private final Map<Type, List<ResolvedField>> fields = new ConcurrentHashMap<>();
+
+    static Type returnType(Method method, Class<?> implementation) {
+        return canonical(ResolvableType.forMethodReturnType(method, implementation));
+    }
+
+    static Type parameterType(Method method, int index, Class<?> implementation) {
+        return canonical(ResolvableType.forMethodParameter(method, index, implementation));
+    }
+
+    static Type canonical(Type type) {
+        return isCanonical(type) ? type : canonical(ResolvableType.forType(type));
+    }
+
+    static Type canonical(ResolvableType type) {
+        return canonical(type, new HashSet<>());
+    }
+
+    // The variables being resolved are tracked: one met again inside its own bound, as T in
+    // T extends Comparable<T>, is taken as the erasure of that bound instead of being expanded without end
+    private static Type canonical(ResolvableType type, Set<TypeVariable<?>> resolving) {
+        if (type == ResolvableType.NONE) {
+            return Object.class;
+        }
+        if (type.getType() instanceof TypeVariable<?> variable) {
+            if (!resolving.add(variable)) {
+                return type.resolve(Object.class);
+            }
+            try {
+                return canonicalResolved(type, resolving);
+            } finally {
+                resolving.remove(variable);
+            }
+        }
+        return canonicalResolved(type, resolving);
+    }
+
+    private static Type canonicalResolved(ResolvableType type, Set<TypeVariable<?>> resolving) {
+        // A raw use of a generic class stays raw
+        if (type.getType() instanceof Class<?> clazz) {
+            return clazz;
+        }
+        if (type.isArray()) {
+            Type component = canonical(type.getComponentType(), resolving);
+            return component instanceof Class<?> clazz ? clazz.arrayType() : new ResolvedArray(component);
+        }
+        Class<?> raw = type.resolve(Object.class);
+        ResolvableType[] generics = type.getGenerics();
+        if (raw.getTypeParameters().length == 0 || generics.length != raw.getTypeParameters().length) {
+            return raw;
+        }
+        List<Type> arguments = new ArrayList<>(generics.length);
+        for (ResolvableType generic : generics) {
+            arguments.add(canonical(generic, resolving));
+        }
+        return new Resolved(raw, arguments);
+    }
+
+    // Instance fields of the type and its superclasses outside the JDK, superclass fields first, each with its type
+    // as seen from the given canonical type
+    List<ResolvedField> fields(Type type) {
+        return fields.computeIfAbsent(type, owner -> {
+            ResolvableType ownerType = ResolvableType.forType(owner);
+            Deque<Class<?>> hierarchy = new ArrayDeque<>();
+            for (Class<?> clazz = ownerType.resolve(Object.class); clazz != null && clazz != Object.class
+                    && !clazz.getName().startsWith("java."); clazz = clazz.getSuperclass()) {
+                hierarchy.push(clazz);
+            }
+            List<ResolvedField> resolved = new ArrayList<>();
+            for (Class<?> clazz : hierarchy) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        resolved.add(new ResolvedField(field, canonical(ResolvableType.forField(field, ownerType))));
+                    }
+                }
+            }
+            return List.copyOf(resolved);
+        });
+    }
+
+    private static boolean isCanonical(Type type) {
+        return type instanceof Class<?> || type instanceof Resolved || type instanceof ResolvedArray;
+    }
+
+    record ResolvedField(Field field, Type type) {
+    }
+
+    // Type names as in source, e.g. com.acme.Page<com.acme.Tutorial>, so resolved types read like the declared ones
+    record Resolved(Class<?> raw, List<Type> arguments) implements ParameterizedType {
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return arguments.toArray(new Type[0]);
+        }
+
+        @Override
+        public Type getRawType() {
+            return raw;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return null;
+        }
+
+        @Override
+        public String getTypeName() {
+            return raw.getName() + arguments.stream().map(Type::getTypeName).collect(Collectors.joining(",", "<", ">"));
+        }
+
+        @Override
+        public String toString() {
+            return getTypeName();
+        }
+    }
+
+    record ResolvedArray(Type component) implements GenericArrayType {
+
+        @Override
+        public Type getGenericComponentType() {
+            return component;
+        }
+
+        @Override
+        public String getTypeName() {
+            return component.getTypeName() + "[]";
+        }
+
+        @Override
+        public String toString() {
+            return getTypeName();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.openapispecs.generator.plugin.parser;
+
+import com.openapispecs.generator.plugin.scanner.ClassFiles;
+import com.openapispecs.generator.plugin.scanner.IndexedClass;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// What AnnotatedElementUtils finds on loaded classes, read from class files: annotations declared directly or through
+// composed annotations such as @GetMapping, with the attributes a composed annotation overrides through @AliasFor, on
+// a type and its supertypes or on a method and the methods it overrides. The annotation processor's AnnotationMirrors
+// applies the same rules to the compiler's model.
+//
+// Attribute values are those of IndexedClass, defaults included.
+final class IndexedAnnotations {
+    private static final String ALIAS_FOR = "org.springframework.core.annotation.AliasFor";
+
+    private final ClassFiles classFiles;
+
+    IndexedAnnotations(ClassFiles classFiles) {
+        this.classFiles = classFiles;
+    }
+
+    // The annotation declared directly, or null
+    static IndexedClass.Annotation find(List<IndexedClass.Annotation> annotations, String annotationType) {
+        for (IndexedClass.Annotation annotation : annotations) {
+            if (annotation.type().equals(annotationType)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    // The values set on the annotation over the defaults of its type, in the order the type declares its attributes
+    Map<String, Object> values(IndexedClass.Annotation annotation) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        IndexedClass annotationType = classFiles.find(annotation.type());
+        if (annotationType != null) {
+            for (IndexedClass.Method attribute : annotationType.methods()) {
+                Object value = annotation.values().containsKey(attribute.name())
+                        ? annotation.values().get(attribute.name())
+                        : attribute.defaultValue();
+                if (value != null) {
+                    values.put(attribute.name(), value);
+                }
+            }
+        }
+        annotation.values().forEach(values::putIfAbsent);
+        return values;
+    }
+
+    // The merged annotation among the given ones, or null
+    Map<String, Object> findMerged(List<IndexedClass.Annotation> annotations, String annotationType) {
+        for (IndexedClass.Annotation annotation : annotations) {
+            Map<String, Object> merged = merge(annotation, annotationType, new HashSet<>());
+            if (merged != null) {
+                return merged;
+            }
+        }
+        return null;
+    }
+
+    // The merged annotation on the type, or else the closest of its superclasses and interfaces, or null
+    Map<String, Object> findMergedOnHierarchy(IndexedClass type, String annotationType) {
+        Deque<IndexedClass> pending = new ArrayDeque<>(List.of(type));
+        Set<String> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            IndexedClass current = pending.poll();
+            if (!visited.add(current.name())) {
+                continue;
+            }
+            Map<String, Object> merged = findMerged(current.annotations(), annotationType);
+            if (merged != null) {
+                return merged;
+            }
+            pending.addAll(supertypes(current));
+        }
+        return null;
+    }
+
+    // The merged annotation on the method, or else on the closest of the given methods it overrides, or null
+    Map<String, Object> findMergedOnMethod(IndexedClass.Method method, List<IndexedClass.Method> overridden,
+            String annotationType) {
+        Map<String, Object> merged = findMerged(method.annotations(), annotationType);
+        for (int i = 0; merged == null && i < overridden.size(); i++) {
+            merged = findMerged(overridden.get(i).annotations(), annotationType);
+        }
+        return merged;
+    }
+
+    // The superclass and interfaces that have class files
+    List<IndexedClass> supertypes(IndexedClass type) {
+        List<IndexedClass> supertypes = new ArrayList<>();
+        if (type.superName() != null) {
+            IndexedClass superclass = classFiles.find(type.superName());
+            if (superclass != null) {
+                supertypes.add(superclass);
+            }
+        }
+        for (String interfaceName : type.interfaces()) {
+            IndexedClass superinterface = classFiles.find(interfaceName);
+            if (superinterface != null) {
+                supertypes.add(superinterface);
+            }
+        }
+        return supertypes;
+    }
+
+    // The attributes of the annotation type when the annotation is, or is composed of, one
+    private Map<String, Object> merge(IndexedClass.Annotation annotation, String annotationType,
+            Set<String> visited) {
+        String name = annotation.type();
+        if (name.equals(annotationType)) {
+            return values(annotation);
+        }
+        if (name.startsWith("java.lang.annotation.") || !visited.add(name)) {
+            return null;
+        }
+        IndexedClass composed = classFiles.find(name);
+        if (composed == null) {
+            return null;
+        }
+        for (IndexedClass.Annotation meta : composed.annotations()) {
+            Map<String, Object> merged = merge(meta, annotationType, visited);
+            if (merged == null) {
+                continue;
+            }
+            // Attributes set on the composed annotation replace the ones they are aliases for. An alias for an
+            // attribute of an intermediate composed annotation is taken to have the same name on the target.
+            annotation.values().forEach((attributeName, value) -> {
+                IndexedClass.Method attribute = composed.attribute(attributeName);
+                IndexedClass.Annotation aliasFor = attribute != null ? find(attribute.annotations(), ALIAS_FOR) : null;
+                if (aliasFor == null) {
+                    return;
+                }
+                Map<String, Object> alias = values(aliasFor);
+                String targetType = (String) alias.getOrDefault("annotation", name);
+                if (targetType.equals(name) || targetType.equals("java.lang.annotation.Annotation")) {
+                    return;
+                }
+                String target = (String) alias.getOrDefault("attribute", "");
+                if (target.isEmpty()) {
+                    target = (String) alias.getOrDefault("value", "");
+                }
+                if (target.isEmpty()) {
+                    target = attributeName;
+                }
+                merged.put(target, value);
+            });
+            return merged;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,846 @@
+package com.openapispecs.generator.plugin.parser;
+
+import com.openapispecs.generator.plugin.scanner.ClassFiles;
+import com.openapispecs.generator.plugin.scanner.IndexedClass;
+import com.openapispecs.generator.plugin.scanner.IndexedType;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.IntegerSchema;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.NumberSchema;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+import org.springframework.asm.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Builds the operations of controllers, and the schemas they use, from their class files, with the rules
+// OpenApiBuilder applies to loaded classes: the same mappings, parameters, responses, error responses and schemas,
+// registered under the same type names, e.g. com.acme.Page<com.acme.Tutorial>. Type variables are bound through the
+// generic signatures of superclasses, interfaces and fields as GenericTypes binds them. OpenApiBuilder then names the
+// schemas and assembles the spec, so no controller, DTO or exception class is loaded.
+final class IndexedSpecBuilder {
+    private static final String WEB = "org.springframework.web.bind.annotation.";
+    private static final String REQUEST_MAPPING = WEB + "RequestMapping";
+    private static final String REQUEST_BODY = WEB + "RequestBody";
+    private static final String PATH_VARIABLE = WEB + "PathVariable";
+    private static final String REQUEST_PARAM = WEB + "RequestParam";
+    private static final String REQUEST_HEADER = WEB + "RequestHeader";
+    private static final String RESPONSE_STATUS = WEB + "ResponseStatus";
+    private static final String EXCEPTION_HANDLER = WEB + "ExceptionHandler";
+    private static final String ORDER = "org.springframework.core.annotation.Order";
+    private static final String CONSTRAINTS = "jakarta.validation.constraints.";
+    private static final String SIZE = CONSTRAINTS + "Size";
+    private static final String MIN = CONSTRAINTS + "Min";
+    private static final String MAX = CONSTRAINTS + "Max";
+    private static final String PATTERN = CONSTRAINTS + "Pattern";
+    private static final String NOT_EMPTY = CONSTRAINTS + "NotEmpty";
+    private static final String NOT_BLANK = CONSTRAINTS + "NotBlank";
+    private static final String NOT_NULL = CONSTRAINTS + "NotNull";
+    // As OpenApiBuilder.SCHEMA_CONSTRAINTS
+    private static final List<String> SCHEMA_CONSTRAINTS = List.of(SIZE, MIN, MAX, PATTERN, NOT_EMPTY, NOT_BLANK);
+    private static final String APPLICATION_JSON = "application/json";
+    private static final IndexedType VOID = new IndexedType.PrimitiveType("void");
+
+    private final ClassFiles classFiles;
+    private final IndexedAnnotations annotations;
+    // Schemas by the type name they are referenced by, filled in once their fields are
+    @SuppressWarnings("rawtypes")
+    private final Map<String, Schema> schemas = new LinkedHashMap<>();
+    private final Map<String, Schema<?>> schemaCache = new HashMap<>();
+    // Type variables bound by a canonical type and its supertypes, by the type's name
+    private final Map<String, Map<String, IndexedType>> bindings = new HashMap<>();
+    private final Map<String, Boolean> subclasses = new HashMap<>();
+    // Advice handlers in the order Spring consults them, and the exception types they handle by binary name
+    private final List<List<ExceptionHandlerMethod>> adviceHandlers = new ArrayList<>();
+    private final Set<String> adviceExceptionTypes = new LinkedHashSet<>();
+    private Map<String, ApiResponse> globalErrorResponses = Map.of();
+
+    IndexedSpecBuilder(ClassFiles classFiles) {
+        this.classFiles = classFiles;
+        this.annotations = new IndexedAnnotations(classFiles);
+    }
+
+    @SuppressWarnings("rawtypes")
+    Map<String, Schema> getSchemas() {
+        return schemas;
+    }
+
+    void processControllerAdvice(Set<String> controllerAdvices) {
+        // Spring consults advices in @Order order; ties are broken by name to keep the output stable
+        List<IndexedClass> orderedAdvices = controllerAdvices.stream()
+                .map(classFiles::get)
+                .sorted(Comparator.comparingInt(this::order).thenComparing(IndexedClass::name))
+                .toList();
+        for (IndexedClass advice : orderedAdvices) {
+            List<ExceptionHandlerMethod> handlers = exceptionHandlers(advice);
+            if (!handlers.isEmpty()) {
+                adviceHandlers.add(handlers);
+                handlers.forEach(handler -> adviceExceptionTypes.addAll(handler.exceptionTypes()));
+            }
+        }
+        globalErrorResponses = resolveErrorResponses(List.of());
+    }
+
+    Paths processController(String controllerName) {
+        IndexedClass controller = classFiles.get(controllerName);
+        MappingDescriptor controllerMapping = mapping(annotations.findMergedOnHierarchy(controller,
+                REQUEST_MAPPING));
+
+        // Controllers without their own @ExceptionHandler methods share the advices' error responses
+        List<ExceptionHandlerMethod> localHandlers = exceptionHandlers(controller);
+        Map<String, ApiResponse> errorResponses = localHandlers.isEmpty()
+                ? globalErrorResponses
+                : resolveErrorResponses(localHandlers);
+
+        Paths paths = new Paths();
+        for (Member method : sortedMethods(controller)) {
+            MappingDescriptor mapping = mapping(findMergedOnMethod(method, REQUEST_MAPPING));
+            if (!mapping.isMapped()) {
+                continue;
+            }
+            MappingDescriptor combined = mapping.within(controllerMapping);
+            if (combined.httpMethods().isEmpty()) {
+                continue;
+            }
+            // Operation ids after the first are numbered, since they must be unique within the spec
+            int operations = 0;
+            for (String path : combined.paths()) {
+                for (PathItem.HttpMethod httpMethod : combined.httpMethods()) {
+                    Operation operation = createOperation(controller, method, combined, httpMethod, errorResponses);
+                    if (operations > 0) {
+                        operation.setOperationId(operation.getOperationId() + "_" + operations);
+                    }
+                    operations++;
+                    paths.computeIfAbsent(path, k -> new PathItem()).operation(httpMethod, operation);
+                }
+            }
+        }
+        return paths;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MappingDescriptor mapping(Map<String, Object> requestMapping) {
+        if (requestMapping == null) {
+            return MappingDescriptor.NONE;
+        }
+        // "path" and "value" are aliases; Spring requires them to agree when both are set
+        Set<String> paths = new LinkedHashSet<>((List<String>) requestMapping.get("path"));
+        paths.addAll((List<String>) requestMapping.get("value"));
+        return MappingDescriptor.of(List.copyOf(paths), (List<String>) requestMapping.get("method"),
+                (List<String>) requestMapping.get("produces"), (List<String>) requestMapping.get("consumes"));
+    }
+
+    // The type's own and inherited methods, as MethodIntrospector selects them: the most specific declaration of each
+    // signature, found in the class and its superclasses before the interfaces, without bridge or synthetic methods
+    // and without those of Object. Sorted as OpenApiBuilder sorts them: by name, then by the Class.toString() of
+    // their parameter types.
+    private List<Member> sortedMethods(IndexedClass type) {
+        Map<String, Member> methods = new LinkedHashMap<>();
+        List<IndexedClass> interfaces = new ArrayList<>();
+        for (IndexedClass current = type; current != null && !current.name().equals(Object.class.getName());
+                current = current.superName() != null ? classFiles.find(current.superName()) : null) {
+            addMethods(current, methods);
+            interfaces.addAll(annotations.supertypes(current).stream().filter(IndexedClass::isInterface).toList());
+        }
+        Set<String> visited = new HashSet<>();
+        while (!interfaces.isEmpty()) {
+            IndexedClass current = interfaces.remove(0);
+            if (visited.add(current.name())) {
+                addMethods(current, methods);
+                interfaces.addAll(annotations.supertypes(current));
+            }
+        }
+        return methods.values().stream()
+                .filter(member -> !member.method().isCompilerGenerated())
+                .sorted(Comparator.comparing((Member member) -> member.method().name())
+                        .thenComparing(member -> parameterClassNames(member.method())))
+                .toList();
+    }
+
+    // Private methods are never overridden, and of a bridge method and the method it bridges, declared together,
+    // the latter counts
+    private static void addMethods(IndexedClass type, Map<String, Member> methods) {
+        for (IndexedClass.Method method : type.methods()) {
+            if (method.isConstructor()) {
+                continue;
+            }
+            String parameters = method.descriptor().substring(0, method.descriptor().indexOf(')') + 1);
+            String key = method.isPrivate() ? type.name() + "#" + method.name() + parameters
+                    : method.name() + parameters;
+            Member existing = methods.get(key);
+            if (existing == null || existing.owner() == type && existing.method().isCompilerGenerated()
+                    && !method.isCompilerGenerated()) {
+                methods.put(key, new Member(type, method));
+            }
+        }
+    }
+
+    // As Class.toString(): "int", "class java.lang.String", "interface java.util.List", "class [Ljava.lang.String;"
+    private String parameterClassNames(IndexedClass.Method method) {
+        List<String> names = new ArrayList<>();
+        for (Type type : Type.getArgumentTypes(method.descriptor())) {
+            names.add(switch (type.getSort()) {
+                case Type.ARRAY -> "class " + type.getDescriptor().replace('/', '.');
+                case Type.OBJECT -> {
+                    IndexedClass parameterClass = classFiles.find(type.getClassName());
+                    yield (parameterClass != null && parameterClass.isInterface() ? "interface " : "class ")
+                            + type.getClassName();
+                }
+                default -> type.getClassName();
+            });
+        }
+        return names.stream().collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private Map<String, Object> findMergedOnMethod(Member method, String annotationType) {
+        return annotations.findMergedOnMethod(method.method(), overriddenMethods(method), annotationType);
+    }
+
+    // Methods of the superclasses and interfaces of the declaring type that the method overrides, closest first: the
+    // same name, and parameter types that erase to the method's once bound as the declaring type binds them
+    private List<IndexedClass.Method> overriddenMethods(Member method) {
+        List<IndexedClass.Method> overridden = new ArrayList<>();
+        if (method.method().isPrivate() || method.method().isStatic()) {
+            return overridden;
+        }
+        List<String> parameterTypes = new ArrayList<>();
+        for (Type type : Type.getArgumentTypes(method.method().descriptor())) {
+            parameterTypes.add(type.getClassName());
+        }
+        Map<String, IndexedType> ownerBindings = bindings(new IndexedType.ClassType(method.owner().name(),
+                List.of()));
+        Deque<IndexedClass> pending = new ArrayDeque<>(annotations.supertypes(method.owner()));
+        Set<String> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            IndexedClass current = pending.poll();
+            if (!visited.add(current.name())) {
+                continue;
+            }
+            for (IndexedClass.Method candidate : current.methods()) {
+                if (candidate.name().equals(method.method().name()) && !candidate.isPrivate()
+                        && !candidate.isStatic() && !candidate.isCompilerGenerated()
+                        && erasedParameterTypes(current, candidate, ownerBindings).equals(parameterTypes)) {
+                    overridden.add(candidate);
+                }
+            }
+            pending.addAll(annotations.supertypes(current));
+        }
+        return overridden;
+    }
+
+    private List<String> erasedParameterTypes(IndexedClass owner, IndexedClass.Method method,
+            Map<String, IndexedType> ownerBindings) {
+        Scope scope = new Scope(owner, method.signature().typeParameters());
+        List<String> names = new ArrayList<>();
+        for (IndexedType type : method.signature().parameterTypes()) {
+            names.add(erasedName(canonical(type, scope, ownerBindings)));
+        }
+        return names;
+    }
+
+    private static String erasedName(IndexedType type) {
+        return switch (type) {
+            case IndexedType.ClassType classType -> classType.name();
+            case IndexedType.ArrayType arrayType -> erasedName(arrayType.component()) + "[]";
+            default -> type.typeName();
+        };
+    }
+
+    // Parameter and return types are resolved against the controller, which binds the type variables of inherited
+    // handlers
+    private Operation createOperation(IndexedClass controller, Member member, MappingDescriptor mapping,
+            PathItem.HttpMethod httpMethod, Map<String, ApiResponse> errorResponses) {
+        IndexedClass.Method method = member.method();
+        Operation operation = new Operation()
+                .operationId(controller.simpleName() + "." + method.name())
+                .summary(StringUtils.capitalize(method.name()));
+
+        Map<String, IndexedType> controllerBindings = bindings(new IndexedType.ClassType(controller.name(),
+                List.of()));
+        Scope scope = new Scope(member.owner(), method.signature().typeParameters());
+        List<IndexedType> parameterTypes = method.signature().parameterTypes();
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            IndexedType type = canonical(parameterTypes.get(i), scope, controllerBindings);
+            List<IndexedClass.Annotation> parameterAnnotations = method.parameterAnnotations().get(i);
+            IndexedClass.Annotation requestBody = IndexedAnnotations.find(parameterAnnotations, REQUEST_BODY);
+            if (requestBody != null) {
+                operation.setRequestBody(new RequestBody()
+                        .content(content(mapping.consumes(), createSchema(type, parameterAnnotations)))
+                        .required((Boolean) annotations.values(requestBody).get("required")));
+            } else {
+                Parameter created = createParameter(parameterAnnotations, method.parameterNames().get(i), type);
+                if (created != null) {
+                    operation.addParametersItem(created);
+                }
+            }
+        }
+
+        IndexedType returnType = canonical(method.signature().returnType(), scope, controllerBindings);
+        operation.setResponses(createApiResponses(returnType, member, mapping, httpMethod, errorResponses));
+        return operation;
+    }
+
+    // Null for parameters that are not path variables, query parameters or headers
+    private Parameter createParameter(List<IndexedClass.Annotation> parameterAnnotations, String parameterName,
+            IndexedType type) {
+        Parameter created;
+        IndexedClass.Annotation annotation;
+        if ((annotation = IndexedAnnotations.find(parameterAnnotations, PATH_VARIABLE)) != null) {
+            // Path variables are always required
+            created = new Parameter().in("path").name(parameterName(annotation, parameterName)).required(true);
+        } else if ((annotation = IndexedAnnotations.find(parameterAnnotations, REQUEST_PARAM)) != null) {
+            created = new Parameter().in("query").name(parameterName(annotation, parameterName))
+                    .required((Boolean) annotations.values(annotation).get("required"));
+        } else if ((annotation = IndexedAnnotations.find(parameterAnnotations, REQUEST_HEADER)) != null) {
+            created = new Parameter().in("header").name(parameterName(annotation, parameterName))
+                    .required((Boolean) annotations.values(annotation).get("required"));
+        } else {
+            return null;
+        }
+        created.setSchema(createSchema(type, parameterAnnotations));
+        return created;
+    }
+
+    private String parameterName(IndexedClass.Annotation annotation, String parameterName) {
+        String value = (String) annotations.values(annotation).get("value");
+        return StringUtils.hasText(value) ? value : parameterName;
+    }
+
+    private ApiResponses createApiResponses(IndexedType returnType, Member member, MappingDescriptor mapping,
+            PathItem.HttpMethod httpMethod, Map<String, ApiResponse> errorResponses) {
+        ApiResponses responses = new ApiResponses();
+        ApiResponse apiResponse = new ApiResponse();
+
+        if (!isVoid(returnType)) {
+            Schema<?> schema = createSchema(returnType, member.method().returnTypeAnnotations());
+            apiResponse.setContent(content(mapping.produces(), schema));
+        }
+
+        Map<String, Object> responseStatus = findMergedOnMethod(member, RESPONSE_STATUS);
+        String statusCode = "200";
+        if (responseStatus != null) {
+            statusCode = String.valueOf(status(responseStatus).value());
+            apiResponse.description((String) responseStatus.get("reason"));
+        } else if (httpMethod == PathItem.HttpMethod.POST) {
+            statusCode = "201";
+        }
+
+        if (!StringUtils.hasText(apiResponse.getDescription())) {
+            try {
+                apiResponse.description(HttpStatus.valueOf(Integer.parseInt(statusCode)).getReasonPhrase());
+            } catch (IllegalArgumentException e) {
+                apiResponse.description("Successful operation");
+            }
+        }
+
+        responses.addApiResponse(statusCode, apiResponse);
+        // The success response keeps its status code; otherwise the first handler per status code wins
+        errorResponses.forEach((errorStatusCode, errorResponse) -> {
+            if (!responses.containsKey(errorStatusCode)) {
+                responses.addApiResponse(errorStatusCode, errorResponse);
+            }
+        });
+        return responses;
+    }
+
+    // "code" and "value" are aliases, both defaulting to INTERNAL_SERVER_ERROR
+    private static HttpStatus status(Map<String, Object> responseStatus) {
+        String code = (String) responseStatus.get("code");
+        return HttpStatus.valueOf(code.equals(HttpStatus.INTERNAL_SERVER_ERROR.name())
+                ? (String) responseStatus.get("value")
+                : code);
+    }
+
+    // Resolves every handled exception type once, the way Spring picks a handler at runtime: the controller's own
+    // @ExceptionHandler methods first, then each advice in turn, with the handler for the closest superclass winning
+    private Map<String, ApiResponse> resolveErrorResponses(List<ExceptionHandlerMethod> localHandlers) {
+        Set<String> exceptionTypes = new TreeSet<>();
+        localHandlers.forEach(handler -> exceptionTypes.addAll(handler.exceptionTypes()));
+        exceptionTypes.addAll(adviceExceptionTypes);
+
+        Map<String, ApiResponse> responses = new LinkedHashMap<>();
+        for (String exceptionType : exceptionTypes) {
+            Member handlerMethod = resolveHandlerMethod(localHandlers, exceptionType);
+            if (handlerMethod == null) {
+                continue;
+            }
+            Map<String, Object> responseStatus = findMergedOnMethod(handlerMethod, RESPONSE_STATUS);
+            IndexedClass exceptionClass = classFiles.find(exceptionType);
+            if (responseStatus == null && exceptionClass != null) {
+                // Try finding it on the exception class itself
+                responseStatus = annotations.findMergedOnHierarchy(exceptionClass, RESPONSE_STATUS);
+            }
+
+            HttpStatus status = responseStatus != null ? status(responseStatus) : HttpStatus.INTERNAL_SERVER_ERROR;
+            String statusCode = String.valueOf(status.value());
+            if (responses.containsKey(statusCode)) {
+                continue;
+            }
+
+            ApiResponse errorResponse = new ApiResponse();
+            String reason = responseStatus != null ? (String) responseStatus.get("reason") : null;
+            errorResponse.description(StringUtils.hasText(reason) ? reason : status.getReasonPhrase());
+
+            // Resolved against the class declaring the handler, as OpenApiBuilder does
+            IndexedClass.Method method = handlerMethod.method();
+            IndexedType returnType = canonical(method.signature().returnType(),
+                    new Scope(handlerMethod.owner(), method.signature().typeParameters()),
+                    bindings(new IndexedType.ClassType(handlerMethod.owner().name(), List.of())));
+            if (!isVoid(returnType)) {
+                Schema<?> schema = createSchema(returnType, method.returnTypeAnnotations());
+                errorResponse.setContent(new Content().addMediaType(APPLICATION_JSON, new MediaType().schema(schema)));
+            }
+            responses.put(statusCode, errorResponse);
+        }
+        return responses;
+    }
+
+    private Member resolveHandlerMethod(List<ExceptionHandlerMethod> localHandlers, String exceptionType) {
+        Member handlerMethod = closestHandler(localHandlers, exceptionType);
+        for (int i = 0; handlerMethod == null && i < adviceHandlers.size(); i++) {
+            handlerMethod = closestHandler(adviceHandlers.get(i), exceptionType);
+        }
+        return handlerMethod;
+    }
+
+    // The handler of the closest superclass of the exception type, as ExceptionDepthComparator ranks them
+    private Member closestHandler(List<ExceptionHandlerMethod> handlers, String exceptionType) {
+        Member closest = null;
+        int closestDepth = Integer.MAX_VALUE;
+        for (ExceptionHandlerMethod handler : handlers) {
+            for (String handledType : handler.exceptionTypes()) {
+                int depth = depth(exceptionType, handledType);
+                if (depth != Integer.MAX_VALUE && (closest == null || depth < closestDepth)) {
+                    closest = handler.method();
+                    closestDepth = depth;
+                }
+            }
+        }
+        return closest;
+    }
+
+    // Superclass steps from the exception type up to the handled type, or MAX_VALUE when it is not one
+    private int depth(String exceptionType, String handledType) {
+        int depth = 0;
+        for (IndexedClass type = classFiles.find(exceptionType); type != null;
+                type = type.superName() != null ? classFiles.find(type.superName()) : null, depth++) {
+            if (type.name().equals(handledType)) {
+                return depth;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    // The @ExceptionHandler methods of the type and its supertypes, with the exception types each declares, or
+    // takes from its parameters when the annotation lists none, as Spring does
+    @SuppressWarnings("unchecked")
+    private List<ExceptionHandlerMethod> exceptionHandlers(IndexedClass type) {
+        List<ExceptionHandlerMethod> handlers = new ArrayList<>();
+        for (Member method : sortedMethods(type)) {
+            Map<String, Object> handler = findMergedOnMethod(method, EXCEPTION_HANDLER);
+            if (handler == null) {
+                continue;
+            }
+            List<String> exceptionTypes = new ArrayList<>((List<String>) handler.get("value"));
+            if (exceptionTypes.isEmpty()) {
+                for (Type parameterType : Type.getArgumentTypes(method.method().descriptor())) {
+                    if (parameterType.getSort() == Type.OBJECT
+                            && isSubclass(parameterType.getClassName(), Throwable.class.getName())) {
+                        exceptionTypes.add(parameterType.getClassName());
+                    }
+                }
+            }
+            handlers.add(new ExceptionHandlerMethod(method, exceptionTypes));
+        }
+        return handlers;
+    }
+
+    private int order(IndexedClass type) {
+        Map<String, Object> order = annotations.findMergedOnHierarchy(type, ORDER);
+        return order != null ? (Integer) order.get("value") : Integer.MAX_VALUE;
+    }
+
+    // Resolutions are memoized by canonical type name plus the validation constraints on the element
+    private Schema<?> createSchema(IndexedType type, List<IndexedClass.Annotation> annotated) {
+        String key = type.typeName() + constraints(annotated);
+        if (schemaCache.containsKey(key)) {
+            return schemaCache.get(key);
+        }
+        Schema<?> schema = resolveSchema(type, annotated);
+        if (schema != null) {
+            schemaCache.put(key, schema);
+        }
+        return schema;
+    }
+
+    @SuppressWarnings("deprecation")
+    private Schema<?> resolveSchema(IndexedType type, List<IndexedClass.Annotation> annotated) {
+        if (type instanceof IndexedType.ClassType classType && !classType.arguments().isEmpty()) {
+            IndexedType argument = classType.arguments().get(0);
+            // Unwrap Mono<T> to T, and treat Flux<T> as an array of T
+            if (isSubtypeOf(type, "reactor.core.publisher.Mono")) {
+                return createSchema(argument, annotated);
+            }
+            if (isSubtypeOf(type, "reactor.core.publisher.Flux")) {
+                return new ArraySchema().items(createSchema(argument, null));
+            }
+            if (classType.name().equals("org.springframework.http.ResponseEntity")) {
+                return createSchema(argument, annotated);
+            }
+        }
+
+        // Void means no content, so no schema
+        if (isVoid(type)) {
+            return null;
+        }
+
+        if (type instanceof IndexedType.ArrayType || isSubtypeOf(type, "java.util.Collection")) {
+            ArraySchema arraySchema = new ArraySchema().items(createSchema(itemType(type), null));
+            applyValidationAnnotations(arraySchema, annotated);
+            return arraySchema;
+        }
+
+        // Map<K, V>, assuming K is String for JSON objects
+        if (isSubtypeOf(type, "java.util.Map")) {
+            Schema<?> mapSchema = new ObjectSchema().additionalProperties(
+                    createSchema(supertypeArgument((IndexedType.ClassType) type, "java.util.Map", 1), null));
+            applyValidationAnnotations(mapSchema, annotated);
+            return mapSchema;
+        }
+
+        String raw = erasedName(type);
+        Schema<?> schema = null;
+        if (raw.equals("java.lang.String")) {
+            schema = new StringSchema();
+        } else if (raw.equals("java.time.LocalDate")) {
+            schema = new StringSchema().format("date");
+        } else if (raw.equals("java.util.Date") || raw.equals("java.time.LocalDateTime")) {
+            schema = new StringSchema().format("date-time");
+        } else if (type instanceof IndexedType.PrimitiveType || isSubtypeOf(type, "java.lang.Number")) {
+            schema = switch (raw) {
+                case "int", "java.lang.Integer" -> new IntegerSchema().format("int32");
+                case "long", "java.lang.Long" -> new IntegerSchema().format("int64");
+                case "float", "java.lang.Float" -> new NumberSchema().format("float");
+                default -> new NumberSchema().format("double");
+            };
+        }
+        if (schema != null) {
+            applyValidationAnnotations(schema, annotated);
+            return schema;
+        }
+
+        // POJOs; every parameterization of a generic class, e.g. Page<Tutorial>, is a schema of its own
+        if (type instanceof IndexedType.ClassType classType && !raw.startsWith("java.")) {
+            String schemaName = type.typeName();
+            if (schemas.containsKey(schemaName)) {
+                return new Schema<>().$ref(SchemaNames.REF_PREFIX + schemaName);
+            }
+            // Registered before its properties are filled in, so that circular references resolve to a $ref
+            ObjectSchema pojoSchema = new ObjectSchema();
+            schemas.put(schemaName, pojoSchema);
+            Map<String, IndexedType> typeBindings = bindings(classType);
+            for (Member field : fields(classType)) {
+                IndexedClass.Field declaration = field.field();
+                String name = declaration.name();
+                IndexedType fieldType = canonical(declaration.type(), new Scope(field.owner(), List.of()),
+                        typeBindings);
+                pojoSchema.addProperties(name, createSchema(fieldType, declaration.annotations()));
+                if (IndexedAnnotations.find(declaration.annotations(), NOT_NULL) != null
+                        || IndexedAnnotations.find(declaration.annotations(), NOT_BLANK) != null
+                        || IndexedAnnotations.find(declaration.annotations(), NOT_EMPTY) != null) {
+                    pojoSchema.addRequiredItem(name);
+                }
+            }
+            return new Schema<>().$ref(SchemaNames.REF_PREFIX + schemaName);
+        }
+
+        return new ObjectSchema().description("Unsupported type: " + type.typeName());
+    }
+
+    // Instance fields of the type and its superclasses outside the JDK, superclass fields first
+    private List<Member> fields(IndexedType.ClassType type) {
+        Deque<IndexedClass> hierarchy = new ArrayDeque<>();
+        for (IndexedClass current = classFiles.get(type.name());
+                current != null && !current.name().startsWith("java.");
+                current = current.superName() != null ? classFiles.find(current.superName()) : null) {
+            hierarchy.push(current);
+        }
+        List<Member> fields = new ArrayList<>();
+        for (IndexedClass owner : hierarchy) {
+            for (IndexedClass.Field field : owner.fields()) {
+                if (!field.isStatic()) {
+                    fields.add(new Member(owner, null, field));
+                }
+            }
+        }
+        return fields;
+    }
+
+    private void applyValidationAnnotations(Schema<?> schema, List<IndexedClass.Annotation> annotated) {
+        if (annotated == null) {
+            return;
+        }
+        Map<String, Object> size = constraint(annotated, SIZE);
+        if (size != null) {
+            if (schema instanceof StringSchema) {
+                schema.minLength((Integer) size.get("min"));
+                schema.maxLength((Integer) size.get("max"));
+            } else if (schema instanceof ArraySchema) {
+                schema.minItems((Integer) size.get("min"));
+                schema.maxItems((Integer) size.get("max"));
+            }
+        }
+        Map<String, Object> min = constraint(annotated, MIN);
+        if (min != null) {
+            schema.minimum(BigDecimal.valueOf((Long) min.get("value")));
+        }
+        Map<String, Object> max = constraint(annotated, MAX);
+        if (max != null) {
+            schema.maximum(BigDecimal.valueOf((Long) max.get("value")));
+        }
+        Map<String, Object> pattern = constraint(annotated, PATTERN);
+        if (pattern != null) {
+            schema.pattern((String) pattern.get("regexp"));
+        }
+        if (constraint(annotated, NOT_EMPTY) != null) {
+            if (schema instanceof StringSchema) {
+                schema.minLength(1);
+            } else if (schema instanceof ArraySchema) {
+                schema.minItems(1);
+            }
+        }
+        if (constraint(annotated, NOT_BLANK) != null && schema instanceof StringSchema) {
+            schema.minLength(1);
+            // Don't overwrite an existing pattern
+            schema.pattern(schema.getPattern() == null ? "\\S" : schema.getPattern());
+        }
+    }
+
+    private Map<String, Object> constraint(List<IndexedClass.Annotation> annotated, String constraintType) {
+        IndexedClass.Annotation annotation = IndexedAnnotations.find(annotated, constraintType);
+        return annotation != null ? annotations.values(annotation) : null;
+    }
+
+    private String constraints(List<IndexedClass.Annotation> annotated) {
+        if (annotated == null) {
+            return "";
+        }
+        StringBuilder constraints = new StringBuilder();
+        for (String constraintType : SCHEMA_CONSTRAINTS) {
+            Map<String, Object> constraint = constraint(annotated, constraintType);
+            if (constraint != null) {
+                constraints.append('@').append(constraintType).append(constraint);
+            }
+        }
+        return constraints.toString();
+    }
+
+    // The type variables the canonical type binds, of its own class and, through the generic signatures of its
+    // superclasses and interfaces, of all its supertypes; keyed as Scope.key does. A raw type binds none of its own.
+    private Map<String, IndexedType> bindings(IndexedType.ClassType type) {
+        Map<String, IndexedType> typeBindings = bindings.get(type.typeName());
+        if (typeBindings != null) {
+            return typeBindings;
+        }
+        typeBindings = new HashMap<>();
+        Deque<IndexedType.ClassType> pending = new ArrayDeque<>(List.of(type));
+        Set<String> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            IndexedType.ClassType current = pending.poll();
+            IndexedClass indexed = visited.add(current.name()) ? classFiles.find(current.name()) : null;
+            if (indexed == null) {
+                continue;
+            }
+            List<IndexedType.TypeParameter> typeParameters = indexed.signature().typeParameters();
+            if (current.arguments().size() == typeParameters.size()) {
+                for (int i = 0; i < typeParameters.size(); i++) {
+                    typeBindings.putIfAbsent(Scope.key(indexed, typeParameters.get(i).name()),
+                            current.arguments().get(i));
+                }
+            }
+            Scope scope = new Scope(indexed, List.of());
+            if (indexed.signature().superclass() != null) {
+                pending.add((IndexedType.ClassType) canonical(indexed.signature().superclass(), scope,
+                        typeBindings));
+            }
+            for (IndexedType superinterface : indexed.signature().interfaces()) {
+                pending.add((IndexedType.ClassType) canonical(superinterface, scope, typeBindings));
+            }
+        }
+        bindings.put(type.typeName(), typeBindings);
+        return typeBindings;
+    }
+
+    // Type variables that nothing binds become their bound, and a variable in its own bound the erasure of that
+    // bound, as in GenericTypes.canonical
+    private IndexedType canonical(IndexedType type, Scope scope, Map<String, IndexedType> typeBindings) {
+        return canonical(type, scope, typeBindings, new HashSet<>());
+    }
+
+    private IndexedType canonical(IndexedType type, Scope scope, Map<String, IndexedType> typeBindings,
+            Set<String> resolving) {
+        return switch (type) {
+            case IndexedType.TypeVariable variable -> {
+                Declaration declaration = declaration(variable.name(), scope);
+                if (declaration == null) {
+                    yield IndexedType.OBJECT;
+                }
+                IndexedType bound = typeBindings.get(declaration.key());
+                if (bound != null) {
+                    yield bound;
+                }
+                if (!resolving.add(declaration.key())) {
+                    yield erasure(declaration.parameter().bound(), declaration.scope());
+                }
+                try {
+                    yield canonical(declaration.parameter().bound(), declaration.scope(), typeBindings, resolving);
+                } finally {
+                    resolving.remove(declaration.key());
+                }
+            }
+            case IndexedType.ArrayType array ->
+                    new IndexedType.ArrayType(canonical(array.component(), scope, typeBindings, resolving));
+            case IndexedType.ClassType classType when !classType.arguments().isEmpty() ->
+                    new IndexedType.ClassType(classType.name(), classType.arguments().stream()
+                            .map(argument -> canonical(argument, scope, typeBindings, resolving))
+                            .toList());
+            default -> type;
+        };
+    }
+
+    private IndexedType erasure(IndexedType type, Scope scope) {
+        return switch (type) {
+            case IndexedType.ClassType classType -> new IndexedType.ClassType(classType.name(), List.of());
+            case IndexedType.ArrayType array -> new IndexedType.ArrayType(erasure(array.component(), scope));
+            case IndexedType.TypeVariable variable -> {
+                Declaration declaration = declaration(variable.name(), scope);
+                yield declaration != null ? erasure(declaration.parameter().bound(), declaration.scope())
+                        : IndexedType.OBJECT;
+            }
+            default -> type;
+        };
+    }
+
+    // The method's type parameters shadow the class's, whose shadow those of enclosing classes
+    private Declaration declaration(String name, Scope scope) {
+        for (IndexedType.TypeParameter parameter : scope.methodTypeParameters()) {
+            if (parameter.name().equals(name)) {
+                return new Declaration(scope.owner().name() + "()#" + name, parameter, scope);
+            }
+        }
+        for (IndexedClass owner = scope.owner(); owner != null; owner = enclosingClass(owner)) {
+            for (IndexedType.TypeParameter parameter : owner.signature().typeParameters()) {
+                if (parameter.name().equals(name)) {
+                    return new Declaration(Scope.key(owner, name), parameter, new Scope(owner, List.of()));
+                }
+            }
+        }
+        return null;
+    }
+
+    private IndexedClass enclosingClass(IndexedClass type) {
+        int separator = type.name().lastIndexOf('$');
+        return separator > 0 ? classFiles.find(type.name().substring(0, separator)) : null;
+    }
+
+    private boolean isSubtypeOf(IndexedType type, String supertypeName) {
+        return type instanceof IndexedType.ClassType classType && isSubclass(classType.name(), supertypeName);
+    }
+
+    // Whether the class is the given one or extends or implements it, by class files
+    private boolean isSubclass(String className, String supertypeName) {
+        if (className.equals(supertypeName)) {
+            return true;
+        }
+        Boolean cached = subclasses.get(className + "<" + supertypeName);
+        if (cached != null) {
+            return cached;
+        }
+        IndexedClass type = classFiles.find(className);
+        boolean subclass = false;
+        if (type != null) {
+            for (IndexedClass supertype : annotations.supertypes(type)) {
+                if (isSubclass(supertype.name(), supertypeName)) {
+                    subclass = true;
+                    break;
+                }
+            }
+        }
+        subclasses.put(className + "<" + supertypeName, subclass);
+        return subclass;
+    }
+
+    private static boolean isVoid(IndexedType type) {
+        return type.equals(VOID) || type instanceof IndexedType.ClassType classType
+                && classType.name().equals(Void.class.getName());
+    }
+
+    // Also binds the element type of collection classes, e.g. Tag for a class Tags extends ArrayList<Tag>
+    private IndexedType itemType(IndexedType type) {
+        if (type instanceof IndexedType.ArrayType array) {
+            return array.component();
+        }
+        return supertypeArgument((IndexedType.ClassType) type, "java.util.Collection", 0);
+    }
+
+    // The type argument of the given generic supertype, bound as seen from the type; Object when nothing binds it
+    private IndexedType supertypeArgument(IndexedType.ClassType type, String supertypeName, int index) {
+        IndexedClass supertype = classFiles.get(supertypeName);
+        IndexedType argument = bindings(type).get(Scope.key(supertype,
+                supertype.signature().typeParameters().get(index).name()));
+        return argument != null ? argument : IndexedType.OBJECT;
+    }
+
+    // The schema under each media type, or under application/json when the mapping names none
+    private static Content content(List<String> mediaTypes, Schema<?> schema) {
+        Content content = new Content();
+        for (String mediaType : mediaTypes.isEmpty() ? List.of(APPLICATION_JSON) : mediaTypes) {
+            content.addMediaType(mediaType, new MediaType().schema(schema));
+        }
+        return content;
+    }
+
+    // A method or field with the class that declares it
+    private record Member(IndexedClass owner, IndexedClass.Method method, IndexedClass.Field field) {
+        Member(IndexedClass owner, IndexedClass.Method method) {
+            this(owner, method, null);
+        }
+    }
+
+    // Where type variables are looked up: the type parameters of a method, then of its class
+    private record Scope(IndexedClass owner, List<IndexedType.TypeParameter> methodTypeParameters) {
+        static String key(IndexedClass owner, String typeParameter) {
+            return owner.name() + "#" + typeParameter;
+        }
+    }
+
+    private record Declaration(String key, IndexedType.TypeParameter parameter, Scope scope) {
+    }
+
+    private record ExceptionHandlerMethod(Member method, List<String> exceptionTypes) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.openapispecs.generator.plugin.parser;
+
+import io.swagger.v3.oas.models.PathItem;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// The request mapping of a controller or handler method, read once from its merged @RequestMapping. The shortcut
+// annotations (@GetMapping etc.) and custom meta-annotations are all merged into @RequestMapping, with "path" and
+// "value" as aliases, so every attribute is read without reflection. The annotation processor reads the same
+// attributes from annotation mirrors and combines them with the same rules.
+public record MappingDescriptor(List<String> paths, List<PathItem.HttpMethod> httpMethods, List<String> produces,
+        List<String> consumes) {
+
+    public static final MappingDescriptor NONE = new MappingDescriptor(List.of(), List.of(), List.of(), List.of());
+
+    // NONE when the element has no request mapping
+    static MappingDescriptor of(AnnotatedElement element) {
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(element, RequestMapping.class);
+        if (mapping == null) {
+            return NONE;
+        }
+        return of(List.of(mapping.path()), Arrays.stream(mapping.method()).map(Enum::name).toList(),
+                List.of(mapping.produces()), List.of(mapping.consumes()));
+    }
+
+    // From the attributes of a merged @RequestMapping, with the request methods by name
+    public static MappingDescriptor of(List<String> paths, List<String> requestMethods, List<String> produces,
+            List<String> consumes) {
+        return new MappingDescriptor(List.copyOf(paths), requestMethods.stream().map(PathItem.HttpMethod::valueOf)
+                .toList(), mediaTypes(produces), mediaTypes(consumes));
+    }
+
+    public boolean isMapped() {
+        return this != NONE;
+    }
+
+    // The mapping of a handler method within its controller, combined the way Spring MVC does: every controller path
+    // joined with every method path, the HTTP methods of both, and the method's media types over the controller's
+    public MappingDescriptor within(MappingDescriptor controller) {
+        List<String> combinedPaths = new ArrayList<>();
+        for (String prefix : controller.paths.isEmpty() ? List.of("") : controller.paths) {
+            for (String path : paths.isEmpty() ? List.of("") : paths) {
+                combinedPaths.add(join(prefix, path));
+            }
+        }
+        Set<PathItem.HttpMethod> combinedMethods = new LinkedHashSet<>(controller.httpMethods);
+        combinedMethods.addAll(httpMethods);
+        return new MappingDescriptor(combinedPaths, List.copyOf(combinedMethods),
+                produces.isEmpty() ? controller.produces : produces,
+                consumes.isEmpty() ? controller.consumes : consumes);
+    }
+
+    // Exactly one slash between the parts, and a leading one
+    static String join(String prefix, String path) {
+        String joined;
+        if (prefix.isEmpty() || path.isEmpty()) {
+            joined = prefix + path;
+        } else if (prefix.endsWith("/") && path.startsWith("/")) {
+            joined = prefix + path.substring(1);
+        } else if (prefix.endsWith("/") || path.startsWith("/")) {
+            joined = prefix + path;
+        } else {
+            joined = prefix + "/" + path;
+        }
+        return joined.startsWith("/") ? joined : "/" + joined;
+    }
+
+    // Negated expressions ("!text/plain") only exclude media types, so they are left out
+    private static List<String> mediaTypes(List<String> expressions) {
+        return expressions.stream().map(String::trim)
+                .filter(expression -> !expression.isEmpty() && !expression.startsWith("!"))
+                .toList();
+    }
+}
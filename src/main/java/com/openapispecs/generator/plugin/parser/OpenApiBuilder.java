@@ -1,5 +1,9 @@
 package com.openapispecs.generator.plugin.parser;
 
+import com.openapispecs.generator.plugin.cache.FragmentCache;
+import com.openapispecs.generator.plugin.metrics.FlightEvents;
+import com.openapispecs.generator.plugin.metrics.GenerationMetrics;
+import com.openapispecs.generator.plugin.scanner.ClassFiles;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.Operation;
@@ -28,43 +32,107 @@ import jakarta.validation.constraints.Size;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.OrderUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
-import org.springframework.web.bind.annotation.DeleteMapping;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
-import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 public class OpenApiBuilder {
+    // The annotations applyValidationAnnotations reads; together with the type they determine the resulting schema
+    private static final List<Class<? extends Annotation>> SCHEMA_CONSTRAINTS = List.of(Size.class, Min.class,
+            Max.class, Pattern.class, NotEmpty.class, NotBlank.class);
+
+    // A schema is registered before its properties are filled in, so that circular references resolve to a $ref.
+    // The future completes once the owning thread has finished it; readers of the full definition wait on it.
+    // Schemas are registered, and referenced while building, by the fully qualified name of their class; schemaNames
+    // gives them their component names once they appear in the spec.
+    @SuppressWarnings("rawtypes")
+    private final Map<String, CompletableFuture<Schema>> schemas = new ConcurrentHashMap<>();
+    // Schema name -> name of the class the schema was built from
+    private final Map<String, String> schemaTypes = new ConcurrentHashMap<>();
+    private final SchemaNames schemaNames = new SchemaNames();
+    // Advice handler resolvers in the order Spring consults them, and the error responses they produce on their own
+    private final List<ExceptionHandlerMethodResolver> adviceResolvers = new ArrayList<>();
+    private final Set<Class<? extends Throwable>> adviceExceptionTypes = new LinkedHashSet<>();
+    private ErrorResponses globalErrorResponses = new ErrorResponses(Map.of(), Set.of());
+    private final Map<SchemaKey, Schema<?>> schemaCache = new ConcurrentHashMap<>();
+    private final GenericTypes genericTypes = new GenericTypes();
+    // Structurally equal schemas built for different types or constraints, e.g. the same @Size on String and
+    // CharSequence properties, resolve to one shared instance
     @SuppressWarnings("rawtypes")
-    private final Map<String, Schema> schemas = new ConcurrentHashMap<>();
-    private final Map<Class<? extends Throwable>, Method> globalExceptionHandlers = new ConcurrentHashMap<>();
+    private final Map<Schema, Schema<?>> internedSchemas = new ConcurrentHashMap<>();
+    private final LongAdder schemaCacheHits = new LongAdder();
+    private final LongAdder schemaCacheMisses = new LongAdder();
+    private final LongAdder schemasInterned = new LongAdder();
+    private FragmentCache fragmentCache;
+    private GenerationMetrics metrics;
+    private int parallelism = 1;
+    private ForkJoinPool pool;
+
+    public void setFragmentCache(FragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    public void setMetrics(GenerationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Number of threads processing controllers and their methods; 1 builds everything on the calling thread.
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public SchemaCacheStats getSchemaCacheStats() {
+        return new SchemaCacheStats(schemaCacheHits.sum(), schemaCacheMisses.sum(), schemasInterned.sum());
+    }
 
     public OpenAPI build(String title, String version, String description, Set<Class<?>> controllers,
             Set<Class<?>> controllerAdvices) {
@@ -75,76 +143,391 @@ public class OpenApiBuilder {
 
         processControllerAdvice(controllerAdvices);
 
-        for (Class<?> controller : controllers) {
-            processController(controller, openAPI);
+        // Controllers are handled in name order and merged in that order, whatever the parallelism
+        List<Class<?>> orderedControllers = controllers.stream()
+                .sorted(Comparator.comparing(Class::getName))
+                .toList();
+
+        try (ForkJoinPool forkJoinPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null) {
+            this.pool = forkJoinPool;
+
+            List<ControllerFragment> cachedFragments = map(orderedControllers, this::loadCached);
+            // Register cached schemas first, so changed controllers refer to them instead of rebuilding them
+            cachedFragments.stream().filter(Objects::nonNull).forEach(this::registerSchemas);
+
+            List<Integer> indexes = IntStream.range(0, orderedControllers.size()).boxed().toList();
+            List<ControllerFragment> fragments = map(indexes, index -> {
+                ControllerFragment fragment = cachedFragments.get(index);
+                return fragment != null ? fragment : processAndStore(orderedControllers.get(index));
+            });
+
+            fragments.forEach(fragment -> merge(fragment, openAPI));
+            fragments.forEach(this::assignSchemaNames);
+        } finally {
+            this.pool = null;
+        }
+        return finish(openAPI);
+    }
+
+    // Assembles a spec from operations built elsewhere, e.g. at compile time by the annotation processor: the paths of
+    // each controller, in controller name order, referring to the given schemas by their registry names. Schemas are
+    // named and refs renamed exactly as for controllers built here.
+    @SuppressWarnings("rawtypes")
+    public OpenAPI build(String title, String version, String description, List<Paths> controllerPaths,
+            Map<String, Schema> schemaDefinitions) {
+        OpenAPI openAPI = new OpenAPI()
+                .info(new Info().title(title).version(version).description(description))
+                .paths(new Paths())
+                .components(new Components());
+        schemaDefinitions.forEach((name, schema) -> schemas.put(name, CompletableFuture.completedFuture(schema)));
+        List<ControllerFragment> fragments = new ArrayList<>();
+        for (Paths paths : controllerPaths) {
+            Map<String, Schema> fragmentSchemas = new LinkedHashMap<>();
+            for (String schemaName : collectReferencedSchemas(paths)) {
+                fragmentSchemas.put(schemaName, schemas.get(schemaName).join());
+            }
+            fragments.add(new ControllerFragment(paths, fragmentSchemas, Map.of(), Set.of()));
+        }
+        fragments.forEach(fragment -> merge(fragment, openAPI));
+        fragments.forEach(this::assignSchemaNames);
+        return finish(openAPI);
+    }
+
+    // Builds the spec from the class files of the controllers and advices, by name, instead of from loaded classes:
+    // neither they nor the types they use are loaded or initialised. The operations and schemas are the ones the
+    // reflection build produces; there is no fragment cache or parallel build on this path.
+    public OpenAPI build(String title, String version, String description, ClassFiles classFiles,
+            Set<String> controllers, Set<String> controllerAdvices) {
+        IndexedSpecBuilder indexedBuilder = new IndexedSpecBuilder(classFiles);
+        indexedBuilder.processControllerAdvice(controllerAdvices);
+        List<Paths> controllerPaths = new ArrayList<>();
+        for (String controller : new TreeSet<>(controllers)) {
+            long start = System.nanoTime();
+            controllerPaths.add(indexedBuilder.processController(controller));
+            if (metrics != null) {
+                metrics.recordController(controller, System.nanoTime() - start);
+            }
         }
+        return build(title, version, description, controllerPaths, indexedBuilder.getSchemas());
+    }
 
-        openAPI.getComponents().setSchemas(this.schemas);
+    // Names the component schemas and points every $ref at them
+    private OpenAPI finish(OpenAPI openAPI) {
+        // Nothing is built or cached any more, so the shared $ref instances can be renamed in place
+        @SuppressWarnings("rawtypes")
+        Map<String, Schema> componentSchemas = new TreeMap<>();
+        for (String name : new TreeSet<>(schemas.keySet())) {
+            componentSchemas.putIfAbsent(assignSchemaName(name), schemas.get(name).join());
+        }
+        Deque<Schema<?>> pending = operationSchemas(openAPI.getPaths());
+        componentSchemas.values().forEach(schema -> enqueue(pending, schema));
+        renameRefs(pending);
+        openAPI.getComponents().setSchemas(componentSchemas);
+        if (metrics != null) {
+            metrics.addRefs(countRefs(operationSchemas(openAPI.getPaths())));
+            recordComponentMetrics(openAPI.getComponents().getSchemas());
+        }
         return openAPI;
     }
 
-    private void processControllerAdvice(Set<Class<?>> controllerAdvices) {
-        for (Class<?> adviceClass : controllerAdvices) {
-            for (Method method : adviceClass.getDeclaredMethods()) {
-                if (method.isAnnotationPresent(ExceptionHandler.class)) {
-                    ExceptionHandler handler = method.getAnnotation(ExceptionHandler.class);
-                    for (Class<? extends Throwable> exceptionClass : handler.value()) {
-                        // Global handlers can be overwritten by more specific ones, but for now, first
-                        // one wins.
-                        globalExceptionHandlers.putIfAbsent(exceptionClass, method);
-                    }
+    // Builds one controller at a time and hands each fragment to the consumer as soon as it is complete, instead of
+    // merging everything into one model. Only the component schema registry grows with the size of the API; read it
+    // with getComponentSchemas() once this returns.
+    public void build(Set<Class<?>> controllers, Set<Class<?>> controllerAdvices,
+            BiConsumer<Class<?>, ControllerFragment> consumer) {
+        processControllerAdvice(controllerAdvices);
+
+        // $refs per "path method": an operation of a later controller replaces one on the same path and method
+        Map<String, Long> operationRefs = new HashMap<>();
+        try (ForkJoinPool forkJoinPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null) {
+            this.pool = forkJoinPool;
+            for (Class<?> controller : controllers.stream().sorted(Comparator.comparing(Class::getName)).toList()) {
+                ControllerFragment fragment = loadCached(controller);
+                if (fragment != null) {
+                    registerSchemas(fragment);
+                } else {
+                    fragment = processAndStore(controller);
+                }
+                if (metrics != null) {
+                    fragment.paths().forEach((path, pathItem) -> pathItem.readOperationsMap().forEach(
+                            (httpMethod, operation) -> operationRefs.put(path + " " + httpMethod,
+                                    countRefs(operationSchemas(operation, new ArrayDeque<>())))));
                 }
+                assignSchemaNames(fragment);
+                // Renamed on a copy: later controllers still share the $ref instances of this one
+                Paths paths = SchemaNames.MAPPER.convertValue(fragment.paths(), Paths.class);
+                renameRefs(operationSchemas(paths));
+                consumer.accept(controller, new ControllerFragment(paths, fragment.schemas(), fragment.schemaTypes(),
+                        fragment.dependencies()));
             }
+        } finally {
+            this.pool = null;
+        }
+        if (metrics != null) {
+            metrics.addRefs(operationRefs.values().stream().mapToLong(Long::longValue).sum());
+            recordComponentMetrics(getComponentSchemas());
         }
     }
 
-    private void processController(Class<?> controller, OpenAPI openAPI) {
-        String classLevelPath = getPathFromAnnotation(controller.getAnnotation(RequestMapping.class), "");
+    // The component schemas after a streaming build, by component name, as renamed copies
+    @SuppressWarnings("rawtypes")
+    public Map<String, Schema> getComponentSchemas() {
+        Map<String, Schema> componentSchemas = new TreeMap<>();
+        for (String name : new TreeSet<>(schemas.keySet())) {
+            componentSchemas.computeIfAbsent(assignSchemaName(name), componentName -> {
+                Schema copy = SchemaNames.MAPPER.convertValue(schemas.get(name).join(), Schema.class);
+                Deque<Schema<?>> pending = new ArrayDeque<>();
+                enqueue(pending, copy);
+                renameRefs(pending);
+                return copy;
+            });
+        }
+        return componentSchemas;
+    }
 
-        for (Method method : controller.getDeclaredMethods()) {
-            processMethod(method, classLevelPath, openAPI);
+    // In the order the fragment reaches its schemas, so names do not depend on the order threads registered them
+    private void assignSchemaNames(ControllerFragment fragment) {
+        fragment.schemas().keySet().forEach(this::assignSchemaName);
+    }
+
+    private String assignSchemaName(String name) {
+        if (!schemaNames.isAssigned(name) && schemas.containsKey(name)) {
+            return schemaNames.assign(name, schemas.get(name).join());
         }
+        return schemaNames.get(name);
     }
 
-    private void processMethod(Method method, String classLevelPath, OpenAPI openAPI) {
-        Optional<MappingInfo> mappingInfoOpt = findMappingAnnotation(method);
+    private void renameRefs(Deque<Schema<?>> pending) {
+        while (!pending.isEmpty()) {
+            Schema<?> schema = pending.pop();
+            if (schema.get$ref() != null) {
+                schema.set$ref(schemaNames.rename(schema.get$ref()));
+            } else {
+                enqueueChildren(pending, schema);
+            }
+        }
+    }
+
+    // The paths a controller maps, from its annotations alone; no operations or schemas are built.
+    public Set<String> findPaths(Class<?> controller) {
+        MappingDescriptor controllerMapping = MappingDescriptor.of(controller);
+        Set<String> paths = new LinkedHashSet<>();
+        for (Method method : sortedMethods(controller)) {
+            handlerMapping(method, controllerMapping).ifPresent(mapping -> paths.addAll(mapping.paths()));
+        }
+        return paths;
+    }
+
+    // The fragment of the previous generation, or null when the controller or what it uses changed
+    private ControllerFragment loadCached(Class<?> controller) {
+        if (fragmentCache == null) {
+            return null;
+        }
+        FlightEvents.ControllerProcessed event = new FlightEvents.ControllerProcessed();
+        event.begin();
+        ControllerFragment fragment = fragmentCache.load(controller);
+        if (fragment != null) {
+            commit(event, controller, fragment, true);
+        }
+        return fragment;
+    }
+
+    private ControllerFragment processAndStore(Class<?> controller) {
+        FlightEvents.ControllerProcessed event = new FlightEvents.ControllerProcessed();
+        event.begin();
+        long start = System.nanoTime();
+        ControllerFragment fragment = processController(controller);
+        if (metrics != null) {
+            metrics.recordController(controller.getName(), System.nanoTime() - start);
+        }
+        if (fragmentCache != null) {
+            fragmentCache.store(controller, fragment);
+        }
+        commit(event, controller, fragment, false);
+        return fragment;
+    }
+
+    private static void commit(FlightEvents.ControllerProcessed event, Class<?> controller,
+            ControllerFragment fragment, boolean reused) {
+        if (event.shouldCommit()) {
+            event.controller = controller.getName();
+            event.operations = fragment.paths().values().stream()
+                    .mapToInt(pathItem -> pathItem.readOperations().size())
+                    .sum();
+            event.reused = reused;
+            event.commit();
+        }
+    }
+
+    private void processControllerAdvice(Set<Class<?>> controllerAdvices) {
+        // Spring consults advices in @Order order; ties are broken by name to keep the output stable
+        List<Class<?>> orderedAdvices = controllerAdvices.stream()
+                .sorted(Comparator.<Class<?>>comparingInt(advice -> OrderUtils.getOrder(advice, Ordered.LOWEST_PRECEDENCE))
+                        .thenComparing(Class::getName))
+                .toList();
+        for (Class<?> adviceClass : orderedAdvices) {
+            ExceptionHandlerMethodResolver resolver = new ExceptionHandlerMethodResolver(adviceClass);
+            if (resolver.hasExceptionMappings()) {
+                adviceResolvers.add(resolver);
+                adviceExceptionTypes.addAll(findHandledExceptionTypes(adviceClass));
+            }
+        }
+        globalErrorResponses = resolveErrorResponses(null, Set.of());
+    }
+
+    private ControllerFragment processController(Class<?> controller) {
+        MappingDescriptor controllerMapping = MappingDescriptor.of(controller);
 
-        mappingInfoOpt.ifPresent(mappingInfo -> {
-            String methodLevelPath = getPathFromAnnotation(mappingInfo.annotation, "");
-            String fullPath = (classLevelPath + methodLevelPath).replaceAll("//", "/");
+        // Controllers without their own @ExceptionHandler methods share the advices' error responses
+        ExceptionHandlerMethodResolver localResolver = new ExceptionHandlerMethodResolver(controller);
+        ErrorResponses errorResponses = localResolver.hasExceptionMappings()
+                ? resolveErrorResponses(localResolver, findHandledExceptionTypes(controller))
+                : globalErrorResponses;
 
-            PathItem pathItem = openAPI.getPaths().computeIfAbsent(fullPath, k -> new PathItem());
-            Operation operation = createOperation(method);
+        Paths paths = new Paths();
+        List<List<MappedOperation>> operations = map(sortedMethods(controller),
+                method -> processMethod(controller, method, controllerMapping, errorResponses));
+        operations.forEach(mapped -> mapped.forEach(operation -> paths
+                .computeIfAbsent(operation.path(), k -> new PathItem())
+                .operation(operation.httpMethod(), operation.operation())));
 
-            pathItem.operation(mappingInfo.httpMethod, operation);
+        // Collect the component schemas reachable from this controller's operations, so the fragment stands alone
+        @SuppressWarnings("rawtypes")
+        Map<String, Schema> fragmentSchemas = new LinkedHashMap<>();
+        Map<String, String> fragmentSchemaTypes = new LinkedHashMap<>();
+        Set<String> dependencies = new LinkedHashSet<>();
+        dependencies.add(controller.getName());
+        // Handlers and their generic signatures may be inherited
+        dependencies.addAll(supertypeNames(controller, true));
+        for (String schemaName : collectReferencedSchemas(paths)) {
+            fragmentSchemas.put(schemaName, schemas.get(schemaName).join());
+            String schemaType = schemaTypes.get(schemaName);
+            if (schemaType != null) {
+                fragmentSchemaTypes.put(schemaName, schemaType);
+                dependencies.add(schemaType);
+                // Schemas include the fields of superclasses
+                try {
+                    dependencies.addAll(supertypeNames(
+                            Class.forName(schemaType, false, controller.getClassLoader()), false));
+                } catch (ClassNotFoundException e) {
+                    // Only recorded by name; the class itself is a dependency already
+                }
+            }
+        }
+        dependencies.addAll(errorResponses.dependencies());
+        return new ControllerFragment(paths, fragmentSchemas, fragmentSchemaTypes, dependencies);
+    }
+
+    // One operation per path and HTTP method the handler is mapped to. Operation ids after the first are numbered,
+    // since they must be unique within the spec.
+    private List<MappedOperation> processMethod(Class<?> controller, Method method,
+            MappingDescriptor controllerMapping, ErrorResponses errorResponses) {
+        Optional<MappingDescriptor> mapping = handlerMapping(method, controllerMapping);
+        if (mapping.isEmpty()) {
+            return List.of();
+        }
+        List<MappedOperation> operations = new ArrayList<>();
+        for (String path : mapping.get().paths()) {
+            for (PathItem.HttpMethod httpMethod : mapping.get().httpMethods()) {
+                Operation operation = createOperation(controller, method, mapping.get(), httpMethod,
+                        errorResponses);
+                if (!operations.isEmpty()) {
+                    operation.setOperationId(operation.getOperationId() + "_" + operations.size());
+                }
+                operations.add(new MappedOperation(path, httpMethod, operation));
+            }
+        }
+        return operations;
+    }
+
+    // Empty for methods that are not request handlers, or whose mapping names no HTTP method
+    private static Optional<MappingDescriptor> handlerMapping(Method method, MappingDescriptor controllerMapping) {
+        MappingDescriptor mapping = MappingDescriptor.of(method);
+        if (!mapping.isMapped()) {
+            return Optional.empty();
+        }
+        MappingDescriptor combined = mapping.within(controllerMapping);
+        return combined.httpMethods().isEmpty() ? Optional.empty() : Optional.of(combined);
+    }
+
+    private void merge(ControllerFragment fragment, OpenAPI openAPI) {
+        fragment.paths().forEach((path, fragmentItem) -> {
+            PathItem pathItem = openAPI.getPaths().computeIfAbsent(path, k -> new PathItem());
+            fragmentItem.readOperationsMap().forEach(pathItem::operation);
         });
+        registerSchemas(fragment);
+    }
+
+    private void registerSchemas(ControllerFragment fragment) {
+        fragment.schemas().forEach((name, schema) -> schemas.putIfAbsent(name, CompletableFuture.completedFuture(schema)));
+        fragment.schemaTypes().forEach(schemaTypes::putIfAbsent);
     }
 
-    private Operation createOperation(Method method) {
+    // Maps in list order, on the fork-join pool when building in parallel.
+    private <T, R> List<R> map(List<T> items, Function<T, R> mapper) {
+        if (pool == null) {
+            return items.stream().map(mapper).toList();
+        }
+        if (ForkJoinTask.inForkJoinPool()) {
+            return items.parallelStream().map(mapper).toList();
+        }
+        return pool.submit(() -> items.parallelStream().map(mapper).toList()).join();
+    }
+
+    // The controller's own and inherited methods, as Spring MVC looks for handlers: a method overridden or implemented
+    // by the controller counts once, and bridge methods not at all. Reflection has no defined order, so sort for
+    // reproducible output.
+    private static List<Method> sortedMethods(Class<?> type) {
+        return MethodIntrospector.selectMethods(type, ReflectionUtils.USER_DECLARED_METHODS).stream()
+                .sorted(Comparator.comparing(Method::getName)
+                        .thenComparing(method -> Arrays.toString(method.getParameterTypes())))
+                .toList();
+    }
+
+    // Superclasses outside the JDK, and with interfaces their interfaces too
+    private static List<String> supertypeNames(Class<?> type, boolean interfaces) {
+        List<String> names = new ArrayList<>();
+        for (Class<?> superclass = type.getSuperclass(); superclass != null
+                && !superclass.getName().startsWith("java."); superclass = superclass.getSuperclass()) {
+            names.add(superclass.getName());
+        }
+        if (interfaces) {
+            ClassUtils.getAllInterfacesForClassAsSet(type).stream().map(Class::getName)
+                    .filter(name -> !name.startsWith("java.")).sorted().forEach(names::add);
+        }
+        return names;
+    }
+
+    // Parameter and return types are resolved against the controller, which binds the type variables of inherited
+    // handlers
+    private Operation createOperation(Class<?> controller, Method method, MappingDescriptor mapping,
+            PathItem.HttpMethod httpMethod, ErrorResponses errorResponses) {
         Operation operation = new Operation()
-                .operationId(method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                .operationId(controller.getSimpleName() + "." + method.getName())
                 .summary(StringUtils.capitalize(method.getName()));
 
         // Process parameters (@PathVariable, @RequestParam, @RequestHeader)
-        for (java.lang.reflect.Parameter parameter : method.getParameters()) {
-            if (parameter.isAnnotationPresent(org.springframework.web.bind.annotation.RequestBody.class)) {
-                operation.setRequestBody(createRequestBody(parameter));
+        java.lang.reflect.Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Type type = GenericTypes.parameterType(method, i, controller);
+            if (parameters[i].isAnnotationPresent(org.springframework.web.bind.annotation.RequestBody.class)) {
+                operation.setRequestBody(createRequestBody(parameters[i], type, mapping));
             } else {
-                createParameter(parameter).ifPresent(operation::addParametersItem);
+                createParameter(parameters[i], type).ifPresent(operation::addParametersItem);
             }
         }
 
         // Process responses
-        operation.setResponses(createApiResponses(method));
+        operation.setResponses(createApiResponses(GenericTypes.returnType(method, controller), method, mapping,
+                httpMethod, errorResponses));
 
         return operation;
     }
 
-    private RequestBody createRequestBody(java.lang.reflect.Parameter parameter) {
-        Schema<?> schema = createSchema(parameter.getParameterizedType(), parameter);
-        MediaType mediaType = new MediaType().schema(schema);
-        Content content = new Content().addMediaType(org.springframework.http.MediaType.APPLICATION_JSON_VALUE,
-                mediaType);
+    private RequestBody createRequestBody(java.lang.reflect.Parameter parameter, Type type,
+            MappingDescriptor mapping) {
+        Schema<?> schema = createSchema(type, parameter);
+        Content content = content(mapping.consumes(), schema);
 
         org.springframework.web.bind.annotation.RequestBody requestBodyAnn = parameter
                 .getAnnotation(org.springframework.web.bind.annotation.RequestBody.class);
@@ -154,7 +537,7 @@ public class OpenApiBuilder {
                 .required(requestBodyAnn.required());
     }
 
-    private Optional<Parameter> createParameter(java.lang.reflect.Parameter parameter) {
+    private Optional<Parameter> createParameter(java.lang.reflect.Parameter parameter, Type type) {
         Parameter p = null;
         if (parameter.isAnnotationPresent(PathVariable.class)) {
             PathVariable ann = parameter.getAnnotation(PathVariable.class);
@@ -177,25 +560,20 @@ public class OpenApiBuilder {
         // it might be a model attribute or other Spring-managed parameter, which we
         // currently ignore.
         if (p != null) {
-            p.setSchema(createSchema(parameter.getParameterizedType(), parameter));
+            p.setSchema(createSchema(type, parameter));
             return Optional.of(p);
         }
         return Optional.empty();
     }
 
-    private ApiResponses createApiResponses(Method method) {
+    private ApiResponses createApiResponses(Type returnType, Method method, MappingDescriptor mapping,
+            PathItem.HttpMethod httpMethod, ErrorResponses errorResponses) {
         ApiResponses responses = new ApiResponses();
         ApiResponse apiResponse = new ApiResponse();
 
-        Type returnType = method.getGenericReturnType();
         if (returnType != void.class && returnType != Void.class) {
-            Schema<?> schema = createSchema(method.getGenericReturnType(), method.getAnnotatedReturnType());
-            apiResponse.setContent(new Content().addMediaType(org.springframework.http.MediaType.APPLICATION_JSON_VALUE,
-                    new MediaType().schema(schema)));
-            if (schema != null) {
-                apiResponse.setContent(new Content().addMediaType(
-                        org.springframework.http.MediaType.APPLICATION_JSON_VALUE, new MediaType().schema(schema)));
-            }
+            Schema<?> schema = createSchema(returnType, method.getAnnotatedReturnType());
+            apiResponse.setContent(content(mapping.produces(), schema));
         }
 
         ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(method, ResponseStatus.class);
@@ -205,8 +583,7 @@ public class OpenApiBuilder {
             apiResponse.description(responseStatus.reason());
         } else {
             // Infer from HTTP method
-            Optional<MappingInfo> mappingInfo = findMappingAnnotation(method);
-            if (mappingInfo.isPresent() && mappingInfo.get().httpMethod == PathItem.HttpMethod.POST) {
+            if (httpMethod == PathItem.HttpMethod.POST) {
                 statusCode = "201";
             }
         }
@@ -220,37 +597,46 @@ public class OpenApiBuilder {
         }
 
         responses.addApiResponse(statusCode, apiResponse);
-        addErrorResponses(responses, method);
+        // The success response keeps its status code; otherwise the first handler per status code wins
+        errorResponses.responses().forEach((errorStatusCode, errorResponse) -> {
+            if (!responses.containsKey(errorStatusCode)) {
+                responses.addApiResponse(errorStatusCode, errorResponse);
+            }
+        });
         return responses;
     }
 
-    private void addErrorResponses(ApiResponses responses, Method controllerMethod) {
-        Map<Class<? extends Throwable>, Method> handlers = new HashMap<>(globalExceptionHandlers);
+    // Resolves every handled exception type once, the way Spring picks a handler at runtime: the controller's own
+    // @ExceptionHandler methods first, then each advice in turn, with the handler for the closest superclass winning.
+    // The resulting responses are shared by all operations of the controller.
+    private ErrorResponses resolveErrorResponses(ExceptionHandlerMethodResolver localResolver,
+            Set<Class<? extends Throwable>> localExceptionTypes) {
+        Set<Class<? extends Throwable>> exceptionTypes = new TreeSet<>(Comparator.comparing(Class::getName));
+        exceptionTypes.addAll(localExceptionTypes);
+        exceptionTypes.addAll(adviceExceptionTypes);
 
-        // Local handlers in the same controller override global ones
-        for (Method handlerMethod : controllerMethod.getDeclaringClass().getDeclaredMethods()) {
-            if (handlerMethod.isAnnotationPresent(ExceptionHandler.class)) {
-                ExceptionHandler handler = handlerMethod.getAnnotation(ExceptionHandler.class);
-                for (Class<? extends Throwable> exceptionClass : handler.value()) {
-                    handlers.put(exceptionClass, handlerMethod);
-                }
+        Map<String, ApiResponse> responses = new LinkedHashMap<>();
+        Set<String> dependencies = new LinkedHashSet<>();
+        for (Class<? extends Throwable> exceptionType : exceptionTypes) {
+            Method handlerMethod = resolveHandlerMethod(localResolver, exceptionType);
+            if (handlerMethod == null) {
+                continue;
             }
-        }
+            dependencies.add(exceptionType.getName());
+            dependencies.add(handlerMethod.getDeclaringClass().getName());
 
-        for (Map.Entry<Class<? extends Throwable>, Method> entry : handlers.entrySet()) {
-            Method handlerMethod = entry.getValue();
             ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(handlerMethod,
                     ResponseStatus.class);
             if (responseStatus == null) {
                 // Try finding it on the exception class itself
-                responseStatus = AnnotatedElementUtils.findMergedAnnotation(entry.getKey(), ResponseStatus.class);
+                responseStatus = AnnotatedElementUtils.findMergedAnnotation(exceptionType, ResponseStatus.class);
             }
 
             HttpStatus status = responseStatus != null ? responseStatus.value() : HttpStatus.INTERNAL_SERVER_ERROR;
             String statusCode = String.valueOf(status.value());
-
-            if (responses.containsKey(statusCode))
+            if (responses.containsKey(statusCode)) {
                 continue;
+            }
 
             ApiResponse errorResponse = new ApiResponse();
             String description = responseStatus != null && StringUtils.hasText(responseStatus.reason())
@@ -258,28 +644,97 @@ public class OpenApiBuilder {
                     : status.getReasonPhrase();
             errorResponse.description(description);
 
-            Type returnType = handlerMethod.getGenericReturnType();
+            Type returnType = GenericTypes.returnType(handlerMethod, handlerMethod.getDeclaringClass());
             if (returnType != void.class && returnType != Void.class) {
-                Schema<?> schema = createSchema(handlerMethod.getGenericReturnType(),
-                        handlerMethod.getAnnotatedReturnType());
+                Schema<?> schema = createSchema(returnType, handlerMethod.getAnnotatedReturnType());
                 errorResponse.setContent(new Content().addMediaType(
                         org.springframework.http.MediaType.APPLICATION_JSON_VALUE, new MediaType().schema(schema)));
+            }
+            responses.put(statusCode, errorResponse);
+        }
+        return new ErrorResponses(responses, dependencies);
+    }
 
-                if (schema != null) {
-                    errorResponse.setContent(new Content().addMediaType(
-                            org.springframework.http.MediaType.APPLICATION_JSON_VALUE, new MediaType().schema(schema)));
+    private Method resolveHandlerMethod(ExceptionHandlerMethodResolver localResolver,
+            Class<? extends Throwable> exceptionType) {
+        if (localResolver != null) {
+            Method handlerMethod = localResolver.resolveMethodByExceptionType(exceptionType);
+            if (handlerMethod != null) {
+                return handlerMethod;
+            }
+        }
+        for (ExceptionHandlerMethodResolver adviceResolver : adviceResolvers) {
+            Method handlerMethod = adviceResolver.resolveMethodByExceptionType(exceptionType);
+            if (handlerMethod != null) {
+                return handlerMethod;
+            }
+        }
+        return null;
+    }
+
+    // The exception types declared by @ExceptionHandler methods, or taken from their parameters when the
+    // annotation lists none, as Spring does.
+    @SuppressWarnings("unchecked")
+    private static Set<Class<? extends Throwable>> findHandledExceptionTypes(Class<?> handlerType) {
+        Set<Class<? extends Throwable>> exceptionTypes = new LinkedHashSet<>();
+        for (Method method : MethodIntrospector.selectMethods(handlerType,
+                ExceptionHandlerMethodResolver.EXCEPTION_HANDLER_METHODS)) {
+            ExceptionHandler handler = AnnotatedElementUtils.findMergedAnnotation(method, ExceptionHandler.class);
+            if (handler != null && handler.value().length > 0) {
+                exceptionTypes.addAll(Arrays.asList(handler.value()));
+            } else {
+                for (Class<?> parameterType : method.getParameterTypes()) {
+                    if (Throwable.class.isAssignableFrom(parameterType)) {
+                        exceptionTypes.add((Class<? extends Throwable>) parameterType);
+                    }
                 }
             }
-            responses.addApiResponse(statusCode, errorResponse);
         }
+        return exceptionTypes;
     }
 
     private Schema<?> createSchema(Type type) {
         return createSchema(type, null);
     }
 
-    @SuppressWarnings("deprecation")
+    // Resolutions are memoized by canonical generic type plus the validation constraints on the element. The returned
+    // schema may be shared by many operations and properties, so it must not be modified afterwards.
     private Schema<?> createSchema(Type type, AnnotatedElement annotatedElement) {
+        FlightEvents.SchemaResolved event = new FlightEvents.SchemaResolved();
+        event.begin();
+        type = GenericTypes.canonical(type);
+        SchemaKey key = new SchemaKey(type, findConstraints(annotatedElement));
+        Schema<?> cached = schemaCache.get(key);
+        if (cached != null) {
+            schemaCacheHits.increment();
+            commit(event, type, true);
+            return cached;
+        }
+        schemaCacheMisses.increment();
+        Schema<?> schema = resolveSchema(type, annotatedElement);
+        commit(event, type, false);
+        if (schema == null) {
+            return null;
+        }
+        Schema<?> interned = internedSchemas.putIfAbsent(schema, schema);
+        if (interned != null) {
+            schemasInterned.increment();
+            schema = interned;
+        }
+        Schema<?> existing = schemaCache.putIfAbsent(key, schema);
+        return existing != null ? existing : schema;
+    }
+
+    private static void commit(FlightEvents.SchemaResolved event, Type type, boolean cacheHit) {
+        if (event.shouldCommit()) {
+            event.typeName = type.getTypeName();
+            event.cacheHit = cacheHit;
+            event.commit();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private Schema<?> resolveSchema(Type type, AnnotatedElement annotatedElement) {
 
         // Handle reactive types by unwrapping them.
         if (type instanceof ParameterizedType pType) {
@@ -355,34 +810,55 @@ public class OpenApiBuilder {
             return schema;
         }
 
-        // Handle POJOs
+        // Handle POJOs; every parameterization of a generic class, e.g. Page<Tutorial>, is a schema of its own
         if (!clazz.isPrimitive() && !clazz.getName().startsWith("java.")) {
-            String schemaName = clazz.getSimpleName();
-            if (schemas.containsKey(schemaName)) {
-                return new Schema<>().$ref("#/components/schemas/" + schemaName);
+            String schemaName = type.getTypeName();
+            // Add a placeholder to handle circular references; only the thread that registers it fills it in
+            @SuppressWarnings("rawtypes")
+            CompletableFuture<Schema> definition = new CompletableFuture<>();
+            if (schemas.putIfAbsent(schemaName, definition) != null) {
+                return new Schema<>().$ref(SchemaNames.REF_PREFIX + schemaName);
             }
+            schemaTypes.put(schemaName, clazz.getName());
 
+            long start = System.nanoTime();
             ObjectSchema pojoSchema = new ObjectSchema();
-            // Add a placeholder to handle circular references
-            schemas.put(schemaName, pojoSchema);
-
-            // Reflect on all declared fields (including private)
-            for (Field field : clazz.getDeclaredFields()) {
-                if (java.lang.reflect.Modifier.isStatic(field.getModifiers())) {
-                    continue;
+            try {
+                // Reflect on all declared fields (including private), of superclasses too
+                for (GenericTypes.ResolvedField resolvedField : genericTypes.fields(type)) {
+                    Field field = resolvedField.field();
+                    pojoSchema.addProperties(field.getName(), createSchema(resolvedField.type(), field));
+                    if (field.isAnnotationPresent(NotNull.class) || field.isAnnotationPresent(NotBlank.class)
+                            || field.isAnnotationPresent(NotEmpty.class)) {
+                        pojoSchema.addRequiredItem(field.getName());
+                    }
                 }
-                pojoSchema.addProperties(field.getName(), createSchema(field.getGenericType(), field));
-                if (field.isAnnotationPresent(NotNull.class) || field.isAnnotationPresent(NotBlank.class)
-                        || field.isAnnotationPresent(NotEmpty.class)) {
-                    pojoSchema.addRequiredItem(field.getName());
+            } finally {
+                definition.complete(pojoSchema);
+                if (metrics != null) {
+                    metrics.recordSchema(schemaName, System.nanoTime() - start);
                 }
             }
-            return new Schema<>().$ref("#/components/schemas/" + schemaName);
+            return new Schema<>().$ref(SchemaNames.REF_PREFIX + schemaName);
         }
 
         return new ObjectSchema().description("Unsupported type: " + type.getTypeName());
     }
 
+    private List<Annotation> findConstraints(AnnotatedElement element) {
+        if (element == null) {
+            return List.of();
+        }
+        List<Annotation> constraints = new ArrayList<>(2);
+        for (Class<? extends Annotation> constraintType : SCHEMA_CONSTRAINTS) {
+            Annotation constraint = element.getAnnotation(constraintType);
+            if (constraint != null) {
+                constraints.add(constraint);
+            }
+        }
+        return constraints;
+    }
+
     private void applyValidationAnnotations(Schema<?> schema, AnnotatedElement element) {
         if (element == null) {
             return;
@@ -426,40 +902,109 @@ public class OpenApiBuilder {
 
     // --- Helper Methods ---
 
-    private record MappingInfo(Annotation annotation, PathItem.HttpMethod httpMethod) {
-    }
-
-    private Optional<MappingInfo> findMappingAnnotation(Method method) {
-        if (method.isAnnotationPresent(GetMapping.class))
-            return Optional.of(new MappingInfo(method.getAnnotation(GetMapping.class), PathItem.HttpMethod.GET));
-        if (method.isAnnotationPresent(PostMapping.class))
-            return Optional.of(new MappingInfo(method.getAnnotation(PostMapping.class), PathItem.HttpMethod.POST));
-        if (method.isAnnotationPresent(PutMapping.class))
-            return Optional.of(new MappingInfo(method.getAnnotation(PutMapping.class), PathItem.HttpMethod.PUT));
-        if (method.isAnnotationPresent(DeleteMapping.class))
-            return Optional.of(new MappingInfo(method.getAnnotation(DeleteMapping.class), PathItem.HttpMethod.DELETE));
-        if (method.isAnnotationPresent(PatchMapping.class))
-            return Optional.of(new MappingInfo(method.getAnnotation(PatchMapping.class), PathItem.HttpMethod.PATCH));
-        if (method.isAnnotationPresent(RequestMapping.class)) {
-            RequestMapping ann = method.getAnnotation(RequestMapping.class);
-            if (ann.method().length > 0) {
-                // Simplified: takes the first method. A real tool would create an entry for
-                // each.
-                return Optional.of(new MappingInfo(ann, PathItem.HttpMethod.valueOf(ann.method()[0].name())));
+    // Error responses by status code, plus the names of the handler and exception classes they were derived from
+    private record ErrorResponses(Map<String, ApiResponse> responses, Set<String> dependencies) {
+    }
+
+    private record SchemaKey(Type type, List<Annotation> constraints) {
+    }
+
+    public record SchemaCacheStats(long hits, long misses, long interned) {
+    }
+
+    private record MappedOperation(String path, PathItem.HttpMethod httpMethod, Operation operation) {
+    }
+
+    // The schema under each media type, or under application/json when the mapping names none
+    private static Content content(List<String> mediaTypes, Schema<?> schema) {
+        Content content = new Content();
+        for (String mediaType : mediaTypes.isEmpty()
+                ? List.of(org.springframework.http.MediaType.APPLICATION_JSON_VALUE) : mediaTypes) {
+            content.addMediaType(mediaType, new MediaType().schema(schema));
+        }
+        return content;
+    }
+
+    // Names of the component schemas referenced from the given paths, following $refs between schemas.
+    private Set<String> collectReferencedSchemas(Paths paths) {
+        Set<String> names = new LinkedHashSet<>();
+        Deque<Schema<?>> pending = operationSchemas(paths);
+        while (!pending.isEmpty()) {
+            Schema<?> schema = pending.pop();
+            if (schema.get$ref() != null) {
+                String name = schema.get$ref().substring(schema.get$ref().lastIndexOf('/') + 1);
+                if (names.add(name) && schemas.containsKey(name)) {
+                    pending.add(schemas.get(name).join());
+                }
+                continue;
             }
+            enqueueChildren(pending, schema);
         }
-        return Optional.empty();
+        return names;
     }
 
-    private String getPathFromAnnotation(Annotation annotation, String defaultValue) {
-        if (annotation == null)
-            return defaultValue;
-        try {
-            Method valueMethod = annotation.annotationType().getMethod("value");
-            String[] paths = (String[]) valueMethod.invoke(annotation);
-            return (paths.length > 0) ? paths[0] : defaultValue;
-        } catch (Exception e) {
-            return defaultValue;
+    @SuppressWarnings("rawtypes")
+    private void recordComponentMetrics(Map<String, Schema> componentSchemas) {
+        Deque<Schema<?>> pending = new ArrayDeque<>();
+        componentSchemas.values().forEach(schema -> enqueue(pending, schema));
+        metrics.addRefs(countRefs(pending));
+        metrics.count("componentSchemas", componentSchemas.size());
+    }
+
+    // Number of $refs written for the given schemas, without following them
+    private static long countRefs(Deque<Schema<?>> pending) {
+        long refs = 0;
+        while (!pending.isEmpty()) {
+            Schema<?> schema = pending.pop();
+            if (schema.get$ref() != null) {
+                refs++;
+            } else {
+                enqueueChildren(pending, schema);
+            }
+        }
+        return refs;
+    }
+
+    // The schemas used directly by the parameters, request bodies and responses of the given paths
+    private static Deque<Schema<?>> operationSchemas(Paths paths) {
+        Deque<Schema<?>> pending = new ArrayDeque<>();
+        paths.values().forEach(pathItem -> pathItem.readOperations()
+                .forEach(operation -> operationSchemas(operation, pending)));
+        return pending;
+    }
+
+    private static Deque<Schema<?>> operationSchemas(Operation operation, Deque<Schema<?>> pending) {
+        if (operation.getParameters() != null) {
+            operation.getParameters().forEach(parameter -> enqueue(pending, parameter.getSchema()));
+        }
+        if (operation.getRequestBody() != null) {
+            addContentSchemas(operation.getRequestBody().getContent(), pending);
+        }
+        if (operation.getResponses() != null) {
+            operation.getResponses().values().forEach(response -> addContentSchemas(response.getContent(), pending));
+        }
+        return pending;
+    }
+
+    private static void enqueueChildren(Deque<Schema<?>> pending, Schema<?> schema) {
+        if (schema.getProperties() != null) {
+            schema.getProperties().values().forEach(property -> enqueue(pending, property));
+        }
+        enqueue(pending, schema.getItems());
+        if (schema.getAdditionalProperties() instanceof Schema<?> additionalProperties) {
+            enqueue(pending, additionalProperties);
+        }
+    }
+
+    private static void addContentSchemas(Content content, Deque<Schema<?>> pending) {
+        if (content != null) {
+            content.values().forEach(mediaType -> enqueue(pending, mediaType.getSchema()));
+        }
+    }
+
+    private static void enqueue(Deque<Schema<?>> pending, Schema<?> schema) {
+        if (schema != null) {
+            pending.add(schema);
         }
     }
 
@@ -470,17 +1015,18 @@ public class OpenApiBuilder {
         if (type instanceof ParameterizedType pType) {
             return Collection.class.isAssignableFrom((Class<?>) pType.getRawType());
         }
-        return false;
+        return type instanceof GenericArrayType;
     }
 
+    // Also binds the element type of collection classes, e.g. Tag for a class Tags extends ArrayList<Tag>
     private Type getCollectionItemType(Type type) {
         if (type instanceof Class<?> clazz && clazz.isArray()) {
             return clazz.getComponentType();
         }
-        if (type instanceof ParameterizedType pType) {
-            return pType.getActualTypeArguments()[0];
+        if (type instanceof GenericArrayType arrayType) {
+            return arrayType.getGenericComponentType();
         }
-        return Object.class;
+        return GenericTypes.canonical(ResolvableType.forType(type).asCollection().getGeneric(0));
     }
 
     private boolean isMap(Type type) {
@@ -493,14 +1039,9 @@ public class OpenApiBuilder {
         return false;
     }
 
+    // For Map<K, V>, we are interested in V
     private Type getMapValueType(Type type) {
-        if (type instanceof ParameterizedType pType) {
-            // For Map<K, V>, we are interested in V, which is the second type argument.
-            if (pType.getActualTypeArguments().length > 1) {
-                return pType.getActualTypeArguments()[1];
-            }
-        }
-        return Object.class;
+        return GenericTypes.canonical(ResolvableType.forType(type).asMap().getGeneric(1));
     }
 
     private Class<?> getClassFromType(Type type) {
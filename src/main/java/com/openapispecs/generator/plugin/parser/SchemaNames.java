@@ -0,0 +1,98 @@
+package com.openapispecs.generator.plugin.parser;
+
+import com.openapispecs.generator.plugin.parser.mixin.MediaTypeMixin;
+import com.openapispecs.generator.plugin.parser.mixin.SchemaMixin;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Component names of the schemas in the builder's registry, which identifies a schema by the fully qualified name of
+// the class it was built from. A schema takes the simple name of its class. A class of another package with the same
+// simple name shares that name when its schema is identical, and otherwise takes its fully qualified name. Names are
+// given in the order schemas first appear in the spec, and never change once given.
+//
+// Schemas of parameterized classes are identified by their type name, e.g. com.acme.Page<com.acme.Tutorial>, and named
+// by the simple names of the class and its type arguments in order, PageTutorial, or with qualified names joined by
+// underscores, com.acme.Page_com.acme.Tutorial, since component names may not contain brackets.
+public class SchemaNames {
+    static final String REF_PREFIX = "#/components/schemas/";
+    // Compares and copies schemas by their serialized form, which does not depend on the Schema subclass; schemas
+    // read back from the fragment cache are plain Schema instances
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .addMixIn(Schema.class, SchemaMixin.class)
+            .addMixIn(MediaType.class, MediaTypeMixin.class);
+
+    private final Map<String, String> names = new HashMap<>();
+    // Component name -> the definition that took it
+    @SuppressWarnings("rawtypes")
+    private final Map<String, Schema> definitions = new HashMap<>();
+
+    @SuppressWarnings("rawtypes")
+    public synchronized String assign(String className, Schema definition) {
+        String name = names.get(className);
+        if (name != null) {
+            return name;
+        }
+        name = simpleName(className);
+        Schema existing = definitions.get(name);
+        if (existing != null && !MAPPER.valueToTree(existing).equals(MAPPER.valueToTree(definition))) {
+            name = qualifiedName(className);
+        }
+        definitions.putIfAbsent(name, definition);
+        names.put(className, name);
+        return name;
+    }
+
+    public synchronized boolean isAssigned(String className) {
+        return names.containsKey(className);
+    }
+
+    // The component name given to the class's schema, or the class name if none was given yet
+    public synchronized String get(String className) {
+        return names.getOrDefault(className, className);
+    }
+
+    // Points a $ref at the component name of its schema; other refs, and refs already renamed, are returned as is
+    public String rename(String ref) {
+        if (ref == null || !ref.startsWith(REF_PREFIX)) {
+            return ref;
+        }
+        return REF_PREFIX + get(ref.substring(REF_PREFIX.length()));
+    }
+
+    private static String simpleName(String className) {
+        if (className.indexOf('<') < 0) {
+            return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+        }
+        StringBuilder name = new StringBuilder();
+        for (String part : typeNameParts(className)) {
+            name.append(simpleName(part));
+        }
+        return name.toString();
+    }
+
+    private static String qualifiedName(String className) {
+        if (className.indexOf('<') < 0) {
+            return className.replace('$', '.');
+        }
+        return String.join("_", typeNameParts(className)).replace('$', '.');
+    }
+
+    // com.acme.Page<java.util.List<com.acme.Tag[]>> -> com.acme.Page, java.util.List, com.acme.TagArray
+    private static List<String> typeNameParts(String typeName) {
+        List<String> parts = new ArrayList<>();
+        for (String part : typeName.replace("[]", "Array").split("[<>,]")) {
+            if (!part.isBlank()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,19 @@
+package com.openapispecs.generator.plugin.parser.mixin;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.io.IOException;
+
+// Schema.setAdditionalProperties only accepts a Boolean or a Schema, so a plain JSON object has to be read as a Schema.
+public class AdditionalPropertiesDeserializer extends JsonDeserializer<Object> {
+    @Override
+    public Object deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken().isBoolean()) {
+            return parser.getBooleanValue();
+        }
+        return context.readValue(parser, Schema.class);
+    }
+}
@@ -1,8 +1,13 @@
 package com.openapispecs.generator.plugin.parser.mixin;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 // This mix-in tells Jackson to ignore the specified properties on the Schema class during serialization.
 @JsonIgnoreProperties({ "exampleSetFlag", "types" })
 public abstract class SchemaMixin {
+
+    // Lets cached fragments be read back into Schema objects.
+    @JsonDeserialize(using = AdditionalPropertiesDeserializer.class)
+    abstract void setAdditionalProperties(Object additionalProperties);
 }
@@ -0,0 +1,222 @@
+package com.openapispecs.generator.plugin.processor;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// What AnnotatedElementUtils finds on loaded classes, read from annotation mirrors at compile time: annotations
+// declared directly or through composed annotations such as @GetMapping, with the attributes a composed annotation
+// overrides through @AliasFor, on a type and its supertypes or on a method and the methods it overrides.
+//
+// Attribute values are plain: strings, numbers and booleans as is, enum constants by name, classes as TypeMirrors
+// and arrays as lists, defaults included.
+final class AnnotationMirrors {
+    private static final String ALIAS_FOR = "org.springframework.core.annotation.AliasFor";
+
+    private final Elements elements;
+    private final Types types;
+
+    AnnotationMirrors(Elements elements, Types types) {
+        this.elements = elements;
+        this.types = types;
+    }
+
+    // The annotation declared directly on the element, or null
+    static AnnotationMirror find(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (name(mirror).equals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    // Whether the element carries the annotation directly or through meta-annotations
+    static boolean isAnnotated(Element element, String annotationType) {
+        return isAnnotated(element, annotationType, new HashSet<>());
+    }
+
+    private static boolean isAnnotated(Element element, String annotationType, Set<String> visited) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String name = name(mirror);
+            if (name.equals(annotationType)) {
+                return true;
+            }
+            if (!name.startsWith("java.lang.annotation.") && visited.add(name)
+                    && isAnnotated(mirror.getAnnotationType().asElement(), annotationType, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Map<String, Object> values(AnnotationMirror mirror) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        elements.getElementValuesWithDefaults(mirror).forEach((attribute, value) ->
+                values.put(attribute.getSimpleName().toString(), plain(value)));
+        return values;
+    }
+
+    // The merged annotation on the element itself, or null
+    Map<String, Object> findMerged(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            Map<String, Object> merged = merge(mirror, annotationType, new HashSet<>());
+            if (merged != null) {
+                return merged;
+            }
+        }
+        return null;
+    }
+
+    // The merged annotation on the type, or else the closest of its superclasses and interfaces, or null
+    Map<String, Object> findMergedOnHierarchy(TypeElement type, String annotationType) {
+        Deque<TypeElement> pending = new ArrayDeque<>(List.of(type));
+        Set<String> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            TypeElement current = pending.poll();
+            if (!visited.add(current.getQualifiedName().toString())) {
+                continue;
+            }
+            Map<String, Object> merged = findMerged(current, annotationType);
+            if (merged != null) {
+                return merged;
+            }
+            supertypes(current).forEach(pending::add);
+        }
+        return null;
+    }
+
+    // The merged annotation on the method, or else on the closest method it overrides, or null
+    Map<String, Object> findMergedOnMethod(ExecutableElement method, String annotationType) {
+        Map<String, Object> merged = findMerged(method, annotationType);
+        if (merged != null) {
+            return merged;
+        }
+        for (ExecutableElement overridden : overriddenMethods(method)) {
+            merged = findMerged(overridden, annotationType);
+            if (merged != null) {
+                return merged;
+            }
+        }
+        return null;
+    }
+
+    boolean isAnnotatedOnMethod(ExecutableElement method, String annotationType) {
+        if (isAnnotated(method, annotationType)) {
+            return true;
+        }
+        return overriddenMethods(method).stream().anyMatch(overridden -> isAnnotated(overridden, annotationType));
+    }
+
+    // Methods of the superclasses and interfaces of the declaring type that the method overrides, closest first
+    private List<ExecutableElement> overriddenMethods(ExecutableElement method) {
+        TypeElement owner = (TypeElement) method.getEnclosingElement();
+        List<ExecutableElement> overridden = new ArrayList<>();
+        Deque<TypeElement> pending = new ArrayDeque<>(supertypes(owner));
+        Set<String> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            TypeElement current = pending.poll();
+            if (!visited.add(current.getQualifiedName().toString())) {
+                continue;
+            }
+            for (Element member : current.getEnclosedElements()) {
+                if (member instanceof ExecutableElement candidate
+                        && candidate.getSimpleName().equals(method.getSimpleName())
+                        && elements.overrides(method, candidate, owner)) {
+                    overridden.add(candidate);
+                }
+            }
+            pending.addAll(supertypes(current));
+        }
+        return overridden;
+    }
+
+    private List<TypeElement> supertypes(TypeElement type) {
+        Set<TypeElement> supertypes = new LinkedHashSet<>();
+        for (TypeMirror supertype : types.directSupertypes(type.asType())) {
+            if (supertype.getKind() == TypeKind.DECLARED) {
+                supertypes.add((TypeElement) ((DeclaredType) supertype).asElement());
+            }
+        }
+        return new ArrayList<>(supertypes);
+    }
+
+    // The attributes of the annotation type when the mirror is, or is composed of, one
+    private Map<String, Object> merge(AnnotationMirror mirror, String annotationType, Set<String> visited) {
+        String name = name(mirror);
+        if (name.equals(annotationType)) {
+            return values(mirror);
+        }
+        if (name.startsWith("java.lang.annotation.") || !visited.add(name)) {
+            return null;
+        }
+        TypeElement composed = (TypeElement) mirror.getAnnotationType().asElement();
+        for (AnnotationMirror meta : composed.getAnnotationMirrors()) {
+            Map<String, Object> merged = merge(meta, annotationType, visited);
+            if (merged == null) {
+                continue;
+            }
+            // Attributes set on the composed annotation replace the ones they are aliases for. An alias for an
+            // attribute of an intermediate composed annotation is taken to have the same name on the target.
+            mirror.getElementValues().forEach((attribute, value) -> {
+                AnnotationMirror aliasFor = find(attribute, ALIAS_FOR);
+                if (aliasFor == null) {
+                    return;
+                }
+                Map<String, Object> alias = values(aliasFor);
+                String targetType = alias.get("annotation") instanceof DeclaredType declared
+                        ? ((TypeElement) declared.asElement()).getQualifiedName().toString()
+                        : name;
+                if (targetType.equals(name) || targetType.equals("java.lang.annotation.Annotation")) {
+                    return;
+                }
+                String target = (String) alias.get("attribute");
+                if (target.isEmpty()) {
+                    target = (String) alias.get("value");
+                }
+                if (target.isEmpty()) {
+                    target = attribute.getSimpleName().toString();
+                }
+                merged.put(target, plain(value));
+            });
+            return merged;
+        }
+        return null;
+    }
+
+    private static String name(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static Object plain(AnnotationValue value) {
+        Object plain = value.getValue();
+        if (plain instanceof List<?> list) {
+            List<Object> values = new ArrayList<>(list.size());
+            for (Object element : list) {
+                values.add(plain((AnnotationValue) element));
+            }
+            return values;
+        }
+        if (plain instanceof VariableElement constant) {
+            return constant.getSimpleName().toString();
+        }
+        return plain;
+    }
+}
@@ -0,0 +1,727 @@
+package com.openapispecs.generator.plugin.processor;
+
+import com.openapispecs.generator.plugin.parser.MappingDescriptor;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.IntegerSchema;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.NumberSchema;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+
+import javax.lang.model.AnnotatedConstruct;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Builds the operations of controllers, and the schemas they use, from the compiler's model of the sources, with the
+// rules OpenApiBuilder applies to loaded classes: the same mappings, parameters, responses, error responses and
+// schemas, registered under the same type names, e.g. com.acme.Page<com.acme.Tutorial>. OpenApiBuilder then names
+// the schemas and assembles the spec, so the processor and the goal write the same document.
+final class ModelSpecBuilder {
+    static final String CONTROLLER = "org.springframework.stereotype.Controller";
+    static final String CONTROLLER_ADVICE = "org.springframework.web.bind.annotation.ControllerAdvice";
+    private static final String WEB = "org.springframework.web.bind.annotation.";
+    private static final String REQUEST_MAPPING = WEB + "RequestMapping";
+    private static final String REQUEST_BODY = WEB + "RequestBody";
+    private static final String PATH_VARIABLE = WEB + "PathVariable";
+    private static final String REQUEST_PARAM = WEB + "RequestParam";
+    private static final String REQUEST_HEADER = WEB + "RequestHeader";
+    private static final String RESPONSE_STATUS = WEB + "ResponseStatus";
+    private static final String EXCEPTION_HANDLER = WEB + "ExceptionHandler";
+    private static final String ORDER = "org.springframework.core.annotation.Order";
+    private static final String CONSTRAINTS = "jakarta.validation.constraints.";
+    private static final String SIZE = CONSTRAINTS + "Size";
+    private static final String MIN = CONSTRAINTS + "Min";
+    private static final String MAX = CONSTRAINTS + "Max";
+    private static final String PATTERN = CONSTRAINTS + "Pattern";
+    private static final String NOT_EMPTY = CONSTRAINTS + "NotEmpty";
+    private static final String NOT_BLANK = CONSTRAINTS + "NotBlank";
+    private static final String NOT_NULL = CONSTRAINTS + "NotNull";
+    // As OpenApiBuilder.SCHEMA_CONSTRAINTS
+    private static final List<String> SCHEMA_CONSTRAINTS = List.of(SIZE, MIN, MAX, PATTERN, NOT_EMPTY, NOT_BLANK);
+    private static final String REF_PREFIX = "#/components/schemas/";
+    private static final String APPLICATION_JSON = "application/json";
+
+    private final Elements elements;
+    private final Types types;
+    private final AnnotationMirrors annotations;
+    // Schemas by the type name they are referenced by, filled in once their fields are
+    @SuppressWarnings("rawtypes")
+    private final Map<String, Schema> schemas = new LinkedHashMap<>();
+    private final Map<String, Schema<?>> schemaCache = new HashMap<>();
+    // Advice handlers in the order Spring consults them, and the exception types they handle by binary name
+    private final List<List<ExceptionHandlerMethod>> adviceHandlers = new ArrayList<>();
+    private final Map<String, TypeMirror> adviceExceptionTypes = new LinkedHashMap<>();
+    private Map<String, ApiResponse> globalErrorResponses = Map.of();
+
+    ModelSpecBuilder(Elements elements, Types types) {
+        this.elements = elements;
+        this.types = types;
+        this.annotations = new AnnotationMirrors(elements, types);
+    }
+
+    @SuppressWarnings("rawtypes")
+    Map<String, Schema> getSchemas() {
+        return schemas;
+    }
+
+    String binaryName(TypeElement type) {
+        return elements.getBinaryName(type).toString();
+    }
+
+    void processControllerAdvice(List<TypeElement> controllerAdvices) {
+        // Spring consults advices in @Order order; ties are broken by name to keep the output stable
+        List<TypeElement> orderedAdvices = controllerAdvices.stream()
+                .sorted(Comparator.comparingInt(this::order).thenComparing(this::binaryName))
+                .toList();
+        for (TypeElement advice : orderedAdvices) {
+            List<ExceptionHandlerMethod> handlers = exceptionHandlers(advice);
+            if (!handlers.isEmpty()) {
+                adviceHandlers.add(handlers);
+                handlers.forEach(handler -> handler.exceptionTypes().forEach(exceptionType ->
+                        adviceExceptionTypes.putIfAbsent(typeName(exceptionType), exceptionType)));
+            }
+        }
+        globalErrorResponses = resolveErrorResponses(List.of());
+    }
+
+    Paths processController(TypeElement controller) {
+        MappingDescriptor controllerMapping = mapping(annotations.findMergedOnHierarchy(controller, REQUEST_MAPPING));
+
+        // Controllers without their own @ExceptionHandler methods share the advices' error responses
+        List<ExceptionHandlerMethod> localHandlers = exceptionHandlers(controller);
+        Map<String, ApiResponse> errorResponses = localHandlers.isEmpty()
+                ? globalErrorResponses
+                : resolveErrorResponses(localHandlers);
+
+        Paths paths = new Paths();
+        for (ExecutableElement method : sortedMethods(controller)) {
+            MappingDescriptor mapping = mapping(annotations.findMergedOnMethod(method, REQUEST_MAPPING));
+            if (!mapping.isMapped()) {
+                continue;
+            }
+            MappingDescriptor combined = mapping.within(controllerMapping);
+            // Operation ids after the first are numbered, since they must be unique within the spec
+            int operations = 0;
+            for (String path : combined.paths()) {
+                for (PathItem.HttpMethod httpMethod : combined.httpMethods()) {
+                    Operation operation = createOperation(controller, method, combined, httpMethod, errorResponses);
+                    if (operations > 0) {
+                        operation.setOperationId(operation.getOperationId() + "_" + operations);
+                    }
+                    operations++;
+                    paths.computeIfAbsent(path, k -> new PathItem()).operation(httpMethod, operation);
+                }
+            }
+        }
+        return paths;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MappingDescriptor mapping(Map<String, Object> requestMapping) {
+        if (requestMapping == null) {
+            return MappingDescriptor.NONE;
+        }
+        // "path" and "value" are aliases; Spring requires them to agree when both are set
+        Set<String> paths = new LinkedHashSet<>((List<String>) requestMapping.get("path"));
+        paths.addAll((List<String>) requestMapping.get("value"));
+        return MappingDescriptor.of(List.copyOf(paths), (List<String>) requestMapping.get("method"),
+                (List<String>) requestMapping.get("produces"), (List<String>) requestMapping.get("consumes"));
+    }
+
+    // The controller's own and inherited methods, in the order OpenApiBuilder sorts them: by name, then by the
+    // Class.toString() of their erased parameter types
+    private List<ExecutableElement> sortedMethods(TypeElement type) {
+        return ElementFilter.methodsIn(elements.getAllMembers(type)).stream()
+                .filter(method -> !((TypeElement) method.getEnclosingElement()).getQualifiedName()
+                        .contentEquals(Object.class.getName()))
+                .sorted(Comparator.comparing((ExecutableElement method) -> method.getSimpleName().toString())
+                        .thenComparing(method -> method.getParameters().stream()
+                                .map(parameter -> classToString(types.erasure(parameter.asType())))
+                                .collect(Collectors.joining(", ", "[", "]"))))
+                .toList();
+    }
+
+    // Parameter and return types are resolved against the controller, which binds the type variables of inherited
+    // handlers
+    private Operation createOperation(TypeElement controller, ExecutableElement method, MappingDescriptor mapping,
+            PathItem.HttpMethod httpMethod, Map<String, ApiResponse> errorResponses) {
+        Operation operation = new Operation()
+                .operationId(controller.getSimpleName() + "." + method.getSimpleName())
+                .summary(StringUtils.capitalize(method.getSimpleName().toString()));
+
+        ExecutableType resolved = (ExecutableType) types.asMemberOf((DeclaredType) controller.asType(), method);
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            TypeMirror type = resolved.getParameterTypes().get(i);
+            AnnotationMirror requestBody = AnnotationMirrors.find(parameter, REQUEST_BODY);
+            if (requestBody != null) {
+                operation.setRequestBody(new RequestBody()
+                        .content(content(mapping.consumes(), createSchema(type, parameter)))
+                        .required((Boolean) annotations.values(requestBody).get("required")));
+            } else {
+                Parameter created = createParameter(parameter, type);
+                if (created != null) {
+                    operation.addParametersItem(created);
+                }
+            }
+        }
+
+        operation.setResponses(createApiResponses(resolved.getReturnType(), method, mapping, httpMethod,
+                errorResponses));
+        return operation;
+    }
+
+    // Null for parameters that are not path variables, query parameters or headers
+    private Parameter createParameter(VariableElement parameter, TypeMirror type) {
+        Parameter created;
+        AnnotationMirror annotation;
+        if ((annotation = AnnotationMirrors.find(parameter, PATH_VARIABLE)) != null) {
+            // Path variables are always required
+            created = new Parameter().in("path").name(parameterName(annotation, parameter)).required(true);
+        } else if ((annotation = AnnotationMirrors.find(parameter, REQUEST_PARAM)) != null) {
+            created = new Parameter().in("query").name(parameterName(annotation, parameter))
+                    .required((Boolean) annotations.values(annotation).get("required"));
+        } else if ((annotation = AnnotationMirrors.find(parameter, REQUEST_HEADER)) != null) {
+            created = new Parameter().in("header").name(parameterName(annotation, parameter))
+                    .required((Boolean) annotations.values(annotation).get("required"));
+        } else {
+            return null;
+        }
+        created.setSchema(createSchema(type, parameter));
+        return created;
+    }
+
+    private String parameterName(AnnotationMirror annotation, VariableElement parameter) {
+        String value = (String) annotations.values(annotation).get("value");
+        return StringUtils.hasText(value) ? value : parameter.getSimpleName().toString();
+    }
+
+    private ApiResponses createApiResponses(TypeMirror returnType, ExecutableElement method,
+            MappingDescriptor mapping, PathItem.HttpMethod httpMethod, Map<String, ApiResponse> errorResponses) {
+        ApiResponses responses = new ApiResponses();
+        ApiResponse apiResponse = new ApiResponse();
+
+        if (!isVoid(returnType)) {
+            Schema<?> schema = createSchema(returnType, method.getReturnType());
+            apiResponse.setContent(content(mapping.produces(), schema));
+        }
+
+        Map<String, Object> responseStatus = annotations.findMergedOnMethod(method, RESPONSE_STATUS);
+        String statusCode = "200";
+        if (responseStatus != null) {
+            statusCode = String.valueOf(status(responseStatus).value());
+            apiResponse.description((String) responseStatus.get("reason"));
+        } else if (httpMethod == PathItem.HttpMethod.POST) {
+            statusCode = "201";
+        }
+
+        if (!StringUtils.hasText(apiResponse.getDescription())) {
+            try {
+                apiResponse.description(HttpStatus.valueOf(Integer.parseInt(statusCode)).getReasonPhrase());
+            } catch (IllegalArgumentException e) {
+                apiResponse.description("Successful operation");
+            }
+        }
+
+        responses.addApiResponse(statusCode, apiResponse);
+        // The success response keeps its status code; otherwise the first handler per status code wins
+        errorResponses.forEach((errorStatusCode, errorResponse) -> {
+            if (!responses.containsKey(errorStatusCode)) {
+                responses.addApiResponse(errorStatusCode, errorResponse);
+            }
+        });
+        return responses;
+    }
+
+    // "code" and "value" are aliases, both defaulting to INTERNAL_SERVER_ERROR
+    private static HttpStatus status(Map<String, Object> responseStatus) {
+        String code = (String) responseStatus.get("code");
+        return HttpStatus.valueOf(code.equals(HttpStatus.INTERNAL_SERVER_ERROR.name())
+                ? (String) responseStatus.get("value")
+                : code);
+    }
+
+    // Resolves every handled exception type once, the way Spring picks a handler at runtime: the controller's own
+    // @ExceptionHandler methods first, then each advice in turn, with the handler for the closest superclass winning
+    private Map<String, ApiResponse> resolveErrorResponses(List<ExceptionHandlerMethod> localHandlers) {
+        Map<String, TypeMirror> exceptionTypes = new TreeMap<>();
+        localHandlers.forEach(handler -> handler.exceptionTypes().forEach(exceptionType ->
+                exceptionTypes.putIfAbsent(typeName(exceptionType), exceptionType)));
+        exceptionTypes.putAll(adviceExceptionTypes);
+
+        Map<String, ApiResponse> responses = new LinkedHashMap<>();
+        for (TypeMirror exceptionType : exceptionTypes.values()) {
+            ExecutableElement handlerMethod = resolveHandlerMethod(localHandlers, exceptionType);
+            if (handlerMethod == null) {
+                continue;
+            }
+            Map<String, Object> responseStatus = annotations.findMergedOnMethod(handlerMethod, RESPONSE_STATUS);
+            if (responseStatus == null) {
+                // Try finding it on the exception class itself
+                responseStatus = annotations.findMergedOnHierarchy(
+                        (TypeElement) types.asElement(exceptionType), RESPONSE_STATUS);
+            }
+
+            HttpStatus status = responseStatus != null ? status(responseStatus) : HttpStatus.INTERNAL_SERVER_ERROR;
+            String statusCode = String.valueOf(status.value());
+            if (responses.containsKey(statusCode)) {
+                continue;
+            }
+
+            ApiResponse errorResponse = new ApiResponse();
+            String reason = responseStatus != null ? (String) responseStatus.get("reason") : null;
+            errorResponse.description(StringUtils.hasText(reason) ? reason : status.getReasonPhrase());
+
+            TypeMirror returnType = handlerMethod.getReturnType();
+            if (!isVoid(returnType)) {
+                Schema<?> schema = createSchema(returnType, returnType);
+                errorResponse.setContent(new Content().addMediaType(APPLICATION_JSON, new MediaType().schema(schema)));
+            }
+            responses.put(statusCode, errorResponse);
+        }
+        return responses;
+    }
+
+    private ExecutableElement resolveHandlerMethod(List<ExceptionHandlerMethod> localHandlers,
+            TypeMirror exceptionType) {
+        ExecutableElement handlerMethod = closestHandler(localHandlers, exceptionType);
+        for (int i = 0; handlerMethod == null && i < adviceHandlers.size(); i++) {
+            handlerMethod = closestHandler(adviceHandlers.get(i), exceptionType);
+        }
+        return handlerMethod;
+    }
+
+    // The handler of the closest superclass of the exception type, as ExceptionDepthComparator ranks them
+    private ExecutableElement closestHandler(List<ExceptionHandlerMethod> handlers, TypeMirror exceptionType) {
+        ExecutableElement closest = null;
+        int closestDepth = Integer.MAX_VALUE;
+        for (ExceptionHandlerMethod handler : handlers) {
+            for (TypeMirror handledType : handler.exceptionTypes()) {
+                if (!types.isSubtype(exceptionType, handledType)) {
+                    continue;
+                }
+                int depth = depth(exceptionType, handledType);
+                if (closest == null || depth < closestDepth) {
+                    closest = handler.method();
+                    closestDepth = depth;
+                }
+            }
+        }
+        return closest;
+    }
+
+    private int depth(TypeMirror exceptionType, TypeMirror handledType) {
+        int depth = 0;
+        for (TypeMirror type = exceptionType; type.getKind() == TypeKind.DECLARED;
+                type = ((TypeElement) types.asElement(type)).getSuperclass(), depth++) {
+            if (types.isSameType(types.erasure(type), handledType)) {
+                return depth;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    // The @ExceptionHandler methods of the type and its supertypes, with the exception types each declares, or
+    // takes from its parameters when the annotation lists none, as Spring does
+    private List<ExceptionHandlerMethod> exceptionHandlers(TypeElement type) {
+        TypeMirror throwable = elements.getTypeElement(Throwable.class.getName()).asType();
+        List<ExceptionHandlerMethod> handlers = new ArrayList<>();
+        for (ExecutableElement method : sortedMethods(type)) {
+            Map<String, Object> handler = annotations.findMergedOnMethod(method, EXCEPTION_HANDLER);
+            if (handler == null) {
+                continue;
+            }
+            List<TypeMirror> exceptionTypes = new ArrayList<>();
+            for (Object value : (List<?>) handler.get("value")) {
+                exceptionTypes.add(types.erasure((TypeMirror) value));
+            }
+            if (exceptionTypes.isEmpty()) {
+                for (VariableElement parameter : method.getParameters()) {
+                    TypeMirror parameterType = types.erasure(parameter.asType());
+                    if (parameterType.getKind() == TypeKind.DECLARED && types.isSubtype(parameterType, throwable)) {
+                        exceptionTypes.add(parameterType);
+                    }
+                }
+            }
+            handlers.add(new ExceptionHandlerMethod(method, exceptionTypes));
+        }
+        return handlers;
+    }
+
+    private int order(TypeElement type) {
+        Map<String, Object> order = annotations.findMergedOnHierarchy(type, ORDER);
+        return order != null ? (Integer) order.get("value") : Integer.MAX_VALUE;
+    }
+
+    // Resolutions are memoized by canonical type name plus the validation constraints on the element
+    private Schema<?> createSchema(TypeMirror type, AnnotatedConstruct annotated) {
+        type = canonical(type);
+        String key = typeName(type) + constraints(annotated);
+        if (schemaCache.containsKey(key)) {
+            return schemaCache.get(key);
+        }
+        Schema<?> schema = resolveSchema(type, annotated);
+        if (schema != null) {
+            schemaCache.put(key, schema);
+        }
+        return schema;
+    }
+
+    @SuppressWarnings("deprecation")
+    private Schema<?> resolveSchema(TypeMirror type, AnnotatedConstruct annotated) {
+        if (type instanceof DeclaredType declared && !declared.getTypeArguments().isEmpty()) {
+            String raw = rawName(type);
+            TypeMirror argument = declared.getTypeArguments().get(0);
+            // Unwrap Mono<T> to T, and treat Flux<T> as an array of T
+            if (isSubtypeOf(type, "reactor.core.publisher.Mono")) {
+                return createSchema(argument, annotated);
+            }
+            if (isSubtypeOf(type, "reactor.core.publisher.Flux")) {
+                return new ArraySchema().items(createSchema(argument, null));
+            }
+            if (raw.equals("org.springframework.http.ResponseEntity")) {
+                return createSchema(argument, annotated);
+            }
+        }
+
+        // Void means no content, so no schema
+        if (isVoid(type)) {
+            return null;
+        }
+
+        if (type.getKind() == TypeKind.ARRAY || isSubtypeOf(type, "java.util.Collection")) {
+            ArraySchema arraySchema = new ArraySchema().items(createSchema(itemType(type), null));
+            applyValidationAnnotations(arraySchema, annotated);
+            return arraySchema;
+        }
+
+        // Map<K, V>, assuming K is String for JSON objects
+        if (isSubtypeOf(type, "java.util.Map")) {
+            Schema<?> mapSchema = new ObjectSchema().additionalProperties(
+                    createSchema(supertypeArgument(type, "java.util.Map", 1), null));
+            applyValidationAnnotations(mapSchema, annotated);
+            return mapSchema;
+        }
+
+        String raw = rawName(type);
+        Schema<?> schema = null;
+        if (raw.equals("java.lang.String")) {
+            schema = new StringSchema();
+        } else if (raw.equals("java.time.LocalDate")) {
+            schema = new StringSchema().format("date");
+        } else if (raw.equals("java.util.Date") || raw.equals("java.time.LocalDateTime")) {
+            schema = new StringSchema().format("date-time");
+        } else if (type.getKind().isPrimitive() || isSubtypeOf(type, "java.lang.Number")) {
+            schema = switch (raw) {
+                case "int", "java.lang.Integer" -> new IntegerSchema().format("int32");
+                case "long", "java.lang.Long" -> new IntegerSchema().format("int64");
+                case "float", "java.lang.Float" -> new NumberSchema().format("float");
+                default -> new NumberSchema().format("double");
+            };
+        }
+        if (schema != null) {
+            applyValidationAnnotations(schema, annotated);
+            return schema;
+        }
+
+        // POJOs; every parameterization of a generic class, e.g. Page<Tutorial>, is a schema of its own
+        if (type.getKind() == TypeKind.DECLARED && !raw.startsWith("java.")) {
+            String schemaName = typeName(type);
+            if (schemas.containsKey(schemaName)) {
+                return new Schema<>().$ref(REF_PREFIX + schemaName);
+            }
+            // Registered before its properties are filled in, so that circular references resolve to a $ref
+            ObjectSchema pojoSchema = new ObjectSchema();
+            schemas.put(schemaName, pojoSchema);
+            // A raw use of a generic class leaves its type variables unbound, as the goal sees it, rather than erased
+            DeclaredType owner = (DeclaredType) type;
+            TypeElement ownerElement = (TypeElement) owner.asElement();
+            if (owner.getTypeArguments().isEmpty() && !ownerElement.getTypeParameters().isEmpty()) {
+                owner = (DeclaredType) ownerElement.asType();
+            }
+            for (VariableElement field : fields((DeclaredType) type)) {
+                String name = field.getSimpleName().toString();
+                pojoSchema.addProperties(name, createSchema(types.asMemberOf(owner, field), field));
+                if (AnnotationMirrors.find(field, NOT_NULL) != null || AnnotationMirrors.find(field, NOT_BLANK) != null
+                        || AnnotationMirrors.find(field, NOT_EMPTY) != null) {
+                    pojoSchema.addRequiredItem(name);
+                }
+            }
+            return new Schema<>().$ref(REF_PREFIX + schemaName);
+        }
+
+        return new ObjectSchema().description("Unsupported type: " + typeName(type));
+    }
+
+    // Instance fields of the type and its superclasses outside the JDK, superclass fields first
+    private List<VariableElement> fields(DeclaredType type) {
+        Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        for (TypeMirror current = type; current.getKind() == TypeKind.DECLARED; ) {
+            TypeElement element = (TypeElement) types.asElement(current);
+            if (element.getQualifiedName().toString().startsWith("java.")) {
+                break;
+            }
+            hierarchy.push(element);
+            current = element.getSuperclass();
+        }
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement element : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private void applyValidationAnnotations(Schema<?> schema, AnnotatedConstruct annotated) {
+        if (annotated == null) {
+            return;
+        }
+        Map<String, Object> size = constraint(annotated, SIZE);
+        if (size != null) {
+            if (schema instanceof StringSchema) {
+                schema.minLength((Integer) size.get("min"));
+                schema.maxLength((Integer) size.get("max"));
+            } else if (schema instanceof ArraySchema) {
+                schema.minItems((Integer) size.get("min"));
+                schema.maxItems((Integer) size.get("max"));
+            }
+        }
+        Map<String, Object> min = constraint(annotated, MIN);
+        if (min != null) {
+            schema.minimum(BigDecimal.valueOf((Long) min.get("value")));
+        }
+        Map<String, Object> max = constraint(annotated, MAX);
+        if (max != null) {
+            schema.maximum(BigDecimal.valueOf((Long) max.get("value")));
+        }
+        Map<String, Object> pattern = constraint(annotated, PATTERN);
+        if (pattern != null) {
+            schema.pattern((String) pattern.get("regexp"));
+        }
+        if (constraint(annotated, NOT_EMPTY) != null) {
+            if (schema instanceof StringSchema) {
+                schema.minLength(1);
+            } else if (schema instanceof ArraySchema) {
+                schema.minItems(1);
+            }
+        }
+        if (constraint(annotated, NOT_BLANK) != null && schema instanceof StringSchema) {
+            schema.minLength(1);
+            // Don't overwrite an existing pattern
+            schema.pattern(schema.getPattern() == null ? "\\S" : schema.getPattern());
+        }
+    }
+
+    private Map<String, Object> constraint(AnnotatedConstruct annotated, String constraintType) {
+        for (AnnotationMirror mirror : annotated.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(constraintType)) {
+                return annotations.values(mirror);
+            }
+        }
+        return null;
+    }
+
+    private String constraints(AnnotatedConstruct annotated) {
+        if (annotated == null) {
+            return "";
+        }
+        StringBuilder constraints = new StringBuilder();
+        for (String constraintType : SCHEMA_CONSTRAINTS) {
+            Map<String, Object> constraint = constraint(annotated, constraintType);
+            if (constraint != null) {
+                constraints.append('@').append(constraintType).append(constraint);
+            }
+        }
+        return constraints.toString();
+    }
+
+    // Type variables that nothing binds and wildcards become their bound, and a variable in its own bound the erasure
+    // of that bound, as in GenericTypes.canonical
+    private TypeMirror canonical(TypeMirror type) {
+        return canonical(type, new HashSet<>());
+    }
+
+    private TypeMirror canonical(TypeMirror type, Set<Element> resolving) {
+        switch (type.getKind()) {
+            case TYPEVAR -> {
+                TypeMirror bound = ((TypeVariable) type).getUpperBound();
+                if (bound instanceof IntersectionType intersection) {
+                    bound = intersection.getBounds().get(0);
+                }
+                Element variable = types.asElement(type);
+                if (!resolving.add(variable)) {
+                    return types.erasure(bound);
+                }
+                try {
+                    return canonical(bound, resolving);
+                } finally {
+                    resolving.remove(variable);
+                }
+            }
+            case WILDCARD -> {
+                WildcardType wildcard = (WildcardType) type;
+                TypeMirror bound = wildcard.getExtendsBound() != null ? wildcard.getExtendsBound()
+                        : wildcard.getSuperBound();
+                return canonical(bound != null ? bound : elements.getTypeElement(Object.class.getName()).asType(),
+                        resolving);
+            }
+            case ARRAY -> {
+                return types.getArrayType(canonical(((ArrayType) type).getComponentType(), resolving));
+            }
+            case DECLARED -> {
+                DeclaredType declared = (DeclaredType) type;
+                TypeElement element = (TypeElement) declared.asElement();
+                // Inner classes of generic classes keep the arguments of the enclosing type as they are
+                if (declared.getTypeArguments().isEmpty()
+                        || declared.getEnclosingType().getKind() == TypeKind.DECLARED) {
+                    return type;
+                }
+                TypeMirror[] arguments = declared.getTypeArguments().stream()
+                        .map(argument -> canonical(argument, resolving))
+                        .toArray(TypeMirror[]::new);
+                return types.getDeclaredType(element, arguments);
+            }
+            default -> {
+                return type;
+            }
+        }
+    }
+
+    // Names as Type.getTypeName() gives them for the canonical types of GenericTypes, e.g. a.Page<b.Tutorial>
+    private String typeName(TypeMirror type) {
+        return switch (type.getKind()) {
+            case ARRAY -> typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED -> {
+                DeclaredType declared = (DeclaredType) type;
+                String name = binaryName((TypeElement) declared.asElement());
+                yield declared.getTypeArguments().isEmpty() ? name
+                        : name + declared.getTypeArguments().stream().map(this::typeName)
+                                .collect(Collectors.joining(",", "<", ">"));
+            }
+            default -> rawName(type);
+        };
+    }
+
+    // Primitive types by keyword, as their toString() would add type annotations
+    private String rawName(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED ? binaryName((TypeElement) types.asElement(type))
+                : type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID
+                ? type.getKind().name().toLowerCase(Locale.ROOT)
+                : type.toString();
+    }
+
+    // As Class.toString(): "int", "class java.lang.String", "interface java.util.List", "class [Ljava.lang.String;"
+    private String classToString(TypeMirror erasure) {
+        return switch (erasure.getKind()) {
+            case ARRAY -> "class " + descriptor(erasure).replace('/', '.');
+            case DECLARED -> {
+                ElementKind kind = types.asElement(erasure).getKind();
+                yield (kind.isInterface() ? "interface " : "class ") + rawName(erasure);
+            }
+            default -> rawName(erasure);
+        };
+    }
+
+    private String descriptor(TypeMirror erasure) {
+        return switch (erasure.getKind()) {
+            case ARRAY -> "[" + descriptor(((ArrayType) erasure).getComponentType());
+            case DECLARED -> "L" + rawName(erasure) + ";";
+            case BOOLEAN -> "Z";
+            case LONG -> "J";
+            default -> erasure.getKind().name().substring(0, 1);
+        };
+    }
+
+    private boolean isSubtypeOf(TypeMirror type, String supertypeName) {
+        TypeElement supertype = elements.getTypeElement(supertypeName);
+        return supertype != null && type.getKind() == TypeKind.DECLARED
+                && types.isSubtype(types.erasure(type), types.erasure(supertype.asType()));
+    }
+
+    private static boolean isVoid(TypeMirror type) {
+        return type.getKind() == TypeKind.VOID || type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.lang.Void");
+    }
+
+    // Also binds the element type of collection classes, e.g. Tag for a class Tags extends ArrayList<Tag>
+    private TypeMirror itemType(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return ((ArrayType) type).getComponentType();
+        }
+        return supertypeArgument(type, "java.util.Collection", 0);
+    }
+
+    // The type argument of the given generic supertype, bound as seen from the type; Object for raw types
+    private TypeMirror supertypeArgument(TypeMirror type, String supertypeName, int index) {
+        Deque<TypeMirror> pending = new ArrayDeque<>(List.of(type));
+        while (!pending.isEmpty()) {
+            TypeMirror current = pending.poll();
+            if (rawName(current).equals(supertypeName)) {
+                List<? extends TypeMirror> arguments = ((DeclaredType) current).getTypeArguments();
+                return arguments.isEmpty() ? elements.getTypeElement(Object.class.getName()).asType()
+                        : canonical(arguments.get(index));
+            }
+            pending.addAll(types.directSupertypes(current));
+        }
+        return elements.getTypeElement(Object.class.getName()).asType();
+    }
+
+    // The schema under each media type, or under application/json when the mapping names none
+    private static Content content(List<String> mediaTypes, Schema<?> schema) {
+        Content content = new Content();
+        for (String mediaType : mediaTypes.isEmpty() ? List.of(APPLICATION_JSON) : mediaTypes) {
+            content.addMediaType(mediaType, new MediaType().schema(schema));
+        }
+        return content;
+    }
+
+    private record ExceptionHandlerMethod(ExecutableElement method, List<TypeMirror> exceptionTypes) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.openapispecs.generator.plugin.processor;
+
+import com.openapispecs.generator.plugin.output.OutputFormat;
+import com.openapispecs.generator.plugin.parser.ControllerTags;
+import com.openapispecs.generator.plugin.parser.OpenApiBuilder;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Paths;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Writes the spec while javac compiles the controllers, to META-INF/openapi/compiled/<outputFileName> of the class
+// output, with the mapping and schema rules of the generate goal applied to the compiler's model instead of loaded
+// classes. No class is loaded or scanned, so the spec is ready as soon as compilation ends; the goal can then copy it
+// with useProcessorOutput instead of generating it again.
+//
+// Controllers and advices are collected over all rounds and the spec is written once, in the last one. It depends on
+// every controller, advice and the types they use, so for incremental builds the processor is aggregating.
+// Controllers only in dependency jars are not compiled and so not seen; the goal covers those.
+public class OpenApiProcessor extends AbstractProcessor {
+    public static final String RESOURCE_DIRECTORY = "META-INF/openapi/compiled";
+    static final String BASE_PACKAGE = "openapi.basePackage";
+    static final String TITLE = "openapi.title";
+    static final String VERSION = "openapi.version";
+    static final String DESCRIPTION = "openapi.description";
+    static final String OUTPUT_FILE_NAME = "openapi.outputFileName";
+
+    private final Set<String> controllers = new TreeSet<>();
+    private final Set<String> controllerAdvices = new TreeSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // Controllers are found through meta-annotations and superclasses too, which "*" lets through
+        return Set.of("*");
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(BASE_PACKAGE, TITLE, VERSION, DESCRIPTION, OUTPUT_FILE_NAME);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!roundEnv.processingOver()) {
+            String basePackage = processingEnv.getOptions().getOrDefault(BASE_PACKAGE, "");
+            for (TypeElement type : types(roundEnv.getRootElements())) {
+                String name = type.getQualifiedName().toString();
+                if (!basePackage.isEmpty() && !name.startsWith(basePackage + ".")) {
+                    continue;
+                }
+                if (isController(type)) {
+                    controllers.add(name);
+                }
+                if (AnnotationMirrors.isAnnotated(type, ModelSpecBuilder.CONTROLLER_ADVICE)) {
+                    controllerAdvices.add(name);
+                }
+            }
+            return false;
+        }
+        if (!controllers.isEmpty()) {
+            try {
+                writeSpec();
+            } catch (IOException | RuntimeException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write the OpenAPI specification: " + e);
+            }
+        }
+        return false;
+    }
+
+    private void writeSpec() throws IOException {
+        ModelSpecBuilder builder = new ModelSpecBuilder(processingEnv.getElementUtils(),
+                processingEnv.getTypeUtils());
+        List<TypeElement> originatingElements = new ArrayList<>();
+        List<TypeElement> adviceElements = elements(controllerAdvices);
+        builder.processControllerAdvice(adviceElements);
+        originatingElements.addAll(adviceElements);
+
+        // Controllers are built in binary name order, as the goal does
+        List<TypeElement> controllerElements = elements(controllers).stream()
+                .sorted(Comparator.comparing(builder::binaryName))
+                .toList();
+        List<Paths> controllerPaths = new ArrayList<>();
+        for (TypeElement controller : controllerElements) {
+            controllerPaths.add(builder.processController(controller));
+        }
+        originatingElements.addAll(controllerElements);
+
+        Map<String, String> options = processingEnv.getOptions();
+        OpenAPI openAPI = new OpenApiBuilder().build(options.getOrDefault(TITLE, "API"),
+                options.getOrDefault(VERSION, "1.0"), options.get(DESCRIPTION), controllerPaths,
+                builder.getSchemas());
+        ControllerTags.apply(openAPI);
+
+        String outputFileName = options.getOrDefault(OUTPUT_FILE_NAME, "openapi.yaml");
+        OutputFormat format = outputFileName.endsWith(".json") ? OutputFormat.JSON : OutputFormat.YAML;
+        FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                RESOURCE_DIRECTORY + "/" + outputFileName, originatingElements.toArray(new Element[0]));
+        try (OutputStream out = resource.openOutputStream()) {
+            format.createMapper().writeValue(out, openAPI);
+        }
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "OpenAPI specification with "
+                + controllerElements.size() + " controller(s) written to " + resource.toUri());
+    }
+
+    private List<TypeElement> elements(Set<String> names) {
+        List<TypeElement> elements = new ArrayList<>();
+        for (String name : names) {
+            TypeElement element = processingEnv.getElementUtils().getTypeElement(name);
+            if (element != null) {
+                elements.add(element);
+            }
+        }
+        return elements;
+    }
+
+    // Classes annotated with @Controller, directly or through @RestController and the like, and their subclasses,
+    // as the scanner finds them
+    private boolean isController(TypeElement type) {
+        for (TypeElement current = type; current != null; ) {
+            if (AnnotationMirrors.isAnnotated(current, ModelSpecBuilder.CONTROLLER)) {
+                return true;
+            }
+            current = current.getSuperclass() instanceof DeclaredType superclass
+                    ? (TypeElement) superclass.asElement()
+                    : null;
+        }
+        return false;
+    }
+
+    // Top-level and nested classes
+    private static List<TypeElement> types(Set<? extends Element> rootElements) {
+        List<TypeElement> types = new ArrayList<>();
+        List<TypeElement> pending = new ArrayList<>(ElementFilter.typesIn(rootElements));
+        while (!pending.isEmpty()) {
+            TypeElement type = pending.remove(pending.size() - 1);
+            if (type.getKind() == ElementKind.CLASS) {
+                types.add(type);
+            }
+            pending.addAll(ElementFilter.typesIn(type.getEnclosedElements()));
+        }
+        return types;
+    }
+}
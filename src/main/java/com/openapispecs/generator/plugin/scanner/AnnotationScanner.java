@@ -1,26 +1,96 @@
 package com.openapispecs.generator.plugin.scanner;
 
+import com.openapispecs.generator.plugin.metrics.FlightEvents;
 import org.reflections.Reflections;
+import org.reflections.Store;
 import org.reflections.scanners.Scanners;
+import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class AnnotationScanner {
+
+    // REFLECTIONS scans through the Reflections library, and OpenApiBuilder reads the matches, and the types they use,
+    // by reflection. BYTECODE reads class files directly, and the spec is built from the class files of the matches
+    // by name, without loading them; see findControllerNames.
+    public enum Backend {
+        REFLECTIONS, BYTECODE
+    }
+
+    private final ClassLoader classLoader;
     private final Reflections reflections;
+    private final ClassIndex classIndex;
+    // Set when the Reflections store was assembled from shared parts; it is then queried by class name
+    private final boolean storeOnly;
+    private int reusedJars;
 
     public AnnotationScanner(String basePackage, ClassLoader classLoader) {
-        this.reflections = new Reflections(new ConfigurationBuilder()
-                .forPackage(basePackage, classLoader)
-                .setScanners(Scanners.TypesAnnotated, Scanners.MethodsAnnotated)
-                .addClassLoaders(classLoader));
+        this.classLoader = classLoader;
+        this.reflections = createReflections(basePackage, classLoader);
+        this.classIndex = null;
+        this.storeOnly = false;
+    }
+
+    public AnnotationScanner(String basePackage, URLClassLoader classLoader, Backend backend) throws IOException {
+        this(basePackage, classLoader, backend, null);
+    }
+
+    // With a shared index, jars already scanned by an earlier module of the session are not read again.
+    public AnnotationScanner(String basePackage, URLClassLoader classLoader, Backend backend,
+            SharedScanIndex sharedIndex) throws IOException {
+        this.classLoader = classLoader;
+        this.storeOnly = backend == Backend.REFLECTIONS && sharedIndex != null;
+        if (backend == Backend.BYTECODE) {
+            this.reflections = null;
+            this.classIndex = ClassIndex.build(basePackage, toPaths(classLoader.getURLs()), sharedIndex);
+            this.reusedJars = classIndex.getReusedJars();
+        } else {
+            this.reflections = storeOnly
+                    ? createSharedReflections(basePackage, classLoader, sharedIndex)
+                    : createReflections(basePackage, classLoader);
+            this.classIndex = null;
+        }
+    }
+
+    // Number of jars whose scan results were taken from the shared index or the persistent cache
+    public int getReusedJars() {
+        return reusedJars;
     }
 
     public Set<Class<?>> findRestControllers() {
+        if (storeOnly) {
+            Set<String> names = new LinkedHashSet<>();
+            names.addAll(typesAnnotatedWith(RestController.class));
+            names.addAll(typesAnnotatedWith(Controller.class));
+            return loadClasses(names);
+        }
+        if (classIndex != null) {
+            Set<String> names = new LinkedHashSet<>();
+            names.addAll(classIndex.findAnnotatedWith(RestController.class, classLoader));
+            names.addAll(classIndex.findAnnotatedWith(Controller.class, classLoader));
+            return loadClasses(names);
+        }
+
         Set<Class<?>> restControllers = reflections.getTypesAnnotatedWith(RestController.class);
         Set<Class<?>> controllers = reflections.getTypesAnnotatedWith(Controller.class);
 
@@ -32,6 +102,159 @@ public class AnnotationScanner {
     }
 
     public Set<Class<?>> findControllerAdvice() {
+        if (storeOnly) {
+            return loadClasses(typesAnnotatedWith(ControllerAdvice.class));
+        }
+        if (classIndex != null) {
+            return loadClasses(classIndex.findAnnotatedWith(ControllerAdvice.class, classLoader));
+        }
         return reflections.getTypesAnnotatedWith(ControllerAdvice.class);
     }
-}
\ No newline at end of file
+
+    // The controllers and controller advice beans by name, for building the spec from their class files; BYTECODE
+    // only. Meta-annotations are followed through class files too, so no class is loaded at all.
+    public Set<String> findControllerNames(ClassFiles classFiles) {
+        Set<String> names = new LinkedHashSet<>();
+        names.addAll(indexOnly().findAnnotatedWith(RestController.class.getName(), classFiles));
+        names.addAll(indexOnly().findAnnotatedWith(Controller.class.getName(), classFiles));
+        return names;
+    }
+
+    public Set<String> findControllerAdviceNames(ClassFiles classFiles) {
+        return indexOnly().findAnnotatedWith(ControllerAdvice.class.getName(), classFiles);
+    }
+
+    private ClassIndex indexOnly() {
+        if (classIndex == null) {
+            throw new IllegalStateException("Controllers are found by name with the BYTECODE scanner only");
+        }
+        return classIndex;
+    }
+
+    private static Reflections createReflections(String basePackage, ClassLoader classLoader) {
+        FlightEvents.ClasspathElementScanned event = new FlightEvents.ClasspathElementScanned();
+        event.begin();
+        ConfigurationBuilder configuration = new ConfigurationBuilder()
+                .forPackage(basePackage, classLoader)
+                .setScanners(Scanners.TypesAnnotated, Scanners.MethodsAnnotated)
+                .addClassLoaders(classLoader);
+        Reflections reflections = new Reflections(configuration);
+        commit(event, configuration.getUrls(), reflections.getStore(), false);
+        return reflections;
+    }
+
+    // The names behind Reflections.getTypesAnnotatedWith, left for loadClasses to load with the project class loader
+    private Set<String> typesAnnotatedWith(Class<? extends Annotation> annotation) {
+        return reflections.get(Scanners.SubTypes.of(Scanners.TypesAnnotated.with(annotation)));
+    }
+
+    // Scans each jar containing the base package on its own so its store can be shared; directories are scanned
+    // together every time. Jars are scanned concurrently, each by a sequential Reflections, and merged in classpath
+    // order.
+    private Reflections createSharedReflections(String basePackage, ClassLoader classLoader,
+            SharedScanIndex sharedIndex) throws IOException {
+        List<URL> jarRoots = new ArrayList<>();
+        List<URL> directories = new ArrayList<>();
+        for (URL root : ClasspathHelper.forPackage(basePackage, classLoader)) {
+            Path path = jarPath(root);
+            if (path != null && Files.isRegularFile(path)) {
+                jarRoots.add(root);
+            } else {
+                directories.add(root);
+            }
+        }
+        List<JarStore> jarStores = ParallelScan.map(jarRoots, root -> {
+            FlightEvents.ClasspathElementScanned event = new FlightEvents.ClasspathElementScanned();
+            event.begin();
+            boolean[] scanned = { false };
+            Map<String, Map<String, Set<String>>> store = sharedIndex.get(jarPath(root), "reflections", () -> {
+                scanned[0] = true;
+                return scan(List.of(root), false);
+            });
+            commit(event, List.of(root), store, !scanned[0]);
+            return new JarStore(store, !scanned[0]);
+        });
+
+        Store store = new Store();
+        for (JarStore jarStore : jarStores) {
+            mergeInto(store, jarStore.store());
+            reusedJars += jarStore.reused() ? 1 : 0;
+        }
+        if (!directories.isEmpty()) {
+            FlightEvents.ClasspathElementScanned event = new FlightEvents.ClasspathElementScanned();
+            event.begin();
+            Store directoryStore = scan(directories, true);
+            commit(event, directories, directoryStore, false);
+            mergeInto(store, directoryStore);
+        }
+        return new Reflections(store);
+    }
+
+    // Roots scanned together by one Reflections are reported as one element
+    private static void commit(FlightEvents.ClasspathElementScanned event, Collection<URL> roots,
+            Map<String, Map<String, Set<String>>> store, boolean reused) {
+        if (event.shouldCommit()) {
+            List<String> elements = new ArrayList<>();
+            roots.forEach(root -> elements.add(root.toString()));
+            event.element = String.join(File.pathSeparator, elements);
+            event.backend = Backend.REFLECTIONS.name();
+            event.types = store.values().stream().mapToInt(Map::size).sum();
+            event.reused = reused;
+            event.commit();
+        }
+    }
+
+    // Reused when taken from the shared index or the persistent cache instead of being scanned
+    private record JarStore(Map<String, Map<String, Set<String>>> store, boolean reused) {
+    }
+
+    // Jars are reported as "jar:file:/...!/" roots
+    private static Path jarPath(URL root) {
+        String url = root.toString();
+        if (url.startsWith("jar:file:") && url.endsWith("!/")) {
+            return Path.of(URI.create(url.substring("jar:".length(), url.length() - 2)));
+        }
+        return null;
+    }
+
+    private static Store scan(List<URL> roots, boolean parallel) {
+        return new Reflections(new ConfigurationBuilder()
+                .setUrls(roots)
+                .setScanners(Scanners.TypesAnnotated, Scanners.MethodsAnnotated)
+                .setParallel(parallel))
+                .getStore();
+    }
+
+    // Copies, so shared stores are never modified
+    private static void mergeInto(Store target, Map<String, Map<String, Set<String>>> source) {
+        source.forEach((index, entries) -> entries.forEach((key, values) -> target
+                .computeIfAbsent(index, k -> new HashMap<>())
+                .computeIfAbsent(key, k -> new HashSet<>())
+                .addAll(values)));
+    }
+
+    // Loads without initialising: static initialisers of user classes never run during generation.
+    private Set<Class<?>> loadClasses(Set<String> classNames) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (String className : classNames) {
+            try {
+                classes.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Indexed class " + className + " cannot be loaded", e);
+            }
+        }
+        return classes;
+    }
+
+    private static List<Path> toPaths(URL[] urls) {
+        List<Path> paths = new ArrayList<>();
+        for (URL url : urls) {
+            try {
+                paths.add(Path.of(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException(url + " is an invalid classpath element", e);
+            }
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,340 @@
+package com.openapispecs.generator.plugin.scanner;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.asm.TypePath;
+import org.springframework.asm.TypeReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Classes read by name from the class files a class loader finds as resources, so that none of them is loaded: the
+// project's controllers, DTOs and exceptions as well as the Spring annotations and JDK types they refer to. Each
+// class file is read once.
+public final class ClassFiles {
+    // Debug attributes are kept for the MethodParameters attribute, which holds the parameter names
+    private static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES;
+
+    private final ClassLoader classLoader;
+    private final Map<String, Optional<IndexedClass>> classes = new ConcurrentHashMap<>();
+
+    public ClassFiles(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    // Null when the class loader has no class file for the name
+    public IndexedClass find(String className) {
+        return classes.computeIfAbsent(className, name -> Optional.ofNullable(read(name))).orElse(null);
+    }
+
+    public IndexedClass get(String className) {
+        IndexedClass indexedClass = find(className);
+        if (indexedClass == null) {
+            throw new IllegalStateException("No class file for " + className);
+        }
+        return indexedClass;
+    }
+
+    // Number of class files read so far
+    public int size() {
+        return (int) classes.values().stream().filter(Optional::isPresent).count();
+    }
+
+    private IndexedClass read(String className) {
+        try (InputStream in = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            if (in == null) {
+                return null;
+            }
+            IndexedClassVisitor visitor = new IndexedClassVisitor();
+            new ClassReader(in).accept(visitor, PARSING_OPTIONS);
+            return visitor.indexedClass();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the class file of " + className, e);
+        }
+    }
+
+    private static String className(String internalName) {
+        return Type.getObjectType(internalName).getClassName();
+    }
+
+    private static final class IndexedClassVisitor extends ClassVisitor {
+        private String internalName;
+        private String name;
+        private String simpleName;
+        private int access;
+        private String superName;
+        private List<String> interfaces;
+        private String signature;
+        private final List<IndexedClass.Annotation> annotations = new ArrayList<>();
+        private final List<MethodReader> methods = new ArrayList<>();
+        private final List<FieldReader> fields = new ArrayList<>();
+
+        IndexedClassVisitor() {
+            super(SpringAsmInfo.ASM_VERSION);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName,
+                String[] interfaces) {
+            this.internalName = name;
+            this.name = className(name);
+            this.simpleName = this.name.substring(this.name.lastIndexOf('.') + 1);
+            this.access = access;
+            this.superName = superName != null ? className(superName) : null;
+            this.interfaces = Arrays.stream(interfaces).map(ClassFiles::className).toList();
+            this.signature = signature;
+        }
+
+        // Nested classes are named as Class.getSimpleName() names them; anonymous ones have an empty name
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (name.equals(internalName)) {
+                simpleName = innerName != null ? innerName : "";
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return visible ? new AnnotationReader(descriptor, annotations::add) : null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                String[] exceptions) {
+            MethodReader method = new MethodReader(access, name, descriptor, signature);
+            methods.add(method);
+            return method;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            FieldReader field = new FieldReader(access, name, signature != null ? signature : descriptor);
+            fields.add(field);
+            return field;
+        }
+
+        IndexedClass indexedClass() {
+            return new IndexedClass(name, simpleName, access, superName, interfaces,
+                    IndexedType.parseClassSignature(signature, superName, interfaces), List.copyOf(annotations),
+                    methods.stream().map(MethodReader::method).toList(),
+                    fields.stream().map(FieldReader::field).toList());
+        }
+    }
+
+    private static final class MethodReader extends MethodVisitor {
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final String signature;
+        private final List<IndexedClass.Annotation> annotations = new ArrayList<>();
+        private final List<IndexedClass.Annotation> returnTypeAnnotations = new ArrayList<>();
+        private final List<List<IndexedClass.Annotation>> parameterAnnotations = new ArrayList<>();
+        private final List<String> parameterNames = new ArrayList<>();
+        private Object defaultValue;
+
+        MethodReader(int access, String name, String descriptor, String signature) {
+            super(SpringAsmInfo.ASM_VERSION);
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.signature = signature;
+            for (int i = 0; i < Type.getArgumentCount(descriptor); i++) {
+                parameterAnnotations.add(new ArrayList<>());
+            }
+        }
+
+        @Override
+        public void visitParameter(String name, int access) {
+            parameterNames.add(name);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return visible ? new AnnotationReader(descriptor, annotations::add) : null;
+        }
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+            return visible && parameter < parameterAnnotations.size()
+                    ? new AnnotationReader(descriptor, parameterAnnotations.get(parameter)::add)
+                    : null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor,
+                boolean visible) {
+            return visible && typePath == null && new TypeReference(typeRef).getSort() == TypeReference.METHOD_RETURN
+                    ? new AnnotationReader(descriptor, returnTypeAnnotations::add)
+                    : null;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotationDefault() {
+            return new ValueReader(value -> defaultValue = value);
+        }
+
+        IndexedClass.Method method() {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < parameterAnnotations.size(); i++) {
+                String parameterName = i < parameterNames.size() ? parameterNames.get(i) : null;
+                names.add(parameterName != null && !parameterName.isEmpty() ? parameterName : "arg" + i);
+            }
+            return new IndexedClass.Method(name, descriptor, access,
+                    IndexedType.parseMethodSignature(signature, descriptor), List.copyOf(annotations),
+                    parameterAnnotations.stream().map(List::copyOf).toList(), names,
+                    List.copyOf(returnTypeAnnotations), defaultValue);
+        }
+    }
+
+    private static final class FieldReader extends FieldVisitor {
+        private final int access;
+        private final String name;
+        private final String signature;
+        private final List<IndexedClass.Annotation> annotations = new ArrayList<>();
+
+        FieldReader(int access, String name, String signature) {
+            super(SpringAsmInfo.ASM_VERSION);
+            this.access = access;
+            this.name = name;
+            this.signature = signature;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return visible ? new AnnotationReader(descriptor, annotations::add) : null;
+        }
+
+        IndexedClass.Field field() {
+            return new IndexedClass.Field(name, access, IndexedType.parseType(signature), List.copyOf(annotations));
+        }
+    }
+
+    // Collects the values set on an annotation, by attribute name
+    private static final class AnnotationReader extends AnnotationVisitor {
+        private final String type;
+        private final Consumer<? super IndexedClass.Annotation> consumer;
+        private final Map<String, Object> values = new LinkedHashMap<>();
+
+        AnnotationReader(String descriptor, Consumer<? super IndexedClass.Annotation> consumer) {
+            super(SpringAsmInfo.ASM_VERSION);
+            this.type = Type.getType(descriptor).getClassName();
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            values.put(name, plain(value));
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value) {
+            values.put(name, value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+            return new AnnotationReader(descriptor, value -> values.put(name, value));
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            return new ArrayReader(value -> values.put(name, value));
+        }
+
+        @Override
+        public void visitEnd() {
+            consumer.accept(new IndexedClass.Annotation(type, values));
+        }
+    }
+
+    // Collects the value of an annotation default
+    private static final class ValueReader extends AnnotationVisitor {
+        private final Consumer<Object> consumer;
+
+        ValueReader(Consumer<Object> consumer) {
+            super(SpringAsmInfo.ASM_VERSION);
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            consumer.accept(plain(value));
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value) {
+            consumer.accept(value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+            return new AnnotationReader(descriptor, consumer);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            return new ArrayReader(consumer);
+        }
+    }
+
+    // Collects the elements of an array value
+    private static final class ArrayReader extends AnnotationVisitor {
+        private final Consumer<Object> consumer;
+        private final List<Object> elements = new ArrayList<>();
+
+        ArrayReader(Consumer<Object> consumer) {
+            super(SpringAsmInfo.ASM_VERSION);
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            elements.add(plain(value));
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value) {
+            elements.add(value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+            return new AnnotationReader(descriptor, elements::add);
+        }
+
+        @Override
+        public void visitEnd() {
+            consumer.accept(List.copyOf(elements));
+        }
+    }
+
+    // Classes by binary name, and arrays of primitives, which ASM reports as Java arrays, as lists
+    private static Object plain(Object value) {
+        if (value instanceof Type type) {
+            return type.getClassName();
+        }
+        if (value != null && value.getClass().isArray()) {
+            List<Object> elements = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(value); i++) {
+                elements.add(Array.get(value, i));
+            }
+            return elements;
+        }
+        return value;
+    }
+}
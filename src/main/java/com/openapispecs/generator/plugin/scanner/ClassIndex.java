@@ -0,0 +1,256 @@
+package com.openapispecs.generator.plugin.scanner;
+
+import com.openapispecs.generator.plugin.metrics.FlightEvents;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Index of the types under a base package, built by reading their class files with ASM instead of loading them. It
+// holds the type annotations that discovery needs; the handler methods, parameters and fields of the matches are
+// read through ClassFiles when the spec is built from it, so that no indexed type is ever loaded.
+public class ClassIndex {
+    private static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+    // Name of the type to annotations table in shared and persisted jar indexes
+    private static final String TYPES_TABLE = "types";
+
+    private final Map<String, Set<String>> annotationsByType;
+    private final Map<String, Boolean> annotationMatches = new ConcurrentHashMap<>();
+    private final int reusedJars;
+
+    private ClassIndex(Map<String, Set<String>> annotationsByType, int reusedJars) {
+        this.annotationsByType = annotationsByType;
+        this.reusedJars = reusedJars;
+    }
+
+    public static ClassIndex build(String basePackage, List<Path> classpathElements) throws IOException {
+        return build(basePackage, classpathElements, null);
+    }
+
+    // Classpath order is kept, and the first occurrence of a class name wins as it would for a class loader. Jars
+    // already indexed for the same base package earlier in the session are taken from the shared index. Elements are
+    // indexed concurrently and merged in classpath order afterwards.
+    public static ClassIndex build(String basePackage, List<Path> classpathElements, SharedScanIndex sharedIndex)
+            throws IOException {
+        String packagePath = basePackage.replace('.', '/');
+        List<ElementIndex> elementIndexes = ParallelScan.map(classpathElements,
+                element -> indexElement(element, basePackage, packagePath, sharedIndex));
+        Map<String, Set<String>> annotationsByType = new LinkedHashMap<>();
+        int reusedJars = 0;
+        for (ElementIndex elementIndex : elementIndexes) {
+            elementIndex.annotationsByType().forEach(annotationsByType::putIfAbsent);
+            reusedJars += elementIndex.reused() ? 1 : 0;
+        }
+        return new ClassIndex(annotationsByType, reusedJars);
+    }
+
+    private static ElementIndex indexElement(Path element, String basePackage, String packagePath,
+            SharedScanIndex sharedIndex) throws IOException {
+        FlightEvents.ClasspathElementScanned event = new FlightEvents.ClasspathElementScanned();
+        event.begin();
+        ElementIndex elementIndex = readElement(element, basePackage, packagePath, sharedIndex);
+        if (event.shouldCommit()) {
+            event.element = element.toString();
+            event.backend = AnnotationScanner.Backend.BYTECODE.name();
+            event.types = elementIndex.annotationsByType().size();
+            event.reused = elementIndex.reused();
+            event.commit();
+        }
+        return elementIndex;
+    }
+
+    private static ElementIndex readElement(Path element, String basePackage, String packagePath,
+            SharedScanIndex sharedIndex) throws IOException {
+        Map<String, Set<String>> index = new LinkedHashMap<>();
+        if (Files.isDirectory(element)) {
+            indexDirectory(element, packagePath, index);
+        } else if (Files.isRegularFile(element) && sharedIndex == null) {
+            indexJar(element, packagePath, index);
+        } else if (Files.isRegularFile(element)) {
+            boolean[] indexed = { false };
+            Map<String, Map<String, Set<String>>> jarIndex = sharedIndex.get(element, "bytecode:" + basePackage,
+                    () -> {
+                        indexed[0] = true;
+                        Map<String, Set<String>> types = new LinkedHashMap<>();
+                        indexJar(element, packagePath, types);
+                        return Map.of(TYPES_TABLE, types);
+                    });
+            return new ElementIndex(jarIndex.get(TYPES_TABLE), !indexed[0]);
+        }
+        return new ElementIndex(index, false);
+    }
+
+    // Matches direct annotations and meta-annotations (e.g. @RestController carries @Controller). Only the
+    // annotation types are loaded to follow meta-annotations, never the indexed types themselves.
+    public Set<String> findAnnotatedWith(Class<? extends Annotation> annotation, ClassLoader classLoader) {
+        Set<String> result = new LinkedHashSet<>();
+        annotationsByType.forEach((typeName, annotations) -> {
+            for (String annotationName : annotations) {
+                if (isAnnotationMatch(annotationName, annotation, classLoader)) {
+                    result.add(typeName);
+                    break;
+                }
+            }
+        });
+        return result;
+    }
+
+    // As findAnnotatedWith(Class, ClassLoader), with meta-annotations followed through their class files, so that
+    // not even annotation types are loaded
+    public Set<String> findAnnotatedWith(String annotation, ClassFiles classFiles) {
+        Set<String> result = new LinkedHashSet<>();
+        annotationsByType.forEach((typeName, annotations) -> {
+            for (String annotationName : annotations) {
+                if (isAnnotationMatch(annotationName, annotation, classFiles, new HashSet<>())) {
+                    result.add(typeName);
+                    break;
+                }
+            }
+        });
+        return result;
+    }
+
+    private static boolean isAnnotationMatch(String annotationName, String annotation, ClassFiles classFiles,
+            Set<String> visited) {
+        if (annotationName.equals(annotation)) {
+            return true;
+        }
+        if (annotationName.startsWith("java.lang.annotation.") || !visited.add(annotationName)) {
+            return false;
+        }
+        // Annotations missing from the classpath cannot carry any of the Spring stereotypes.
+        IndexedClass annotationType = classFiles.find(annotationName);
+        return annotationType != null && annotationType.annotations().stream().anyMatch(meta ->
+                isAnnotationMatch(meta.type(), annotation, classFiles, visited));
+    }
+
+    public int size() {
+        return annotationsByType.size();
+    }
+
+    // Jars whose index came from the shared index or the persistent cache instead of being read
+    public int getReusedJars() {
+        return reusedJars;
+    }
+
+    private boolean isAnnotationMatch(String annotationName, Class<? extends Annotation> annotation,
+            ClassLoader classLoader) {
+        if (annotationName.equals(annotation.getName())) {
+            return true;
+        }
+        return annotationMatches.computeIfAbsent(annotationName + "->" + annotation.getName(), key -> {
+            try {
+                Class<?> annotationType = Class.forName(annotationName, false, classLoader);
+                return AnnotatedElementUtils.hasAnnotation(annotationType, annotation);
+            } catch (ClassNotFoundException | LinkageError e) {
+                // Annotations missing from the classpath cannot carry any of the Spring stereotypes.
+                return false;
+            }
+        });
+    }
+
+    private static void indexDirectory(Path root, String packagePath, Map<String, Set<String>> annotationsByType)
+            throws IOException {
+        Path packageDir = root.resolve(packagePath);
+        if (!Files.isDirectory(packageDir)) {
+            return;
+        }
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(packageDir)) {
+            classFiles = files.filter(ClassIndex::isClassFile).sorted().toList();
+        }
+        for (Path classFile : classFiles) {
+            try (InputStream in = Files.newInputStream(classFile)) {
+                indexClass(in, annotationsByType);
+            }
+        }
+    }
+
+    // Only the central directory is read to find the entries under the package; a jar without any is closed without
+    // reading a single class file
+    private static void indexJar(Path jar, String packagePath, Map<String, Set<String>> annotationsByType)
+            throws IOException {
+        String prefix = packagePath.isEmpty() ? "" : packagePath + "/";
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            List<ZipEntry> classEntries = new ArrayList<>();
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.getName().startsWith(prefix) && isClassFile(entry.getName())) {
+                    classEntries.add(entry);
+                }
+            }
+            for (ZipEntry entry : classEntries) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    indexClass(in, annotationsByType);
+                }
+            }
+        }
+    }
+
+    private static void indexClass(InputStream in, Map<String, Set<String>> annotationsByType) throws IOException {
+        TypeAnnotationsVisitor visitor = new TypeAnnotationsVisitor();
+        new ClassReader(in).accept(visitor, PARSING_OPTIONS);
+        if (!visitor.annotationType) {
+            annotationsByType.putIfAbsent(visitor.className, visitor.annotations);
+        }
+    }
+
+    private static boolean isClassFile(Path path) {
+        return isClassFile(path.getFileName().toString());
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.endsWith("package-info.class");
+    }
+
+    // The types of one classpath element; reused when taken from the shared index or the persistent cache
+    private record ElementIndex(Map<String, Set<String>> annotationsByType, boolean reused) {
+    }
+
+    // Collects the runtime-visible annotations declared on a type.
+    private static final class TypeAnnotationsVisitor extends ClassVisitor {
+        private String className;
+        private boolean annotationType;
+        private final Set<String> annotations = new LinkedHashSet<>();
+
+        TypeAnnotationsVisitor() {
+            super(SpringAsmInfo.ASM_VERSION);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName,
+                String[] interfaces) {
+            this.className = Type.getObjectType(name).getClassName();
+            this.annotationType = (access & Opcodes.ACC_ANNOTATION) != 0;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (visible) {
+                annotations.add(Type.getType(descriptor).getClassName());
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.openapispecs.generator.plugin.scanner;
+
+import org.springframework.asm.Opcodes;
+
+import java.util.List;
+import java.util.Map;
+
+// What the spec needs of a class, read from its class file: the runtime-visible annotations of the class, its methods
+// and their parameters and fields, and the generic signatures of all of them. Names are binary names, e.g.
+// com.acme.Outer$Inner.
+//
+// Annotation values are plain: strings, numbers and booleans as is, enum constants by name, classes by binary name,
+// arrays as lists and nested annotations as Annotations. Only the values set in the class file are held; the defaults
+// are in the class file of the annotation type, as the defaultValue of its methods.
+public record IndexedClass(String name, String simpleName, int access, String superName, List<String> interfaces,
+        IndexedType.ClassSignature signature, List<Annotation> annotations, List<Method> methods,
+        List<Field> fields) {
+
+    public boolean isInterface() {
+        return (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    // The method with the name and no parameters, as annotation attributes are declared, or null
+    public Method attribute(String name) {
+        for (Method method : methods) {
+            if (method.name().equals(name) && method.descriptor().startsWith("()")) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    public record Annotation(String type, Map<String, Object> values) {
+    }
+
+    // Parameter names come from the MethodParameters attribute, written with javac -parameters; without it they are
+    // argN, as reflection names them. Return type annotations are the type annotations on the return type itself.
+    public record Method(String name, String descriptor, int access, IndexedType.MethodSignature signature,
+            List<Annotation> annotations, List<List<Annotation>> parameterAnnotations, List<String> parameterNames,
+            List<Annotation> returnTypeAnnotations, Object defaultValue) {
+
+        public boolean isStatic() {
+            return (access & Opcodes.ACC_STATIC) != 0;
+        }
+
+        public boolean isPrivate() {
+            return (access & Opcodes.ACC_PRIVATE) != 0;
+        }
+
+        // Bridge and synthetic methods, which Spring leaves out when looking for handlers
+        public boolean isCompilerGenerated() {
+            return (access & (Opcodes.ACC_BRIDGE | Opcodes.ACC_SYNTHETIC)) != 0;
+        }
+
+        public boolean isConstructor() {
+            return name.equals("<init>") || name.equals("<clinit>");
+        }
+    }
+
+    public record Field(String name, int access, IndexedType type, List<Annotation> annotations) {
+
+        public boolean isStatic() {
+            return (access & Opcodes.ACC_STATIC) != 0;
+        }
+    }
+}
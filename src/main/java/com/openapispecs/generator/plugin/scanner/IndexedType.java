@@ -0,0 +1,204 @@
+package com.openapispecs.generator.plugin.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// A type as a class file declares it, parsed from a descriptor or generic signature (JVMS 4.7.9.1). Class names are
+// binary names, e.g. com.acme.Outer$Inner. Wildcards are taken as their upper bound, which is Object for "?" and
+// "? super T", as ResolvableType resolves them.
+public sealed interface IndexedType {
+    ClassType OBJECT = new ClassType(Object.class.getName(), List.of());
+
+    // Names as Type.getTypeName() gives them, e.g. com.acme.Page<com.acme.Tutorial>, int[]
+    String typeName();
+
+    record ClassType(String name, List<IndexedType> arguments) implements IndexedType {
+        @Override
+        public String typeName() {
+            return arguments.isEmpty() ? name
+                    : name + arguments.stream().map(IndexedType::typeName).collect(Collectors.joining(",", "<", ">"));
+        }
+    }
+
+    record ArrayType(IndexedType component) implements IndexedType {
+        @Override
+        public String typeName() {
+            return component.typeName() + "[]";
+        }
+    }
+
+    // Including void
+    record PrimitiveType(String name) implements IndexedType {
+        @Override
+        public String typeName() {
+            return name;
+        }
+    }
+
+    record TypeVariable(String name) implements IndexedType {
+        @Override
+        public String typeName() {
+            return name;
+        }
+    }
+
+    // A type variable with its first bound, the one it erases to
+    record TypeParameter(String name, IndexedType bound) {
+    }
+
+    record ClassSignature(List<TypeParameter> typeParameters, IndexedType superclass, List<IndexedType> interfaces) {
+    }
+
+    record MethodSignature(List<TypeParameter> typeParameters, List<IndexedType> parameterTypes,
+            IndexedType returnType) {
+    }
+
+    static IndexedType parseType(String signature) {
+        return new SignatureParser(signature).type();
+    }
+
+    // From the generic signature, or else from the superclass and interfaces of the class file
+    static ClassSignature parseClassSignature(String signature, String superName, List<String> interfaces) {
+        if (signature == null) {
+            return new ClassSignature(List.of(), superName == null ? null : new ClassType(superName, List.of()),
+                    interfaces.stream().<IndexedType>map(name -> new ClassType(name, List.of())).toList());
+        }
+        SignatureParser parser = new SignatureParser(signature);
+        List<TypeParameter> typeParameters = parser.typeParameters();
+        IndexedType superclass = parser.type();
+        List<IndexedType> superinterfaces = new ArrayList<>();
+        while (!parser.atEnd()) {
+            superinterfaces.add(parser.type());
+        }
+        return new ClassSignature(typeParameters, superclass, superinterfaces);
+    }
+
+    // From the generic signature, or else from the descriptor. The signature leaves out parameters the compiler
+    // adds, so the descriptor is used whenever the two disagree in length.
+    static MethodSignature parseMethodSignature(String signature, String descriptor) {
+        MethodSignature erased = new SignatureParser(descriptor).methodSignature();
+        if (signature == null) {
+            return erased;
+        }
+        MethodSignature generic = new SignatureParser(signature).methodSignature();
+        return generic.parameterTypes().size() == erased.parameterTypes().size() ? generic : erased;
+    }
+
+    final class SignatureParser {
+        private final String signature;
+        private int position;
+
+        private SignatureParser(String signature) {
+            this.signature = signature;
+        }
+
+        private boolean atEnd() {
+            return position >= signature.length();
+        }
+
+        private List<TypeParameter> typeParameters() {
+            List<TypeParameter> typeParameters = new ArrayList<>();
+            if (signature.charAt(position) != '<') {
+                return typeParameters;
+            }
+            position++;
+            while (signature.charAt(position) != '>') {
+                String name = identifier(':');
+                IndexedType bound = null;
+                // An empty class bound is followed by the interface bounds
+                while (signature.charAt(position) == ':') {
+                    position++;
+                    if (signature.charAt(position) != ':') {
+                        IndexedType type = type();
+                        bound = bound == null ? type : bound;
+                    }
+                }
+                typeParameters.add(new TypeParameter(name, bound != null ? bound : OBJECT));
+            }
+            position++;
+            return typeParameters;
+        }
+
+        private MethodSignature methodSignature() {
+            List<TypeParameter> typeParameters = typeParameters();
+            position++;
+            List<IndexedType> parameterTypes = new ArrayList<>();
+            while (signature.charAt(position) != ')') {
+                parameterTypes.add(type());
+            }
+            position++;
+            return new MethodSignature(typeParameters, parameterTypes, type());
+        }
+
+        private IndexedType type() {
+            char c = signature.charAt(position++);
+            return switch (c) {
+                case 'L' -> classType();
+                case 'T' -> new TypeVariable(identifier(';'));
+                case '[' -> new ArrayType(type());
+                case 'Z' -> new PrimitiveType("boolean");
+                case 'B' -> new PrimitiveType("byte");
+                case 'C' -> new PrimitiveType("char");
+                case 'S' -> new PrimitiveType("short");
+                case 'I' -> new PrimitiveType("int");
+                case 'J' -> new PrimitiveType("long");
+                case 'F' -> new PrimitiveType("float");
+                case 'D' -> new PrimitiveType("double");
+                case 'V' -> new PrimitiveType("void");
+                default -> throw new IllegalArgumentException("Invalid signature at " + (position - 1) + ": "
+                        + signature);
+            };
+        }
+
+        // Inner classes of parameterized types, Outer<T>.Inner, keep the arguments of the inner class only
+        private ClassType classType() {
+            StringBuilder name = new StringBuilder();
+            List<IndexedType> arguments = List.of();
+            while (true) {
+                char c = signature.charAt(position++);
+                switch (c) {
+                    case ';' -> {
+                        return new ClassType(name.toString(), arguments);
+                    }
+                    case '<' -> arguments = typeArguments();
+                    case '.' -> {
+                        name.append('$');
+                        arguments = List.of();
+                    }
+                    case '/' -> name.append('.');
+                    default -> name.append(c);
+                }
+            }
+        }
+
+        private List<IndexedType> typeArguments() {
+            List<IndexedType> arguments = new ArrayList<>();
+            while (signature.charAt(position) != '>') {
+                char c = signature.charAt(position);
+                if (c == '*') {
+                    position++;
+                    arguments.add(OBJECT);
+                } else if (c == '-') {
+                    position++;
+                    type();
+                    arguments.add(OBJECT);
+                } else {
+                    if (c == '+') {
+                        position++;
+                    }
+                    arguments.add(type());
+                }
+            }
+            position++;
+            return arguments;
+        }
+
+        private String identifier(char terminator) {
+            int end = signature.indexOf(terminator, position);
+            String identifier = signature.substring(position, end);
+            position = terminator == ';' ? end + 1 : end;
+            return identifier;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.openapispecs.generator.plugin.scanner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// Runs one task per classpath element on virtual threads: opening and reading jars is mostly waiting for the disk,
+// so far more of them can be in flight than there are cores. A semaphore bounds how many are open at a time.
+// Results come back in element order, so callers merge them exactly as a sequential scan would.
+final class ParallelScan {
+    private static final int MAX_OPEN = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+
+    interface Task<E, R> {
+        R apply(E element) throws IOException;
+    }
+
+    private ParallelScan() {
+    }
+
+    static <E, R> List<R> map(List<E> elements, Task<E, R> task) throws IOException {
+        if (elements.size() <= 1) {
+            List<R> results = new ArrayList<>();
+            for (E element : elements) {
+                results.add(task.apply(element));
+            }
+            return results;
+        }
+        Semaphore open = new Semaphore(MAX_OPEN);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<R>> futures = new ArrayList<>();
+            for (E element : elements) {
+                futures.add(executor.submit(() -> {
+                    open.acquire();
+                    try {
+                        return task.apply(element);
+                    } finally {
+                        open.release();
+                    }
+                }));
+            }
+            List<R> results = new ArrayList<>();
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning the classpath", e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.openapispecs.generator.plugin.scanner;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Scan results of release jars from the local repository, kept on disk between builds. Such jars never change, so
+// an entry is identified by the jar's path, size and modification time alone. Snapshot jars and jars outside the
+// local repository (e.g. reactor modules) are always scanned again.
+//
+// Each entry is one file: a string table followed by named tables of string keys mapped to ordered sets of strings,
+// all referring to the string table by index. Files are memory-mapped for reading and replaced atomically, so
+// concurrent builds never see a partial entry.
+//
+// Entries are evicted once unused for the maximum age. A read moves an entry's modification time forward, at most once
+// a day, so the modification time tells when it was last used; the sweep runs at most once a day, too.
+public class PersistentScanCache {
+    private static final int MAGIC = 0x4f415343; // "OASC"
+    private static final int FORMAT_VERSION = 1;
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(30);
+    private static final Duration TOUCH_INTERVAL = Duration.ofDays(1);
+    // Modification time of the last sweep
+    private static final String SWEEP_MARKER = ".last-sweep";
+
+    private final Path directory;
+    private final Path localRepository;
+    private final Duration maxAge;
+
+    public PersistentScanCache(Path directory, Path localRepository) {
+        this(directory, localRepository, DEFAULT_MAX_AGE);
+    }
+
+    public PersistentScanCache(Path directory, Path localRepository, Duration maxAge) {
+        this.directory = directory;
+        this.localRepository = localRepository.toAbsolutePath().normalize();
+        this.maxAge = maxAge;
+    }
+
+    // Deletes the entries not used within the maximum age, and temporary files of writes that did not finish, unless
+    // that was done less than a day ago. Best effort, like writes.
+    public void evictUnused() {
+        Path marker = directory.resolve(SWEEP_MARKER);
+        Instant now = Instant.now();
+        try {
+            if (!Files.isDirectory(directory) || (Files.isRegularFile(marker)
+                    && Files.getLastModifiedTime(marker).toInstant().isAfter(now.minus(TOUCH_INTERVAL)))) {
+                return;
+            }
+            List<Path> unused;
+            try (Stream<Path> files = Files.list(directory)) {
+                unused = files.filter(file -> {
+                    String name = file.getFileName().toString();
+                    Duration age = name.endsWith(".idx") ? maxAge : name.endsWith(".tmp") ? TOUCH_INTERVAL : null;
+                    return age != null && lastModified(file).isBefore(now.minus(age));
+                }).toList();
+            }
+            unused.forEach(PersistentScanCache::deleteQuietly);
+            if (!Files.exists(marker)) {
+                Files.createFile(marker);
+            }
+            Files.setLastModifiedTime(marker, FileTime.from(now));
+        } catch (IOException e) {
+            // Tried again by the next build
+        }
+    }
+
+    boolean accepts(Path jar) {
+        Path path = jar.toAbsolutePath().normalize();
+        Path versionDir = path.getParent();
+        return path.startsWith(localRepository) && versionDir != null
+                && !versionDir.getFileName().toString().endsWith("-SNAPSHOT");
+    }
+
+    // Null when there is no usable entry; unreadable entries are dropped and rebuilt by the caller.
+    Map<String, Map<String, Set<String>>> read(String key) {
+        Path file = entryFile(key);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Map<String, Map<String, Set<String>>> tables = decode(buffer);
+            touch(file);
+            return tables;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    // Best effort: a cache that cannot be written only costs a rescan next time.
+    void write(String key, Map<String, Map<String, Set<String>>> tables) {
+        Path file = entryFile(key);
+        Path temp = directory.resolve("." + file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW)))) {
+                encode(tables, out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            deleteQuietly(temp);
+        }
+    }
+
+    // Marks the entry as used, unless it already was within the last day
+    private static void touch(Path file) {
+        Instant now = Instant.now();
+        if (lastModified(file).isBefore(now.minus(TOUCH_INTERVAL))) {
+            try {
+                Files.setLastModifiedTime(file, FileTime.from(now));
+            } catch (IOException e) {
+                // The entry may be evicted early and is then scanned again
+            }
+        }
+    }
+
+    // Instant.MAX for a file that is already gone, so it is neither touched nor evicted
+    private static Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return Instant.MAX;
+        }
+    }
+
+    private Path entryFile(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+                    (FORMAT_VERSION + "|" + key).getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + ".idx");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void encode(Map<String, Map<String, Set<String>>> tables, DataOutputStream out)
+            throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        tables.forEach((name, table) -> {
+            strings.putIfAbsent(name, strings.size());
+            table.forEach((key, values) -> {
+                strings.putIfAbsent(key, strings.size());
+                values.forEach(value -> strings.putIfAbsent(value, strings.size()));
+            });
+        });
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(strings.size());
+        for (String string : strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(tables.size());
+        for (Map.Entry<String, Map<String, Set<String>>> table : tables.entrySet()) {
+            out.writeInt(strings.get(table.getKey()));
+            out.writeInt(table.getValue().size());
+            for (Map.Entry<String, Set<String>> entry : table.getValue().entrySet()) {
+                out.writeInt(strings.get(entry.getKey()));
+                out.writeInt(entry.getValue().size());
+                for (String value : entry.getValue()) {
+                    out.writeInt(strings.get(value));
+                }
+            }
+        }
+    }
+
+    private static Map<String, Map<String, Set<String>>> decode(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a scan cache entry of this version");
+        }
+        try {
+            int count = buffer.getInt();
+            // Every string takes at least its length prefix; a larger count means a damaged entry
+            List<String> strings = new ArrayList<>(Math.min(count, buffer.remaining() / Integer.BYTES));
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            Map<String, Map<String, Set<String>>> tables = new LinkedHashMap<>();
+            for (int tableCount = buffer.getInt(), t = 0; t < tableCount; t++) {
+                Map<String, Set<String>> table = new LinkedHashMap<>();
+                tables.put(strings.get(buffer.getInt()), table);
+                for (int keyCount = buffer.getInt(), k = 0; k < keyCount; k++) {
+                    String key = strings.get(buffer.getInt());
+                    Set<String> values = new LinkedHashSet<>();
+                    for (int valueCount = buffer.getInt(), v = 0; v < valueCount; v++) {
+                        values.add(strings.get(buffer.getInt()));
+                    }
+                    table.put(key, values);
+                }
+            }
+            return tables;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated scan cache entry", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left for the next write to replace
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.openapispecs.generator.plugin.scanner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Scan results of jars, shared by every module scanned during one Maven session. A jar is identified by its path,
+// size and modification time; directories hold the classes of the module being built and are never shared. Entries
+// contain class names only, so they are valid for any class loader. Results for jars the persistent cache accepts
+// also outlive the session.
+public class SharedScanIndex {
+    private final Map<String, CompletableFuture<Map<String, Map<String, Set<String>>>>> entries =
+            new ConcurrentHashMap<>();
+    private final PersistentScanCache persistentCache;
+
+    public SharedScanIndex() {
+        this(null);
+    }
+
+    public SharedScanIndex(PersistentScanCache persistentCache) {
+        this.persistentCache = persistentCache;
+    }
+
+    // Named tables of class names, e.g. annotation type to annotated types
+    interface Indexer {
+        Map<String, Map<String, Set<String>>> index() throws IOException;
+    }
+
+    // Concurrent requests for the same jar, e.g. from modules built in parallel, index it once.
+    Map<String, Map<String, Set<String>>> get(Path jar, String variant, Indexer indexer) throws IOException {
+        String key = variant + "|" + jar.toAbsolutePath() + "|" + Files.size(jar) + "@"
+                + Files.getLastModifiedTime(jar).toMillis();
+        CompletableFuture<Map<String, Map<String, Set<String>>>> entry = new CompletableFuture<>();
+        CompletableFuture<Map<String, Map<String, Set<String>>>> existing = entries.putIfAbsent(key, entry);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw new IOException("Cannot index " + jar, e.getCause());
+            }
+        }
+        try {
+            Map<String, Map<String, Set<String>>> index = load(jar, key, indexer);
+            entry.complete(index);
+            return index;
+        } catch (IOException | RuntimeException e) {
+            // Let a later module try again rather than fail on a cached error
+            entries.remove(key, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Map<String, Map<String, Set<String>>> load(Path jar, String key, Indexer indexer) throws IOException {
+        if (persistentCache == null || !persistentCache.accepts(jar)) {
+            return indexer.index();
+        }
+        Map<String, Map<String, Set<String>>> index = persistentCache.read(key);
+        if (index == null) {
+            index = indexer.index();
+            persistentCache.write(key, index);
+        }
+        return index;
+    }
+}